@@ -18,4 +18,6 @@ public interface BspBuildTarget extends Serializable {
     BspBuildTargetCapabilities capabilities();
     String dataKind();
     Serializable data();
+    BspJvmBuildTarget jvmData();
+    BspScalaBuildTarget scalaData();
 }
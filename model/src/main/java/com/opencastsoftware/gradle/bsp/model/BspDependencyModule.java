@@ -11,4 +11,5 @@ public interface BspDependencyModule extends Serializable {
     String version();
     String dataKind();
     Serializable data();
+    BspMavenDependencyModule mavenData();
 }
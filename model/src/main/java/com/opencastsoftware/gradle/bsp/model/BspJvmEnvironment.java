@@ -0,0 +1,18 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+public interface BspJvmEnvironment extends Serializable {
+    List<URI> classpath();
+    List<String> jvmOptions();
+    URI workingDirectory();
+    Map<String, String> environmentVariables();
+    List<String> mainClasses();
+}
@@ -0,0 +1,13 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Map;
+
+public interface BspJvmEnvironments extends Serializable {
+    Map<URI, BspJvmEnvironment> getEnvironments();
+}
@@ -15,5 +15,6 @@ public interface BspWorkspace extends Serializable {
     BspCleanTasks cleanTasks();
     BspBuildTargetSources buildTargetSources();
     BspBuildTargetResources buildTargetResources();
+    BspBuildTargetOutputPaths buildTargetOutputPaths();
     BspDependencyModules buildTargetDependencies();
 }
@@ -89,6 +89,16 @@ public class DefaultBspBuildTarget implements BspBuildTarget {
         return this.data;
     }
 
+    @Override
+    public BspJvmBuildTarget jvmData() {
+        return this.data instanceof BspJvmBuildTarget ? (BspJvmBuildTarget) this.data : null;
+    }
+
+    @Override
+    public BspScalaBuildTarget scalaData() {
+        return this.data instanceof BspScalaBuildTarget ? (BspScalaBuildTarget) this.data : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,42 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+
+public class DefaultBspBuildTargetCompilerOptions implements BspBuildTargetCompilerOptions {
+    private final Map<URI, BspCompilerOptions> compilerOptions;
+
+    public DefaultBspBuildTargetCompilerOptions(Map<URI, BspCompilerOptions> compilerOptions) {
+        this.compilerOptions = compilerOptions;
+    }
+
+    @Override
+    public Map<URI, BspCompilerOptions> getCompilerOptions() {
+        return compilerOptions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DefaultBspBuildTargetCompilerOptions that = (DefaultBspBuildTargetCompilerOptions) o;
+        return Objects.equals(compilerOptions, that.compilerOptions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(compilerOptions);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultBspBuildTargetCompilerOptions[" +
+                "compilerOptions=" + compilerOptions +
+                ']';
+    }
+}
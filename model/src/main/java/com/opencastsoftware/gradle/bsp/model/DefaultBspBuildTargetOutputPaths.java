@@ -0,0 +1,43 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+public class DefaultBspBuildTargetOutputPaths implements BspBuildTargetOutputPaths {
+    private final Map<URI, Set<URI>> outputPaths;
+
+    public DefaultBspBuildTargetOutputPaths(Map<URI, Set<URI>> outputPaths) {
+        this.outputPaths = outputPaths;
+    }
+
+    @Override
+    public Map<URI, Set<URI>> getOutputPaths() {
+        return outputPaths;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DefaultBspBuildTargetOutputPaths that = (DefaultBspBuildTargetOutputPaths) o;
+        return Objects.equals(outputPaths, that.outputPaths);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(outputPaths);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultBspBuildTargetOutputPaths[" +
+                "outputPaths=" + outputPaths +
+                ']';
+    }
+}
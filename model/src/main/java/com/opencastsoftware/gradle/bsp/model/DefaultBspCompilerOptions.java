@@ -0,0 +1,58 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Objects;
+
+public class DefaultBspCompilerOptions implements BspCompilerOptions {
+    private final List<String> options;
+    private final List<URI> classpath;
+    private final URI classDirectory;
+
+    public DefaultBspCompilerOptions(List<String> options, List<URI> classpath, URI classDirectory) {
+        this.options = options;
+        this.classpath = classpath;
+        this.classDirectory = classDirectory;
+    }
+
+    @Override
+    public List<String> options() {
+        return options;
+    }
+
+    @Override
+    public List<URI> classpath() {
+        return classpath;
+    }
+
+    @Override
+    public URI classDirectory() {
+        return classDirectory;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DefaultBspCompilerOptions that = (DefaultBspCompilerOptions) o;
+        return Objects.equals(options, that.options) && Objects.equals(classpath, that.classpath) && Objects.equals(classDirectory, that.classDirectory);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(options, classpath, classDirectory);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultBspCompilerOptions[" +
+                "options=" + options +
+                ", classpath=" + classpath +
+                ", classDirectory=" + classDirectory +
+                ']';
+    }
+}
@@ -47,6 +47,11 @@ public class DefaultBspDependencyModule implements BspDependencyModule {
         return data;
     }
 
+    @Override
+    public BspMavenDependencyModule mavenData() {
+        return data instanceof BspMavenDependencyModule ? (BspMavenDependencyModule) data : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
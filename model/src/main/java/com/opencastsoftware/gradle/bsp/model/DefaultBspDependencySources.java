@@ -0,0 +1,43 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+public class DefaultBspDependencySources implements BspDependencySources {
+    private final Map<String, Set<URI>> sources;
+
+    public DefaultBspDependencySources(Map<String, Set<URI>> sources) {
+        this.sources = sources;
+    }
+
+    @Override
+    public Map<String, Set<URI>> getSources() {
+        return sources;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DefaultBspDependencySources that = (DefaultBspDependencySources) o;
+        return Objects.equals(sources, that.sources);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sources);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultBspDependencySources[" +
+                "sources=" + sources +
+                ']';
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class DefaultBspJvmEnvironment implements BspJvmEnvironment {
+    private final List<URI> classpath;
+    private final List<String> jvmOptions;
+    private final URI workingDirectory;
+    private final Map<String, String> environmentVariables;
+    private final List<String> mainClasses;
+
+    public DefaultBspJvmEnvironment(List<URI> classpath, List<String> jvmOptions, URI workingDirectory, Map<String, String> environmentVariables, List<String> mainClasses) {
+        this.classpath = classpath;
+        this.jvmOptions = jvmOptions;
+        this.workingDirectory = workingDirectory;
+        this.environmentVariables = environmentVariables;
+        this.mainClasses = mainClasses;
+    }
+
+    @Override
+    public List<URI> classpath() {
+        return classpath;
+    }
+
+    @Override
+    public List<String> jvmOptions() {
+        return jvmOptions;
+    }
+
+    @Override
+    public URI workingDirectory() {
+        return workingDirectory;
+    }
+
+    @Override
+    public Map<String, String> environmentVariables() {
+        return environmentVariables;
+    }
+
+    @Override
+    public List<String> mainClasses() {
+        return mainClasses;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DefaultBspJvmEnvironment that = (DefaultBspJvmEnvironment) o;
+        return Objects.equals(classpath, that.classpath) && Objects.equals(jvmOptions, that.jvmOptions) && Objects.equals(workingDirectory, that.workingDirectory) && Objects.equals(environmentVariables, that.environmentVariables) && Objects.equals(mainClasses, that.mainClasses);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classpath, jvmOptions, workingDirectory, environmentVariables, mainClasses);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultBspJvmEnvironment[" +
+                "classpath=" + classpath +
+                ", jvmOptions=" + jvmOptions +
+                ", workingDirectory=" + workingDirectory +
+                ", environmentVariables=" + environmentVariables +
+                ", mainClasses=" + mainClasses +
+                ']';
+    }
+}
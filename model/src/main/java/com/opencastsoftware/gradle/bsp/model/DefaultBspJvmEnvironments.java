@@ -0,0 +1,42 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.model;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+
+public class DefaultBspJvmEnvironments implements BspJvmEnvironments {
+    private final Map<URI, BspJvmEnvironment> environments;
+
+    public DefaultBspJvmEnvironments(Map<URI, BspJvmEnvironment> environments) {
+        this.environments = environments;
+    }
+
+    @Override
+    public Map<URI, BspJvmEnvironment> getEnvironments() {
+        return environments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DefaultBspJvmEnvironments that = (DefaultBspJvmEnvironments) o;
+        return Objects.equals(environments, that.environments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(environments);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultBspJvmEnvironments[" +
+                "environments=" + environments +
+                ']';
+    }
+}
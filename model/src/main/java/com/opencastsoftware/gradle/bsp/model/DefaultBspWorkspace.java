@@ -15,9 +15,10 @@ public class DefaultBspWorkspace implements BspWorkspace {
     private final BspCleanTasks cleanTasks;
     private final BspBuildTargetSources buildTargetSources;
     private final BspBuildTargetResources buildTargetResources;
+    private final BspBuildTargetOutputPaths buildTargetOutputPaths;
     private final BspDependencyModules buildTargetDependencies;
 
-    public DefaultBspWorkspace(List<BspBuildTarget> buildTargets, BspCompileTasks compileTasks, BspTestTasks testTasks, BspRunTasks runTasks, BspCleanTasks cleanTasks, BspBuildTargetSources buildTargetSources, BspBuildTargetResources buildTargetResources, BspDependencyModules buildTargetDependencies) {
+    public DefaultBspWorkspace(List<BspBuildTarget> buildTargets, BspCompileTasks compileTasks, BspTestTasks testTasks, BspRunTasks runTasks, BspCleanTasks cleanTasks, BspBuildTargetSources buildTargetSources, BspBuildTargetResources buildTargetResources, BspBuildTargetOutputPaths buildTargetOutputPaths, BspDependencyModules buildTargetDependencies) {
         this.buildTargets = buildTargets;
         this.compileTasks = compileTasks;
         this.testTasks = testTasks;
@@ -25,6 +26,7 @@ public class DefaultBspWorkspace implements BspWorkspace {
         this.cleanTasks = cleanTasks;
         this.buildTargetSources = buildTargetSources;
         this.buildTargetResources = buildTargetResources;
+        this.buildTargetOutputPaths = buildTargetOutputPaths;
         this.buildTargetDependencies = buildTargetDependencies;
     }
 
@@ -64,6 +66,11 @@ public class DefaultBspWorkspace implements BspWorkspace {
         return buildTargetResources;
     }
 
+    @Override
+    public BspBuildTargetOutputPaths buildTargetOutputPaths() {
+        return buildTargetOutputPaths;
+    }
+
     @Override
     public BspDependencyModules buildTargetDependencies() {
         return buildTargetDependencies;
@@ -74,12 +81,12 @@ public class DefaultBspWorkspace implements BspWorkspace {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DefaultBspWorkspace that = (DefaultBspWorkspace) o;
-        return Objects.equals(buildTargets, that.buildTargets) && Objects.equals(compileTasks, that.compileTasks) && Objects.equals(testTasks, that.testTasks) && Objects.equals(runTasks, that.runTasks) && Objects.equals(cleanTasks, that.cleanTasks) && Objects.equals(buildTargetSources, that.buildTargetSources) && Objects.equals(buildTargetResources, that.buildTargetResources) && Objects.equals(buildTargetDependencies, that.buildTargetDependencies);
+        return Objects.equals(buildTargets, that.buildTargets) && Objects.equals(compileTasks, that.compileTasks) && Objects.equals(testTasks, that.testTasks) && Objects.equals(runTasks, that.runTasks) && Objects.equals(cleanTasks, that.cleanTasks) && Objects.equals(buildTargetSources, that.buildTargetSources) && Objects.equals(buildTargetResources, that.buildTargetResources) && Objects.equals(buildTargetOutputPaths, that.buildTargetOutputPaths) && Objects.equals(buildTargetDependencies, that.buildTargetDependencies);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(buildTargets, compileTasks, testTasks, runTasks, cleanTasks, buildTargetSources, buildTargetResources, buildTargetDependencies);
+        return Objects.hash(buildTargets, compileTasks, testTasks, runTasks, cleanTasks, buildTargetSources, buildTargetResources, buildTargetOutputPaths, buildTargetDependencies);
     }
 
     @Override
@@ -92,6 +99,7 @@ public class DefaultBspWorkspace implements BspWorkspace {
                 ", cleanTasks=" + cleanTasks +
                 ", buildTargetSources=" + buildTargetSources +
                 ", buildTargetResources=" + buildTargetResources +
+                ", buildTargetOutputPaths=" + buildTargetOutputPaths +
                 ", buildTargetDependencies=" + buildTargetDependencies +
                 ']';
     }
@@ -87,6 +87,36 @@ public class BspModelTest {
         ToStringVerifier.forClass(DefaultBspBuildTargetResources.class).verify();
     }
 
+    @Test
+    void testBspBuildTargetOutputPaths() {
+        EqualsVerifier.forClass(DefaultBspBuildTargetOutputPaths.class).usingGetClass().verify();
+        ToStringVerifier.forClass(DefaultBspBuildTargetOutputPaths.class).verify();
+    }
+
+    @Test
+    void testBspJvmEnvironment() {
+        EqualsVerifier.forClass(DefaultBspJvmEnvironment.class).usingGetClass().verify();
+        ToStringVerifier.forClass(DefaultBspJvmEnvironment.class).verify();
+    }
+
+    @Test
+    void testBspJvmEnvironments() {
+        EqualsVerifier.forClass(DefaultBspJvmEnvironments.class).usingGetClass().verify();
+        ToStringVerifier.forClass(DefaultBspJvmEnvironments.class).verify();
+    }
+
+    @Test
+    void testBspCompilerOptions() {
+        EqualsVerifier.forClass(DefaultBspCompilerOptions.class).usingGetClass().verify();
+        ToStringVerifier.forClass(DefaultBspCompilerOptions.class).verify();
+    }
+
+    @Test
+    void testBspBuildTargetCompilerOptions() {
+        EqualsVerifier.forClass(DefaultBspBuildTargetCompilerOptions.class).usingGetClass().verify();
+        ToStringVerifier.forClass(DefaultBspBuildTargetCompilerOptions.class).verify();
+    }
+
     @Test
     void testBspDependencyModule() {
         EqualsVerifier.forClass(DefaultBspDependencyModule.class).usingGetClass().verify();
@@ -99,6 +129,12 @@ public class BspModelTest {
         ToStringVerifier.forClass(DefaultBspDependencyModules.class).verify();
     }
 
+    @Test
+    void testBspDependencySources() {
+        EqualsVerifier.forClass(DefaultBspDependencySources.class).usingGetClass().verify();
+        ToStringVerifier.forClass(DefaultBspDependencySources.class).verify();
+    }
+
     @Test
     void testBspMavenDependencyModule() {
         EqualsVerifier.forClass(DefaultBspMavenDependencyModule.class).usingGetClass().verify();
@@ -47,19 +47,26 @@ public class ToolingModelTest {
         return sourcePath.toUri();
     }
 
+    // Output directories don't exist until the build runs, so their URIs have no trailing slash unless we add one
+    private URI getDirectoryUri(File projectDir, String... directories) throws IOException {
+        var uri = getSourceUri(projectDir, directories);
+        return uri.getPath().endsWith("/") ? uri : URI.create(uri + "/");
+    }
+
     private void writeString(File file, String string) throws IOException {
         try (Writer writer = new FileWriter(file)) {
             writer.write(string);
         }
     }
 
-    private <A> A fetchModel(File projectDir, Class<A> modelClass) {
+    private <A> A fetchModel(File projectDir, Class<A> modelClass, String... arguments) {
         var connector = GradleConnector.newConnector()
                 .forProjectDirectory(projectDir)
                 .useBuildDistribution();
 
         try (var connection = connector.connect()) {
             var builder = (DefaultModelBuilder<A>) connection.model(modelClass);
+            builder.withArguments(arguments);
             var pluginClasspath = PluginUnderTestMetadataReading.readImplementationClasspath();
             builder.withInjectedClassPath(DefaultClassPath.of(pluginClasspath));
             return builder.get();
@@ -113,7 +120,9 @@ public class ToolingModelTest {
                                 hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(false))
                         )),
                         hasProperty("dataKind", BspBuildTarget::dataKind, is("jvm")),
-                        hasProperty("data", BspBuildTarget::data, is(notNullValue()))
+                        hasProperty("data", BspBuildTarget::data, is(notNullValue())),
+                        hasProperty("jvmData", BspBuildTarget::jvmData,
+                                hasProperty("javaHome", BspJvmBuildTarget::javaHome, is(notNullValue())))
                 ),
                 // source set build targets
                 allOf(
@@ -145,7 +154,7 @@ public class ToolingModelTest {
                                 hasProperty("canCompile", BspBuildTargetCapabilities::canCompile, is(true)),
                                 hasProperty("canTest", BspBuildTargetCapabilities::canTest, is(true)),
                                 hasProperty("canRun", BspBuildTargetCapabilities::canRun, is(false)),
-                                hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(false))
+                                hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(true))
                         )),
                         hasProperty("dataKind", BspBuildTarget::dataKind, is("jvm")),
                         hasProperty("data", BspBuildTarget::data, is(notNullValue()))
@@ -328,6 +337,42 @@ public class ToolingModelTest {
         ));
     }
 
+    @Test
+    void returnsBuildTargetOutputPaths(@TempDir File projectDir) throws IOException {
+        writeString(getSettingsFile(projectDir), "");
+        writeString(getBuildFile(projectDir),
+                "plugins {\n" +
+                        "  id('java')\n" +
+                        "  id('com.opencastsoftware.gradle.bsp')\n" +
+                        "}");
+
+        var buildTargetOutputPaths = fetchModel(projectDir, BspBuildTargetOutputPaths.class);
+
+        assertThat(buildTargetOutputPaths.getOutputPaths(), allOf(
+                hasEntry(equalTo(getBuildTargetId(projectDir)), hasItems(
+                        equalTo(getDirectoryUri(projectDir, "build")),
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "main")),
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "test"))
+                )),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "main")), hasItems(
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "main")),
+                        equalTo(getDirectoryUri(projectDir, "build", "resources", "main"))
+                )),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "test")), hasItems(
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "test")),
+                        equalTo(getDirectoryUri(projectDir, "build", "resources", "test"))
+                )),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "java")), hasItems(
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "main")),
+                        equalTo(getDirectoryUri(projectDir, "build", "resources", "main"))
+                )),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "testJava")), hasItems(
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "test")),
+                        equalTo(getDirectoryUri(projectDir, "build", "resources", "test"))
+                ))
+        ));
+    }
+
     @Test
     void returnsScalaBuildTargetsWithScalaPlugin(@TempDir File projectDir) throws IOException {
         writeString(getSettingsFile(projectDir), "");
@@ -389,7 +434,7 @@ public class ToolingModelTest {
                                 hasProperty("canCompile", BspBuildTargetCapabilities::canCompile, is(true)),
                                 hasProperty("canTest", BspBuildTargetCapabilities::canTest, is(true)),
                                 hasProperty("canRun", BspBuildTargetCapabilities::canRun, is(false)),
-                                hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(false))
+                                hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(true))
                         )),
                         hasProperty("dataKind", BspBuildTarget::dataKind, is("jvm")),
                         hasProperty("data", BspBuildTarget::data, is(notNullValue()))
@@ -533,7 +578,7 @@ public class ToolingModelTest {
                                 hasProperty("canCompile", BspBuildTargetCapabilities::canCompile, is(true)),
                                 hasProperty("canTest", BspBuildTargetCapabilities::canTest, is(true)),
                                 hasProperty("canRun", BspBuildTargetCapabilities::canRun, is(false)),
-                                hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(false))
+                                hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(true))
                         )),
                         hasProperty("dataKind", BspBuildTarget::dataKind, is("jvm")),
                         hasProperty("data", BspBuildTarget::data, is(notNullValue()))
@@ -588,7 +633,9 @@ public class ToolingModelTest {
                                 hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(false))
                         )),
                         hasProperty("dataKind", BspBuildTarget::dataKind, is("scala")),
-                        hasProperty("data", BspBuildTarget::data, is(notNullValue()))
+                        hasProperty("data", BspBuildTarget::data, is(notNullValue())),
+                        hasProperty("scalaData", BspBuildTarget::scalaData,
+                                hasProperty("scalaVersion", BspScalaBuildTarget::scalaVersion, is("2.13.10")))
                 ),
                 allOf(
                         hasProperty("id", BspBuildTarget::id,
@@ -605,7 +652,9 @@ public class ToolingModelTest {
                                 hasProperty("canDebug", BspBuildTargetCapabilities::canDebug, is(false))
                         )),
                         hasProperty("dataKind", BspBuildTarget::dataKind, is("scala")),
-                        hasProperty("data", BspBuildTarget::data, is(notNullValue()))
+                        hasProperty("data", BspBuildTarget::data, is(notNullValue())),
+                        hasProperty("scalaData", BspBuildTarget::scalaData,
+                                hasProperty("scalaVersion", BspScalaBuildTarget::scalaVersion, is("2.13.10")))
                 )
         ));
     }
@@ -805,4 +854,192 @@ public class ToolingModelTest {
                 ))
         ));
     }
+
+    @Test
+    void returnsNoDependencySourcesWithoutRequestedModules(@TempDir File projectDir) throws IOException {
+        writeString(getSettingsFile(projectDir), "");
+        writeString(getBuildFile(projectDir),
+                "plugins {\n" +
+                        "  id('java')\n" +
+                        "  id('com.opencastsoftware.gradle.bsp')\n" +
+                        "}");
+
+        var dependencySources = fetchModel(projectDir, BspDependencySources.class);
+
+        assertThat(dependencySources.getSources(), is(anEmptyMap()));
+    }
+
+    @Test
+    void returnsDependencySourcesOfRequestedModules(@TempDir File projectDir) throws IOException {
+        writeString(getSettingsFile(projectDir), "");
+        writeString(getBuildFile(projectDir),
+                "plugins {\n" +
+                        "  id('java')\n" +
+                        "  id('com.opencastsoftware.gradle.bsp')\n" +
+                        "}\n" +
+                        "repositories {\n" +
+                        "  mavenCentral()\n" +
+                        "}");
+
+        var dependencySources = fetchModel(projectDir, BspDependencySources.class,
+                "-Pbsp.dependencySources.modules=org.scala-lang:scala-library:2.13.10, com.example:missing:1.0.0, not-a-module");
+
+        assertThat(dependencySources.getSources(), allOf(
+                hasEntry(equalTo("org.scala-lang:scala-library:2.13.10"), contains(
+                        hasProperty("path", URI::getPath, endsWith("/scala-library-2.13.10-sources.jar"))
+                )),
+                // Modules without sources are returned too, so that they are not resolved again
+                hasEntry(equalTo("com.example:missing:1.0.0"), is(emptyIterable()))
+        ));
+
+        assertThat(dependencySources.getSources(), not(hasKey("not-a-module")));
+    }
+
+    @Test
+    void returnsRunEnvironmentsOfRequestedTargets(@TempDir File projectDir) throws IOException {
+        writeString(getSettingsFile(projectDir), "");
+        writeString(getBuildFile(projectDir),
+                "plugins {\n" +
+                        "  id('java')\n" +
+                        "  id('application')\n" +
+                        "  id('com.opencastsoftware.gradle.bsp')\n" +
+                        "}\n" +
+                        "application {\n" +
+                        "  mainClass = 'com.example.Main'\n" +
+                        "}\n" +
+                        "tasks.named('run') {\n" +
+                        "  jvmArgs('-Dbsp.test=run')\n" +
+                        "  environment('BSP_TEST_VARIABLE', 'run')\n" +
+                        "}");
+
+        var jvmEnvironments = fetchModel(projectDir, BspJvmEnvironments.class,
+                "-Pbsp.jvmEnvironments.targets=" + getBuildTargetId(projectDir) + " " + getBuildTargetId(projectDir, "test"));
+
+        var runEnvironment = allOf(
+                hasProperty("classpath", BspJvmEnvironment::classpath,
+                        hasItem(getSourceUri(projectDir, "build", "classes", "java", "main"))),
+                hasProperty("jvmOptions", BspJvmEnvironment::jvmOptions, hasItem("-Dbsp.test=run")),
+                hasProperty("workingDirectory", BspJvmEnvironment::workingDirectory, equalTo(getSourceUri(projectDir))),
+                hasProperty("environmentVariables", BspJvmEnvironment::environmentVariables, hasEntry("BSP_TEST_VARIABLE", "run")),
+                // Variables inherited from the daemon are left out
+                hasProperty("environmentVariables", BspJvmEnvironment::environmentVariables, not(hasKey("PATH"))),
+                hasProperty("mainClasses", BspJvmEnvironment::mainClasses, contains("com.example.Main"))
+        );
+
+        // Source sets without a run task are run with their runtime classpath
+        var sourceSetEnvironment = allOf(
+                hasProperty("classpath", BspJvmEnvironment::classpath,
+                        hasItem(getSourceUri(projectDir, "build", "classes", "java", "test"))),
+                hasProperty("jvmOptions", BspJvmEnvironment::jvmOptions, is(emptyIterable())),
+                hasProperty("workingDirectory", BspJvmEnvironment::workingDirectory, equalTo(getSourceUri(projectDir))),
+                hasProperty("mainClasses", BspJvmEnvironment::mainClasses, is(emptyIterable()))
+        );
+
+        assertThat(jvmEnvironments.getEnvironments(), allOf(
+                hasEntry(equalTo(getBuildTargetId(projectDir)), runEnvironment),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "test")), sourceSetEnvironment)
+        ));
+
+        assertThat(jvmEnvironments.getEnvironments(), not(hasKey(getBuildTargetId(projectDir, "main"))));
+    }
+
+    @Test
+    void returnsTestEnvironmentsOfRequestedTargets(@TempDir File projectDir) throws IOException {
+        writeString(getSettingsFile(projectDir), "");
+        writeString(getBuildFile(projectDir),
+                "plugins {\n" +
+                        "  id('java')\n" +
+                        "  id('com.opencastsoftware.gradle.bsp')\n" +
+                        "}\n" +
+                        "tasks.named('test') {\n" +
+                        "  jvmArgs('-Dbsp.test=test')\n" +
+                        "  environment('BSP_TEST_VARIABLE', 'test')\n" +
+                        "}");
+
+        var jvmEnvironments = fetchModel(projectDir, BspJvmEnvironments.class,
+                "-Pbsp.jvmEnvironments.kind=test",
+                "-Pbsp.jvmEnvironments.targets=" + getBuildTargetId(projectDir) + " " +
+                        getBuildTargetId(projectDir, "main") + " " + getBuildTargetId(projectDir, "test"));
+
+        var testEnvironment = allOf(
+                hasProperty("classpath", BspJvmEnvironment::classpath,
+                        hasItem(getSourceUri(projectDir, "build", "classes", "java", "test"))),
+                hasProperty("jvmOptions", BspJvmEnvironment::jvmOptions, hasItem("-Dbsp.test=test")),
+                hasProperty("workingDirectory", BspJvmEnvironment::workingDirectory, equalTo(getSourceUri(projectDir))),
+                hasProperty("environmentVariables", BspJvmEnvironment::environmentVariables, hasEntry("BSP_TEST_VARIABLE", "test")),
+                hasProperty("environmentVariables", BspJvmEnvironment::environmentVariables, not(hasKey("PATH"))),
+                hasProperty("mainClasses", BspJvmEnvironment::mainClasses, is(emptyIterable()))
+        );
+
+        // The project target is tested with its `test` source set
+        assertThat(jvmEnvironments.getEnvironments(), allOf(
+                hasEntry(equalTo(getBuildTargetId(projectDir)), testEnvironment),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "test")), testEnvironment)
+        ));
+
+        // The `main` source set has no test task
+        assertThat(jvmEnvironments.getEnvironments(), not(hasKey(getBuildTargetId(projectDir, "main"))));
+    }
+
+    @Test
+    void returnsCompilerOptionsOfRequestedTargets(@TempDir File projectDir) throws IOException {
+        writeString(getSettingsFile(projectDir), "");
+        writeString(getBuildFile(projectDir),
+                "plugins {\n" +
+                        "  id('java')\n" +
+                        "  id('com.opencastsoftware.gradle.bsp')\n" +
+                        "}\n" +
+                        "tasks.withType(JavaCompile).configureEach {\n" +
+                        "  options.release = 17\n" +
+                        "  options.encoding = 'UTF-8'\n" +
+                        "}");
+
+        var buildTargetCompilerOptions = fetchModel(projectDir, BspBuildTargetCompilerOptions.class,
+                "-Pbsp.compilerOptions.language=java",
+                "-Pbsp.compilerOptions.targets=" + getBuildTargetId(projectDir) + " " +
+                        getBuildTargetId(projectDir, "java") + " " + getBuildTargetId(projectDir, "test"));
+
+        var mainOptions = allOf(
+                hasProperty("options", BspCompilerOptions::options, hasItems("--release", "17", "-encoding", "UTF-8")),
+                hasProperty("classDirectory", BspCompilerOptions::classDirectory,
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "main")))
+        );
+
+        var testOptions = allOf(
+                hasProperty("options", BspCompilerOptions::options, hasItems("--release", "17", "-encoding", "UTF-8")),
+                hasProperty("classpath", BspCompilerOptions::classpath,
+                        hasItem(getSourceUri(projectDir, "build", "classes", "java", "main"))),
+                hasProperty("classDirectory", BspCompilerOptions::classDirectory,
+                        equalTo(getDirectoryUri(projectDir, "build", "classes", "java", "test")))
+        );
+
+        // The project target uses the options of its `main` source set
+        assertThat(buildTargetCompilerOptions.getCompilerOptions(), allOf(
+                hasEntry(equalTo(getBuildTargetId(projectDir)), mainOptions),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "java")), mainOptions),
+                hasEntry(equalTo(getBuildTargetId(projectDir, "test")), testOptions)
+        ));
+
+        // Only the requested targets are returned
+        assertThat(buildTargetCompilerOptions.getCompilerOptions(), allOf(
+                not(hasKey(getBuildTargetId(projectDir, "main"))),
+                not(hasKey(getBuildTargetId(projectDir, "testJava")))
+        ));
+    }
+
+    @Test
+    void returnsNoCompilerOptionsWithoutLanguagePlugin(@TempDir File projectDir) throws IOException {
+        writeString(getSettingsFile(projectDir), "");
+        writeString(getBuildFile(projectDir),
+                "plugins {\n" +
+                        "  id('java')\n" +
+                        "  id('com.opencastsoftware.gradle.bsp')\n" +
+                        "}");
+
+        var buildTargetCompilerOptions = fetchModel(projectDir, BspBuildTargetCompilerOptions.class,
+                "-Pbsp.compilerOptions.language=scala",
+                "-Pbsp.compilerOptions.targets=" + getBuildTargetId(projectDir) + " " + getBuildTargetId(projectDir, "main"));
+
+        assertThat(buildTargetCompilerOptions.getCompilerOptions(), is(anEmptyMap()));
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp;
+
+import com.opencastsoftware.gradle.bsp.model.*;
+import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.tooling.provider.model.ToolingModelBuilder;
+
+import java.net.URI;
+import java.util.HashMap;
+
+/**
+ * Collects the compiler options, compile classpath and class directory of a language for each build target.
+ * <p>
+ * This model is built on demand rather than as part of the workspace model, because it resolves the compile
+ * classpath of each target. The {@value #LANGUAGE_PROPERTY} project property selects the language, and the
+ * {@value #TARGETS_PROPERTY} project property contains the whitespace-separated URIs of the build targets
+ * to collect options for.
+ * <p>
+ * Language build targets and source set build targets use the options of their source set, while
+ * project build targets use the options of their {@code main} source set.
+ */
+public class BspBuildTargetCompilerOptionsToolingModelBuilder extends BspModelBuilder implements ToolingModelBuilder {
+    static final String LANGUAGE_PROPERTY = "bsp.compilerOptions.language";
+    static final String TARGETS_PROPERTY = "bsp.compilerOptions.targets";
+
+    @Override
+    public boolean canBuild(String modelName) {
+        return modelName.equals(BspBuildTargetCompilerOptions.class.getName());
+    }
+
+    @Override
+    public BspBuildTargetCompilerOptions buildAll(String modelName, Project rootProject) {
+        var languageId = rootProject.findProperty(LANGUAGE_PROPERTY);
+        var requestedTargets = getRequestedTargets(rootProject, TARGETS_PROPERTY);
+        var compilerOptions = new HashMap<URI, BspCompilerOptions>();
+
+        rootProject.getAllprojects().forEach(project -> {
+            var bspExtension = project.getExtensions().getByType(BspExtension.class);
+            var javaExtension = project.getExtensions().findByType(JavaPluginExtension.class);
+
+            if (javaExtension == null) {
+                return;
+            }
+
+            var languageModelBuilder = bspExtension.getLanguageModelBuilders().get().stream()
+                    .filter(modelBuilder -> modelBuilder.getLanguageId().equals(languageId))
+                    .filter(modelBuilder -> bspExtension.getSupportedLanguages().get().contains(modelBuilder.getLanguageId()))
+                    .findFirst();
+
+            languageModelBuilder.ifPresent(modelBuilder -> {
+                var projectTargetId = getBuildTargetIdFor(project).uri();
+
+                javaExtension.getSourceSets().forEach(sourceSet -> {
+                    var languageTargetId = modelBuilder.getBuildTargetIdFor(project, sourceSet).uri();
+                    var sourceSetTargetId = getBuildTargetIdFor(project, sourceSet).uri();
+                    var isProjectTarget = SourceSet.isMain(sourceSet) && requestedTargets.contains(projectTargetId);
+
+                    var isRequested = requestedTargets.contains(languageTargetId) ||
+                            requestedTargets.contains(sourceSetTargetId) ||
+                            isProjectTarget;
+
+                    if (!isRequested || !modelBuilder.isEnabledFor(sourceSet)) {
+                        return;
+                    }
+
+                    var sourceSetOptions = modelBuilder.getCompilerOptionsFor(project, sourceSet);
+
+                    if (sourceSetOptions != null) {
+                        compilerOptions.put(languageTargetId, sourceSetOptions);
+                        compilerOptions.put(sourceSetTargetId, sourceSetOptions);
+                        if (SourceSet.isMain(sourceSet)) {
+                            compilerOptions.put(projectTargetId, sourceSetOptions);
+                        }
+                    }
+                });
+            });
+        });
+
+        // Only return the options of the requested targets
+        compilerOptions.keySet().retainAll(requestedTargets);
+
+        return new DefaultBspBuildTargetCompilerOptions(compilerOptions);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp;
+
+import com.opencastsoftware.gradle.bsp.model.*;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.SourceDirectorySet;
+import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.tasks.SourceSetOutput;
+import org.gradle.tooling.provider.model.ToolingModelBuilder;
+
+import java.net.URI;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Collects the directories written by each build target: the class, resource and generated source output
+ * directories of each source set and of each language within it, and the build directory of each project.
+ */
+public class BspBuildTargetOutputPathsToolingModelBuilder extends BspModelBuilder implements ToolingModelBuilder {
+    @Override
+    public boolean canBuild(String modelName) {
+        return modelName.equals(BspBuildTargetOutputPaths.class.getName());
+    }
+
+    private Set<URI> getOutputPathsFor(SourceSetOutput output) {
+        return Stream.of(
+                        output.getClassesDirs().getFiles().stream(),
+                        Stream.ofNullable(output.getResourcesDir()),
+                        output.getGeneratedSourcesDirs().getFiles().stream())
+                .flatMap(dirs -> dirs)
+                .map(this::getDirectoryUriFor)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private Set<URI> getOutputPathsFor(SourceDirectorySet sourceDirSet, SourceSetOutput output) {
+        return Stream.of(
+                        Stream.ofNullable(sourceDirSet.getClassesDirectory().map(Directory::getAsFile).getOrNull()),
+                        Stream.ofNullable(output.getResourcesDir()),
+                        output.getGeneratedSourcesDirs().getFiles().stream())
+                .flatMap(dirs -> dirs)
+                .map(this::getDirectoryUriFor)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public BspBuildTargetOutputPaths buildAll(String modelName, Project rootProject) {
+        var outputPaths = new HashMap<URI, Set<URI>>();
+
+        rootProject.getAllprojects().forEach(project -> {
+            var bspExtension = project.getExtensions().getByType(BspExtension.class);
+            var supportedLanguages = bspExtension.getSupportedLanguages();
+            var javaExtension = project.getExtensions().findByType(JavaPluginExtension.class);
+            if (javaExtension != null) {
+                var buildDir = project.getLayout().getBuildDirectory().getAsFile().get();
+                var projectOutputPaths = new LinkedHashSet<URI>();
+                projectOutputPaths.add(getDirectoryUriFor(buildDir));
+
+                javaExtension.getSourceSets().forEach(sourceSet -> {
+                    bspExtension.getLanguageModelBuilders().get().forEach(modelBuilder -> {
+                        var isSupportedLanguage = supportedLanguages.get()
+                                .contains(modelBuilder.getLanguageId());
+                        if (isSupportedLanguage && modelBuilder.isEnabledFor(sourceSet)) {
+                            var sourceDirSetTargetId = modelBuilder.getBuildTargetIdFor(project, sourceSet).uri();
+                            var sourceDirSet = modelBuilder.getSourceDirectorySetFor(sourceSet);
+                            outputPaths.put(sourceDirSetTargetId, getOutputPathsFor(sourceDirSet, sourceSet.getOutput()));
+                        }
+                    });
+
+                    var sourceSetTargetId = getBuildTargetIdFor(project, sourceSet).uri();
+                    var sourceSetOutputPaths = getOutputPathsFor(sourceSet.getOutput());
+                    outputPaths.put(sourceSetTargetId, sourceSetOutputPaths);
+                    projectOutputPaths.addAll(sourceSetOutputPaths);
+                });
+
+                var projectTargetId = getBuildTargetIdFor(project).uri();
+                outputPaths.put(projectTargetId, projectOutputPaths);
+            }
+        });
+
+        return new DefaultBspBuildTargetOutputPaths(outputPaths);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp;
+
+import com.opencastsoftware.gradle.bsp.model.BspDependencySources;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspDependencySources;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.jvm.JvmLibrary;
+import org.gradle.language.base.artifact.SourcesArtifact;
+import org.gradle.tooling.provider.model.ToolingModelBuilder;
+
+import java.net.URI;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the sources artifacts of dependency modules.
+ * <p>
+ * This model is built on demand rather than as part of the workspace model, because it may require downloading
+ * many artifacts. The modules to resolve are passed in the {@value #MODULES_PROPERTY} project property as a
+ * comma-separated list of {@code group:name:version} coordinates.
+ */
+public class BspDependencySourcesToolingModelBuilder implements ToolingModelBuilder {
+    static final String MODULES_PROPERTY = "bsp.dependencySources.modules";
+
+    @Override
+    public boolean canBuild(String modelName) {
+        return modelName.equals(BspDependencySources.class.getName());
+    }
+
+    Set<String> getRequestedModules(Project rootProject) {
+        var modulesProperty = rootProject.findProperty(MODULES_PROPERTY);
+
+        if (modulesProperty == null) {
+            return Set.of();
+        }
+
+        return Arrays.stream(modulesProperty.toString().split(","))
+                .map(String::trim)
+                .filter(coordinates -> coordinates.split(":").length == 3)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    void resolveSourcesOf(Project project, Set<String> modules, Map<String, Set<URI>> sources) {
+        var query = project.getDependencies().createArtifactResolutionQuery();
+
+        for (var coordinates : modules) {
+            var parts = coordinates.split(":");
+            query = query.forModule(parts[0], parts[1], parts[2]);
+        }
+
+        var result = query.withArtifacts(JvmLibrary.class, SourcesArtifact.class).execute();
+
+        result.getResolvedComponents().forEach(component -> {
+            if (component.getId() instanceof ModuleComponentIdentifier) {
+                var componentId = (ModuleComponentIdentifier) component.getId();
+                var coordinates = componentId.getGroup() + ":" + componentId.getModule() + ":" + componentId.getVersion();
+
+                var sourcesJars = component.getArtifacts(SourcesArtifact.class).stream()
+                        .filter(ResolvedArtifactResult.class::isInstance)
+                        .map(artifact -> ((ResolvedArtifactResult) artifact).getFile().toURI())
+                        .collect(Collectors.toCollection(LinkedHashSet::new));
+
+                if (!sourcesJars.isEmpty()) {
+                    sources.put(coordinates, sourcesJars);
+                }
+            }
+        });
+    }
+
+    @Override
+    public BspDependencySources buildAll(String modelName, Project rootProject) {
+        var requestedModules = getRequestedModules(rootProject);
+        var sources = new HashMap<String, Set<URI>>();
+
+        // Repositories may be declared by any project, so try each project until every module is resolved
+        for (var project : rootProject.getAllprojects()) {
+            var unresolvedModules = requestedModules.stream()
+                    .filter(coordinates -> !sources.containsKey(coordinates))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+
+            if (unresolvedModules.isEmpty()) {
+                break;
+            }
+
+            if (!project.getRepositories().isEmpty()) {
+                resolveSourcesOf(project, unresolvedModules, sources);
+            }
+        }
+
+        // Modules without sources are recorded too, so that they are not resolved again
+        requestedModules.forEach(coordinates -> sources.putIfAbsent(coordinates, Set.of()));
+
+        return new DefaultBspDependencySources(sources);
+    }
+}
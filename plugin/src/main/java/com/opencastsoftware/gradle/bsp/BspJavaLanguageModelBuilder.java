@@ -4,12 +4,16 @@
  */
 package com.opencastsoftware.gradle.bsp;
 
+import com.opencastsoftware.gradle.bsp.model.BspCompilerOptions;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspCompilerOptions;
 import org.gradle.api.Project;
 import org.gradle.api.file.SourceDirectorySet;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.compile.JavaCompile;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 public abstract class BspJavaLanguageModelBuilder extends BspLanguageModelBuilder {
     private static final String JAVA_LANGUAGE_ID = "java";
@@ -39,4 +43,51 @@ public abstract class BspJavaLanguageModelBuilder extends BspLanguageModelBuilde
     protected Serializable getBuildTargetDataFor(Project project, SourceSet sourceSet) {
         return getJvmBuildTargetFor(project);
     }
+
+    @Nullable
+    @Override
+    public BspCompilerOptions getCompilerOptionsFor(Project project, SourceSet sourceSet) {
+        var javaCompileTask = project.getTasks().withType(JavaCompile.class).findByName(sourceSet.getCompileJavaTaskName());
+
+        if (javaCompileTask == null) {
+            return null;
+        }
+
+        var compileOptions = javaCompileTask.getOptions();
+        var options = new ArrayList<String>();
+
+        if (compileOptions.getRelease().isPresent()) {
+            options.add("--release");
+            options.add(compileOptions.getRelease().get().toString());
+        } else {
+            options.add("-source");
+            options.add(javaCompileTask.getSourceCompatibility());
+            options.add("-target");
+            options.add(javaCompileTask.getTargetCompatibility());
+        }
+
+        if (compileOptions.getEncoding() != null) {
+            options.add("-encoding");
+            options.add(compileOptions.getEncoding());
+        }
+
+        var annotationProcessorPath = compileOptions.getAnnotationProcessorPath();
+        if (annotationProcessorPath != null && !annotationProcessorPath.isEmpty()) {
+            options.add("-processorpath");
+            options.add(annotationProcessorPath.getAsPath());
+        }
+
+        var generatedSourceDir = compileOptions.getGeneratedSourceOutputDirectory().getAsFile().getOrNull();
+        if (generatedSourceDir != null) {
+            options.add("-s");
+            options.add(generatedSourceDir.getAbsolutePath());
+        }
+
+        options.addAll(compileOptions.getAllCompilerArgs());
+
+        return new DefaultBspCompilerOptions(
+                options,
+                getClasspathFor(javaCompileTask.getClasspath()),
+                getDirectoryUriFor(javaCompileTask.getDestinationDirectory().getAsFile().get()));
+    }
 }
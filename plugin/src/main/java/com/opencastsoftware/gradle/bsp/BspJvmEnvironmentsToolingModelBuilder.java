@@ -0,0 +1,153 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp;
+
+import com.opencastsoftware.gradle.bsp.model.*;
+import org.gradle.api.Project;
+import org.gradle.api.plugins.ApplicationPlugin;
+import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.plugins.jvm.JvmTestSuite;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.testing.base.TestingExtension;
+import org.gradle.tooling.provider.model.ToolingModelBuilder;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Collects the runtime classpath, JVM options, working directory and environment needed to launch
+ * the code of each build target without running Gradle tasks.
+ * <p>
+ * This model is built on demand rather than as part of the workspace model, because it resolves the runtime
+ * classpath of each target. The {@value #KIND_PROPERTY} project property selects whether the environments of
+ * {@value #RUN_KIND} tasks or {@value #TEST_KIND} tasks are collected, and the {@value #TARGETS_PROPERTY}
+ * project property contains the whitespace-separated URIs of the build targets to collect them for.
+ */
+public class BspJvmEnvironmentsToolingModelBuilder extends BspModelBuilder implements ToolingModelBuilder {
+    static final String KIND_PROPERTY = "bsp.jvmEnvironments.kind";
+    static final String TARGETS_PROPERTY = "bsp.jvmEnvironments.targets";
+
+    static final String RUN_KIND = "run";
+    static final String TEST_KIND = "test";
+
+    @Override
+    public boolean canBuild(String modelName) {
+        return modelName.equals(BspJvmEnvironments.class.getName());
+    }
+
+    // Fork options inherit the environment of the daemon, which should not be passed on to the client
+    private Map<String, String> getEnvironmentFor(JavaForkOptions forkOptions) {
+        var environment = new LinkedHashMap<String, String>();
+
+        forkOptions.getEnvironment().forEach((name, value) -> {
+            var valueString = String.valueOf(value);
+            if (!valueString.equals(System.getenv(name))) {
+                environment.put(name, valueString);
+            }
+        });
+
+        return environment;
+    }
+
+    private BspJvmEnvironment getEnvironmentFor(Project project, SourceSet sourceSet) {
+        return new DefaultBspJvmEnvironment(
+                getClasspathFor(sourceSet.getRuntimeClasspath()),
+                List.of(),
+                project.getProjectDir().toURI(),
+                Map.of(),
+                List.of());
+    }
+
+    private BspJvmEnvironment getEnvironmentFor(JavaExec runTask) {
+        var mainClass = runTask.getMainClass().getOrNull();
+        return new DefaultBspJvmEnvironment(
+                getClasspathFor(runTask.getClasspath()),
+                runTask.getAllJvmArgs(),
+                runTask.getWorkingDir().toURI(),
+                getEnvironmentFor((JavaForkOptions) runTask),
+                mainClass != null ? List.of(mainClass) : List.of());
+    }
+
+    private BspJvmEnvironment getEnvironmentFor(Test testTask) {
+        return new DefaultBspJvmEnvironment(
+                getClasspathFor(testTask.getClasspath()),
+                testTask.getAllJvmArgs(),
+                testTask.getWorkingDir().toURI(),
+                getEnvironmentFor((JavaForkOptions) testTask),
+                List.of());
+    }
+
+    private Optional<JavaExec> getRunTaskFor(Project project) {
+        return Optional.ofNullable(project.getTasks().findByName(ApplicationPlugin.TASK_RUN_NAME))
+                .filter(JavaExec.class::isInstance)
+                .map(JavaExec.class::cast);
+    }
+
+    private Optional<Test> getTestTaskFor(Project project, SourceSet sourceSet) {
+        return Optional.ofNullable(project.getExtensions().findByType(TestingExtension.class))
+                .flatMap(testing -> testing.getSuites().withType(JvmTestSuite.class).stream()
+                        .filter(suite -> suite.getSources().equals(sourceSet))
+                        .findFirst())
+                .flatMap(suite -> suite.getTargets().stream().findFirst())
+                .map(target -> target.getTestTask().get());
+    }
+
+    private Optional<BspJvmEnvironment> getRunEnvironmentFor(Project project, SourceSet sourceSet) {
+        if (SourceSet.isMain(sourceSet)) {
+            var runTask = getRunTaskFor(project);
+            if (runTask.isPresent()) {
+                return runTask.map(this::getEnvironmentFor);
+            }
+        }
+
+        return Optional.of(getEnvironmentFor(project, sourceSet));
+    }
+
+    private Optional<BspJvmEnvironment> getTestEnvironmentFor(Project project, SourceSet sourceSet) {
+        return getTestTaskFor(project, sourceSet).map(this::getEnvironmentFor);
+    }
+
+    private Optional<BspJvmEnvironment> getEnvironmentFor(String kind, Project project, SourceSet sourceSet) {
+        return TEST_KIND.equals(kind)
+                ? getTestEnvironmentFor(project, sourceSet)
+                : getRunEnvironmentFor(project, sourceSet);
+    }
+
+    @Override
+    public BspJvmEnvironments buildAll(String modelName, Project rootProject) {
+        var kind = Objects.toString(rootProject.findProperty(KIND_PROPERTY), RUN_KIND);
+        var requestedTargets = getRequestedTargets(rootProject, TARGETS_PROPERTY);
+        var environments = new HashMap<URI, BspJvmEnvironment>();
+
+        rootProject.getAllprojects().forEach(project -> {
+            var javaExtension = project.getExtensions().findByType(JavaPluginExtension.class);
+            if (javaExtension != null) {
+                javaExtension.getSourceSets().forEach(sourceSet -> {
+                    var sourceSetTargetId = getBuildTargetIdFor(project, sourceSet).uri();
+
+                    if (requestedTargets.contains(sourceSetTargetId)) {
+                        getEnvironmentFor(kind, project, sourceSet)
+                                .ifPresent(environment -> environments.put(sourceSetTargetId, environment));
+                    }
+                });
+
+                // The project target runs the `run` task and tests with its `test` source set
+                var projectTargetId = getBuildTargetIdFor(project).uri();
+                var sourceSetName = TEST_KIND.equals(kind) ? SourceSet.TEST_SOURCE_SET_NAME : SourceSet.MAIN_SOURCE_SET_NAME;
+                var sourceSet = javaExtension.getSourceSets().findByName(sourceSetName);
+
+                if (requestedTargets.contains(projectTargetId) && sourceSet != null) {
+                    getEnvironmentFor(kind, project, sourceSet)
+                            .ifPresent(environment -> environments.put(projectTargetId, environment));
+                }
+            }
+        });
+
+        return new DefaultBspJvmEnvironments(environments);
+    }
+}
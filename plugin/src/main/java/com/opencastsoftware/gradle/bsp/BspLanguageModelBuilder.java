@@ -41,6 +41,15 @@ public abstract class BspLanguageModelBuilder extends BspModelBuilder {
     @Nullable
     protected abstract Serializable getBuildTargetDataFor(Project project, SourceSet sourceSet);
 
+    /**
+     * Get the options, classpath and output directory used to compile this language in the given source set.
+     *
+     * @return the compiler options, or {@code null} if this language has no compiler options
+     */
+    public @Nullable BspCompilerOptions getCompilerOptionsFor(Project project, SourceSet sourceSet) {
+        return null;
+    }
+
     public @Nullable BspBuildTarget getBuildTargetFor(Project project, SourceSet sourceSet) {
         if (!isEnabledFor(sourceSet)) {
             return null;
@@ -6,6 +6,7 @@ package com.opencastsoftware.gradle.bsp;
 
 import com.opencastsoftware.gradle.bsp.model.*;
 import org.gradle.api.Project;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.ApplicationPlugin;
 import org.gradle.api.plugins.JavaLibraryPlugin;
 import org.gradle.api.plugins.jvm.JvmTestSuite;
@@ -14,8 +15,10 @@ import org.gradle.jvm.toolchain.JavaToolchainService;
 import org.gradle.testing.base.TestingExtension;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -37,6 +40,32 @@ public abstract class BspModelBuilder {
         return new DefaultBspBuildTargetId(buildTargetUri);
     }
 
+    // Output directories usually don't exist yet, but directory URIs must end with a slash
+    protected URI getDirectoryUriFor(File directory) {
+        var uri = directory.toURI();
+        return uri.getPath().endsWith("/") ? uri : URI.create(uri + "/");
+    }
+
+    protected List<URI> getClasspathFor(FileCollection classpath) {
+        return classpath.getFiles().stream()
+                .map(File::toURI)
+                .collect(Collectors.toList());
+    }
+
+    // On-demand models are only built for the targets whose URIs are listed in a project property, separated by whitespace
+    protected Set<URI> getRequestedTargets(Project rootProject, String targetsProperty) {
+        var targetsValue = rootProject.findProperty(targetsProperty);
+
+        if (targetsValue == null) {
+            return Set.of();
+        }
+
+        return Arrays.stream(targetsValue.toString().trim().split("\\s+"))
+                .filter(targetUri -> !targetUri.isEmpty())
+                .map(URI::create)
+                .collect(Collectors.toSet());
+    }
+
     protected URI getBaseDirectoryFor(Project project) {
         return project.getProjectDir().toURI();
     }
@@ -82,13 +111,14 @@ public abstract class BspModelBuilder {
 
     protected BspBuildTargetCapabilities getBuildTargetCapabilitiesFor(Project project) {
         var isApplication =  project.getPlugins().hasPlugin(ApplicationPlugin.class);
-        return new DefaultBspBuildTargetCapabilities(true, true, isApplication, false);
+        // Tests are debugged via their source set targets, so only applications can be debugged at project level
+        return new DefaultBspBuildTargetCapabilities(true, true, isApplication, isApplication);
     }
 
     protected BspBuildTargetCapabilities getBuildTargetCapabilitiesFor(Project project, SourceSet sourceSet) {
         var isApplication = SourceSet.isMain(sourceSet) && project.getPlugins().hasPlugin(ApplicationPlugin.class);
         var isTest = getTestSourceSets(project).contains(sourceSet);
-        return new DefaultBspBuildTargetCapabilities(true, isTest, isApplication, false);
+        return new DefaultBspBuildTargetCapabilities(true, isTest, isApplication, isTest || isApplication);
     }
 
     @Nullable
@@ -43,7 +43,11 @@ public class BspPlugin implements Plugin<Project> {
             builderRegistry.register(new BspCleanTasksToolingModelBuilder());
             builderRegistry.register(new BspBuildTargetSourcesToolingModelBuilder());
             builderRegistry.register(new BspBuildTargetResourcesToolingModelBuilder());
+            builderRegistry.register(new BspBuildTargetOutputPathsToolingModelBuilder());
             builderRegistry.register(new BspDependencyModulesToolingModelBuilder());
+            builderRegistry.register(new BspDependencySourcesToolingModelBuilder());
+            builderRegistry.register(new BspJvmEnvironmentsToolingModelBuilder());
+            builderRegistry.register(new BspBuildTargetCompilerOptionsToolingModelBuilder());
             Configuration bspConfig = createBspConfigConfiguration(project);
             Configuration bspServer = createBspServerConfiguration(project);
             registerBspConfigTask(project, bspExtension, bspConfig, bspServer);
@@ -4,7 +4,9 @@
  */
 package com.opencastsoftware.gradle.bsp;
 
+import com.opencastsoftware.gradle.bsp.model.BspCompilerOptions;
 import com.opencastsoftware.gradle.bsp.model.BspScalaPlatform;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspCompilerOptions;
 import com.opencastsoftware.gradle.bsp.model.DefaultBspScalaBuildTarget;
 import org.gradle.api.Project;
 import org.gradle.api.file.SourceDirectorySet;
@@ -16,6 +18,7 @@ import org.gradle.util.internal.VersionNumber;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class BspScalaLanguageModelBuilder extends BspLanguageModelBuilder {
@@ -80,4 +83,40 @@ public abstract class BspScalaLanguageModelBuilder extends BspLanguageModelBuild
                 getJvmBuildTargetFor(project)
         );
     }
+
+    @Nullable
+    @Override
+    public BspCompilerOptions getCompilerOptionsFor(Project project, SourceSet sourceSet) {
+        var scalaCompileTaskName = sourceSet.getCompileTaskName(SCALA_LANGUAGE_ID);
+        var scalaCompileTask = project.getTasks().withType(ScalaCompile.class).findByName(scalaCompileTaskName);
+
+        if (scalaCompileTask == null) {
+            return null;
+        }
+
+        var compileOptions = scalaCompileTask.getScalaCompileOptions();
+        var options = new ArrayList<String>();
+
+        if (compileOptions.isDeprecation()) {
+            options.add("-deprecation");
+        }
+
+        if (compileOptions.isUnchecked()) {
+            options.add("-unchecked");
+        }
+
+        if (compileOptions.getEncoding() != null) {
+            options.add("-encoding");
+            options.add(compileOptions.getEncoding());
+        }
+
+        if (compileOptions.getAdditionalParameters() != null) {
+            options.addAll(compileOptions.getAdditionalParameters());
+        }
+
+        return new DefaultBspCompilerOptions(
+                options,
+                getClasspathFor(scalaCompileTask.getClasspath()),
+                getDirectoryUriFor(scalaCompileTask.getDestinationDirectory().getAsFile().get()));
+    }
 }
@@ -24,6 +24,7 @@ public class BspWorkspaceToolingModelBuilder extends BspModelBuilder implements
     BspCleanTasksToolingModelBuilder cleanTasksBuilder;
     BspBuildTargetSourcesToolingModelBuilder buildTargetSourcesBuilder;
     BspBuildTargetResourcesToolingModelBuilder buildTargetResourcesBuilder;
+    BspBuildTargetOutputPathsToolingModelBuilder buildTargetOutputPathsBuilder;
     BspDependencyModulesToolingModelBuilder buildTargetDependenciesBuilder;
 
     public BspWorkspaceToolingModelBuilder() {
@@ -33,6 +34,7 @@ public class BspWorkspaceToolingModelBuilder extends BspModelBuilder implements
        this.cleanTasksBuilder = new BspCleanTasksToolingModelBuilder();
        this.buildTargetSourcesBuilder = new BspBuildTargetSourcesToolingModelBuilder();
        this.buildTargetResourcesBuilder = new BspBuildTargetResourcesToolingModelBuilder();
+       this.buildTargetOutputPathsBuilder = new BspBuildTargetOutputPathsToolingModelBuilder();
        this.buildTargetDependenciesBuilder = new BspDependencyModulesToolingModelBuilder();
     }
 
@@ -135,6 +137,7 @@ public class BspWorkspaceToolingModelBuilder extends BspModelBuilder implements
         var cleanTasksName = BspCleanTasks.class.getName();
         var buildTargetSourcesName = BspBuildTargetSources.class.getName();
         var buildTargetResourcesName = BspBuildTargetResources.class.getName();
+        var buildTargetOutputPathsName = BspBuildTargetOutputPaths.class.getName();
         var buildTargetDependenciesName = BspDependencyModules.class.getName();
 
         var compileTasks = compileTasksBuilder.buildAll(compileTasksName, rootProject);
@@ -143,6 +146,7 @@ public class BspWorkspaceToolingModelBuilder extends BspModelBuilder implements
         var cleanTasks = cleanTasksBuilder.buildAll(cleanTasksName, rootProject);
         var buildTargetSources = buildTargetSourcesBuilder.buildAll(buildTargetSourcesName, rootProject);
         var buildTargetResources = buildTargetResourcesBuilder.buildAll(buildTargetResourcesName, rootProject);
+        var buildTargetOutputPaths = buildTargetOutputPathsBuilder.buildAll(buildTargetOutputPathsName, rootProject);
         var buildTargetDependencies = buildTargetDependenciesBuilder.buildAll(buildTargetDependenciesName, rootProject);
 
         var buildTargets = new ArrayList<BspBuildTarget>();
@@ -180,6 +184,6 @@ public class BspWorkspaceToolingModelBuilder extends BspModelBuilder implements
             }
         });
 
-        return new DefaultBspWorkspace(buildTargets, compileTasks, testTasks, runTasks, cleanTasks, buildTargetSources, buildTargetResources, buildTargetDependencies);
+        return new DefaultBspWorkspace(buildTargets, compileTasks, testTasks, runTasks, cleanTasks, buildTargetSources, buildTargetResources, buildTargetOutputPaths, buildTargetDependencies);
     }
 }
@@ -3,6 +3,7 @@ plugins {
     application
     alias(libs.plugins.gradleJavaConventions)
     alias(libs.plugins.gradleBuildInfo)
+    alias(libs.plugins.jmh)
     // This isn't working yet because Gradle can't install the native-image tool for some reason
     // alias(libs.plugins.graalVmNativeImage)
 }
@@ -22,6 +23,22 @@ java {
     }
 }
 
+// Java 21 overrides, packaged as a multi-release JAR so that newer JVMs can use virtual threads
+val java21: SourceSet by sourceSets.creating {
+    java.srcDir("src/main/java21")
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+tasks.named<JavaCompile>(java21.compileJavaTaskName) {
+    javaCompiler.set(javaToolchains.compilerFor { languageVersion.set(JavaLanguageVersion.of(21)) })
+    options.release.set(21)
+}
+
+tasks.jar {
+    into("META-INF/versions/21") { from(java21.output) }
+    manifest { attributes("Multi-Release" to "true") }
+}
+
 buildInfo {
     packageName.set("com.opencastsoftware.gradle.bsp.server")
     properties.set(
@@ -47,13 +64,22 @@ dependencies {
     // Logging
     implementation(libs.bundles.slf4j)
     runtimeOnly(libs.logback)
+
+    testImplementation(libs.junitJupiter)
+    testImplementation(libs.hamcrest)
 }
 
-tasks.withType<JavaCompile> {
+tasks.compileJava {
     val compilerArgs = options.compilerArgs
     compilerArgs.add("-Aproject=${project.group}/${project.name}")
 }
 
+// Benchmarks of the request hot paths against synthetic workspaces, run with `./gradlew :gradle-bsp-server:jmh`
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    resultFormat.set("JSON")
+}
+
 application { mainClass.set("com.opencastsoftware.gradle.bsp.server.GradleBspServerLauncher") }
 
 tasks.named("run") {
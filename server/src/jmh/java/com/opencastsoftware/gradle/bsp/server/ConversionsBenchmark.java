@@ -0,0 +1,42 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.model.BspBuildTarget;
+import com.opencastsoftware.gradle.bsp.server.util.Conversions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of every build target of a synthetic workspace to its protocol representation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionsBenchmark {
+    @Param({"10", "100", "1000", "20000"})
+    int targets;
+
+    private List<BspBuildTarget> buildTargets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buildTargets = SyntheticWorkspaces.generate(Paths.get("/synthetic"), targets).buildTargets();
+    }
+
+    @Benchmark
+    public void toBspBuildTarget(Blackhole blackhole) {
+        for (var buildTarget : buildTargets) {
+            blackhole.consume(Conversions.toBspBuildTarget(buildTarget));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.DependencyModulesResult;
+import ch.epfl.scala.bsp4j.WorkspaceBuildTargetsResult;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseMessage;
+import org.eclipse.lsp4j.jsonrpc.services.ServiceEndpoints;
+import org.eclipse.lsp4j.jsonrpc.validation.ReflectiveMessageValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the cost of validating large responses, as done for every message with {@code --validate-messages ALL}.
+ * <p>
+ * The serialization benchmarks measure the cost that every response pays regardless of validation, so that the
+ * overhead of validation can be compared with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageValidationBenchmark {
+    @Param({"100", "1000", "20000"})
+    int targets;
+
+    private ResponseMessage buildTargetsResponse;
+    private ResponseMessage dependencyModulesResponse;
+    private MessageConsumer validator;
+    private MessageJsonHandler jsonHandler;
+
+    private static ResponseMessage responseOf(Object result) {
+        var response = new ResponseMessage();
+        response.setJsonrpc("2.0");
+        response.setId("1");
+        response.setResult(result);
+        return response;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var workspace = SyntheticWorkspaces.generate(Paths.get("/synthetic"), targets);
+        var snapshot = WorkspaceSnapshot.of(workspace, "benchmark");
+
+        buildTargetsResponse = responseOf(new WorkspaceBuildTargetsResult(snapshot.buildTargetsFor(Set.of("java"))));
+
+        dependencyModulesResponse = responseOf(new DependencyModulesResult(workspace.buildTargets().stream()
+                .map(target -> snapshot.dependencyModulesFor(target.id().uri()))
+                .collect(Collectors.toList())));
+
+        validator = new ReflectiveMessageValidator(message -> {});
+        jsonHandler = new MessageJsonHandler(ServiceEndpoints.getSupportedMethods(GradleBspServer.class));
+    }
+
+    @Benchmark
+    public void validateBuildTargets() {
+        validator.consume(buildTargetsResponse);
+    }
+
+    @Benchmark
+    public void validateDependencyModules() {
+        validator.consume(dependencyModulesResponse);
+    }
+
+    @Benchmark
+    public String serializeBuildTargets() {
+        return jsonHandler.serialize(buildTargetsResponse);
+    }
+
+    @Benchmark
+    public String serializeDependencyModules() {
+        return jsonHandler.serialize(dependencyModulesResponse);
+    }
+}
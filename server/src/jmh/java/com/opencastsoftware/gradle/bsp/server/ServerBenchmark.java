@@ -0,0 +1,102 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.*;
+import com.opencastsoftware.gradle.bsp.server.util.BuildInputs;
+import com.opencastsoftware.gradle.bsp.server.util.RequestExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the requests that clients send most often against synthetic workspaces of increasing size.
+ * <p>
+ * The server loads its workspace model from a cache written during setup, so no Gradle build is involved. The server
+ * has no Gradle connection, so the revalidation of the cached model that follows initialization fails and is logged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServerBenchmark {
+    @Param({"10", "100", "1000", "20000"})
+    int targets;
+
+    private Path projectRoot;
+    private GradleBspServer server;
+    private List<URI> targetUris;
+    private InverseSourcesParams inverseSourcesParams;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        projectRoot = Files.createTempDirectory("gradle-bsp-benchmark");
+
+        var workspace = SyntheticWorkspaces.generate(projectRoot, targets);
+        new WorkspaceCache(projectRoot).save(WorkspaceSnapshot.of(workspace, BuildInputs.hashOf(projectRoot, workspace)));
+
+        var daemonPools = DaemonPools.of(new DaemonPool(DaemonPools.INTERACTIVE, null, List.of(), 1), null, Map.of());
+        server = new GradleBspServer(daemonPools, RequestExecutor.create(4, 1024), projectRoot, projectRoot.resolve("init.gradle.kts"));
+
+        var clientCapabilities = new BuildClientCapabilities(List.of("java"));
+        server.buildInitialize(new InitializeBuildParams("benchmark", "1.0.0", "2.1.1", projectRoot.toUri().toString(), clientCapabilities)).join();
+        server.onBuildInitialized();
+
+        while (server.currentWorkspace() == null) {
+            Thread.sleep(10);
+        }
+
+        targetUris = IntStream.range(0, targets)
+                .mapToObj(target -> SyntheticWorkspaces.targetUriFor(projectRoot, target))
+                .collect(Collectors.toList());
+
+        // A document in the middle of the workspace, so that lookups can't finish early
+        var document = SyntheticWorkspaces.sourceDirFor(projectRoot, targets / 2).resolve("com/example/Example.java");
+        inverseSourcesParams = new InverseSourcesParams(new TextDocumentIdentifier(document.toUri().toString()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.buildShutdown().join();
+        server.onBuildExit();
+
+        try (var paths = Files.walk(projectRoot)) {
+            for (var path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public WorkspaceBuildTargetsResult workspaceBuildTargets() {
+        return server.workspaceBuildTargets().join();
+    }
+
+    @Benchmark
+    public InverseSourcesResult buildTargetInverseSources() {
+        return server.buildTargetInverseSources(inverseSourcesParams).join();
+    }
+
+    @Benchmark
+    public List<SourcesItem> getSourcesFrom() {
+        return server.getSourcesFrom(targetUris);
+    }
+
+    @Benchmark
+    public List<ResourcesItem> getResourcesFrom() {
+        return server.getResourcesFrom(targetUris);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.model.*;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Generates workspace models shaped like those of large multi-project builds, without running Gradle.
+ * <p>
+ * Each project has a {@code main} and a {@code test} build target. Test targets depend on the main target of their
+ * project, and each main target depends on the main targets of a few earlier projects. Every target has
+ * source, generated source and resource directories, and a handful of Maven dependency modules.
+ */
+public class SyntheticWorkspaces {
+    private static final int PROJECT_DEPENDENCIES = 3;
+    private static final int DEPENDENCY_MODULES = 5;
+
+    private SyntheticWorkspaces() {
+    }
+
+    // The directories don't exist, so their URIs lack the trailing slash that Gradle's project directory URIs have
+    private static URI directoryUriOf(Path directory) {
+        var uri = directory.toUri().toString();
+        return URI.create(uri.endsWith("/") ? uri : uri + "/");
+    }
+
+    public static URI targetUriFor(Path projectRoot, int target) {
+        var sourceSet = target % 2 == 0 ? "main" : "test";
+        return directoryUriOf(projectDirFor(projectRoot, target)).resolve("?sourceSet=" + sourceSet);
+    }
+
+    public static Path projectDirFor(Path projectRoot, int target) {
+        return projectRoot.resolve("project-" + (target / 2));
+    }
+
+    public static Path sourceDirFor(Path projectRoot, int target) {
+        var sourceSet = target % 2 == 0 ? "main" : "test";
+        return projectDirFor(projectRoot, target).resolve("src").resolve(sourceSet).resolve("java");
+    }
+
+    /**
+     * Generate a workspace model.
+     *
+     * @param projectRoot the root directory of the synthetic build, which doesn't need to exist
+     * @param targets     the number of build targets
+     * @return a workspace model with the given number of build targets
+     */
+    public static BspWorkspace generate(Path projectRoot, int targets) {
+        var buildTargets = new ArrayList<BspBuildTarget>(targets);
+        var compileTasks = new HashMap<URI, String>();
+        var testTasks = new HashMap<URI, Set<String>>();
+        var runTasks = new HashMap<URI, String>();
+        var cleanTasks = new HashMap<URI, String>();
+        var sources = new HashMap<URI, Set<BspSourceItem>>();
+        var resources = new HashMap<URI, Set<URI>>();
+        var outputPaths = new HashMap<URI, Set<URI>>();
+        var dependencyModules = new HashMap<URI, Set<BspDependencyModule>>();
+
+        var javaHome = projectRoot.resolve("jdk").toUri();
+
+        for (var target = 0; target < targets; target++) {
+            var isTest = target % 2 == 1;
+            var sourceSet = isTest ? "test" : "main";
+            var projectPath = ":project-" + (target / 2);
+            var projectDir = projectDirFor(projectRoot, target);
+            var buildDir = projectDir.resolve("build");
+            var targetUri = targetUriFor(projectRoot, target);
+
+            var dependencies = new ArrayList<BspBuildTargetId>();
+            if (isTest) {
+                dependencies.add(new DefaultBspBuildTargetId(targetUriFor(projectRoot, target - 1)));
+            } else {
+                for (var dependency = 1; dependency <= PROJECT_DEPENDENCIES && target - dependency * 2 >= 0; dependency++) {
+                    dependencies.add(new DefaultBspBuildTargetId(targetUriFor(projectRoot, target - dependency * 2)));
+                }
+            }
+
+            buildTargets.add(new DefaultBspBuildTarget(
+                    new DefaultBspBuildTargetId(targetUri),
+                    "project-" + (target / 2) + " [" + sourceSet + "]",
+                    directoryUriOf(projectDir),
+                    isTest ? List.of("test") : List.of("library"),
+                    List.of("java"),
+                    dependencies,
+                    new DefaultBspBuildTargetCapabilities(true, isTest, false, isTest),
+                    "jvm",
+                    new DefaultBspJvmBuildTarget(javaHome, "17")));
+
+            compileTasks.put(targetUri, projectPath + (isTest ? ":testClasses" : ":classes"));
+            cleanTasks.put(targetUri, projectPath + ":clean");
+
+            if (isTest) {
+                testTasks.put(targetUri, Set.of(projectPath + ":test"));
+            } else {
+                runTasks.put(targetUri, projectPath + ":run");
+            }
+
+            sources.put(targetUri, Set.of(
+                    new DefaultBspSourceItem(sourceDirFor(projectRoot, target).toUri(), false),
+                    new DefaultBspSourceItem(buildDir.resolve("generated/sources/annotationProcessor/java/" + sourceSet).toUri(), true)));
+
+            resources.put(targetUri, Set.of(projectDir.resolve("src").resolve(sourceSet).resolve("resources").toUri()));
+
+            outputPaths.put(targetUri, Set.of(
+                    buildDir.resolve("classes/java/" + sourceSet).toUri(),
+                    buildDir.resolve("resources/" + sourceSet).toUri()));
+
+            var modules = new HashSet<BspDependencyModule>();
+            for (var module = 0; module < DEPENDENCY_MODULES; module++) {
+                var name = "library-" + ((target + module) % 100);
+                var jar = projectRoot.resolve("caches").resolve(name + "-1.0.0.jar").toUri();
+                modules.add(new DefaultBspDependencyModule(
+                        "com.example:" + name,
+                        "1.0.0",
+                        "maven",
+                        new DefaultBspMavenDependencyModule("com.example", name, "1.0.0", Set.of(new DefaultBspMavenDependencyModuleArtifact(jar, null)), "compile")));
+            }
+            dependencyModules.put(targetUri, modules);
+        }
+
+        return new DefaultBspWorkspace(
+                buildTargets,
+                new DefaultBspCompileTasks(compileTasks),
+                new DefaultBspTestTasks(testTasks),
+                new DefaultBspRunTasks(runTasks),
+                new DefaultBspCleanTasks(cleanTasks),
+                new DefaultBspBuildTargetSources(sources),
+                new DefaultBspBuildTargetResources(resources),
+                new DefaultBspBuildTargetOutputPaths(outputPaths),
+                new DefaultBspDependencyModules(dependencyModules));
+    }
+}
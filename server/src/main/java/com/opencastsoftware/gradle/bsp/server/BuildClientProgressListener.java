@@ -13,19 +13,26 @@ import org.gradle.tooling.events.ProgressListener;
 import org.gradle.tooling.events.SuccessResult;
 import org.gradle.tooling.events.lifecycle.BuildPhaseFinishEvent;
 import org.gradle.tooling.events.lifecycle.BuildPhaseStartEvent;
+import org.gradle.tooling.events.task.TaskFinishEvent;
 import org.gradle.tooling.events.task.TaskProgressEvent;
 
 import java.util.UUID;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BuildClientProgressListener implements ProgressListener {
-    private final BuildClient client;
+    private static final String TASKS_UNIT = "tasks";
+
+    private final ClientNotifications notifications;
     private final CancelChecker buildCancelToken;
     private final CancellationTokenSource gradleCancelToken;
     private final String originId;
 
-    BuildClientProgressListener(BuildClient client, CancelChecker buildCancelToken, CancellationTokenSource gradleCancelToken, String originId) {
-        this.client = client;
+    private final AtomicLong totalTasks = new AtomicLong(0);
+    private final AtomicLong finishedTasks = new AtomicLong(0);
+
+    BuildClientProgressListener(ClientNotifications notifications, CancelChecker buildCancelToken, CancellationTokenSource gradleCancelToken, String originId) {
+        this.notifications = notifications;
         this.buildCancelToken = buildCancelToken;
         this.gradleCancelToken = gradleCancelToken;
         this.originId = originId != null ? originId : UUID.randomUUID().toString();
@@ -49,17 +56,28 @@ public class BuildClientProgressListener implements ProgressListener {
             var buildPhaseStartEvent = (BuildPhaseStartEvent) event;
             var buildPhase = buildPhaseStartEvent.getDescriptor().getBuildPhase();
             if (buildPhase.equals(BuildOperationCategory.RUN_MAIN_TASKS.name())) {
+                totalTasks.set(buildPhaseStartEvent.getDescriptor().getBuildItemsCount());
+                finishedTasks.set(0);
                 var taskStartParams = new TaskStartParams(taskId);
                 taskStartParams.setEventTime(buildPhaseStartEvent.getEventTime());
                 taskStartParams.setMessage(buildPhaseStartEvent.getDisplayName());
-                client.onBuildTaskStart(taskStartParams);
+                notifications.taskStart(taskStartParams);
             }
         } else if (event instanceof TaskProgressEvent) {
             var taskProgressEvent = (TaskProgressEvent) event;
+            var finished = taskProgressEvent instanceof TaskFinishEvent
+                    ? finishedTasks.incrementAndGet()
+                    : finishedTasks.get();
             var taskProgressParams = new TaskProgressParams(taskId);
             taskProgressParams.setEventTime(taskProgressEvent.getEventTime());
             taskProgressParams.setMessage(taskProgressEvent.getDisplayName());
-            client.onBuildTaskProgress(taskProgressParams);
+            var total = totalTasks.get();
+            if (total > 0) {
+                taskProgressParams.setTotal(total);
+                taskProgressParams.setProgress(Math.min(finished, total));
+                taskProgressParams.setUnit(TASKS_UNIT);
+            }
+            notifications.taskProgress(taskProgressParams);
         } else if (event instanceof BuildPhaseFinishEvent) {
             var buildPhaseFinishEvent = (BuildPhaseFinishEvent) event;
             var buildPhase = buildPhaseFinishEvent.getDescriptor().getBuildPhase();
@@ -69,7 +87,7 @@ public class BuildClientProgressListener implements ProgressListener {
                 var taskFinishParams = new TaskFinishParams(taskId, statusCode);
                 taskFinishParams.setEventTime(buildPhaseFinishEvent.getEventTime());
                 taskFinishParams.setMessage(buildPhaseFinishEvent.getDisplayName());
-                client.onBuildTaskFinish(taskFinishParams);
+                notifications.taskFinish(taskFinishParams);
             }
         }
     }
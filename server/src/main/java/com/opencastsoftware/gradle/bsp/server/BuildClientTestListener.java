@@ -0,0 +1,210 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.*;
+import org.gradle.tooling.Failure;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.gradle.tooling.events.ProgressEvent;
+import org.gradle.tooling.events.ProgressListener;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
+import org.gradle.tooling.events.task.TaskStartEvent;
+import org.gradle.tooling.events.test.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the progress of each test task and each test that it runs to the build client.
+ * <p>
+ * Each test task is reported as a {@code test-task} child of the test request, finishing with a
+ * {@code test-report} of its results. Each test is reported as a {@code test-start} / {@code test-finish}
+ * child of its test task.
+ */
+public class BuildClientTestListener implements ProgressListener {
+    private final ClientNotifications notifications;
+    private final Map<String, URI> targetsByTestTask;
+    private final String originId;
+
+    private final Map<String, TestTaskReport> testTaskReports = new ConcurrentHashMap<>();
+    private final Map<OperationDescriptor, TaskId> testTaskIds = new ConcurrentHashMap<>();
+
+    private static class TestTaskReport {
+        final TaskId taskId;
+        final URI targetUri;
+        final long startTime;
+        final AtomicInteger passed = new AtomicInteger(0);
+        final AtomicInteger failed = new AtomicInteger(0);
+        final AtomicInteger skipped = new AtomicInteger(0);
+
+        TestTaskReport(TaskId taskId, URI targetUri, long startTime) {
+            this.taskId = taskId;
+            this.targetUri = targetUri;
+            this.startTime = startTime;
+        }
+    }
+
+    BuildClientTestListener(ClientNotifications notifications, Map<String, URI> targetsByTestTask, String originId) {
+        this.notifications = notifications;
+        this.targetsByTestTask = targetsByTestTask;
+        this.originId = originId != null ? originId : UUID.randomUUID().toString();
+    }
+
+    private TaskId childTaskId(TaskId parent) {
+        var taskId = new TaskId(UUID.randomUUID().toString());
+        taskId.setParents(List.of(parent.getId()));
+        return taskId;
+    }
+
+    private static String testTaskPathOf(OperationDescriptor descriptor) {
+        var parent = descriptor.getParent();
+        while (parent != null && !(parent instanceof TaskOperationDescriptor)) {
+            parent = parent.getParent();
+        }
+        return parent != null ? ((TaskOperationDescriptor) parent).getTaskPath() : null;
+    }
+
+    private static boolean isTest(OperationDescriptor descriptor) {
+        return descriptor instanceof JvmTestOperationDescriptor &&
+                ((JvmTestOperationDescriptor) descriptor).getJvmTestKind() == JvmTestKind.ATOMIC;
+    }
+
+    private static String testNameOf(JvmTestOperationDescriptor descriptor) {
+        var className = descriptor.getClassName();
+        var methodName = descriptor.getMethodName();
+        return className != null && methodName != null
+                ? className + "." + methodName
+                : descriptor.getDisplayName();
+    }
+
+    private static String failureMessageOf(TestFailureResult result) {
+        return result.getFailures().stream()
+                .map(Failure::getMessage)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Override
+    public void statusChanged(ProgressEvent event) {
+        if (event instanceof TaskStartEvent) {
+            onTestTaskStart((TaskStartEvent) event);
+        } else if (event instanceof TaskFinishEvent) {
+            onTestTaskFinish((TaskFinishEvent) event);
+        } else if (event instanceof TestStartEvent && isTest(event.getDescriptor())) {
+            onTestStart((TestStartEvent) event);
+        } else if (event instanceof TestFinishEvent && isTest(event.getDescriptor())) {
+            onTestFinish((TestFinishEvent) event);
+        }
+    }
+
+    private void onTestTaskStart(TaskStartEvent event) {
+        var taskPath = event.getDescriptor().getTaskPath();
+        var targetUri = targetsByTestTask.get(taskPath);
+
+        if (targetUri == null) {
+            return;
+        }
+
+        var taskId = childTaskId(new TaskId(originId));
+        testTaskReports.put(taskPath, new TestTaskReport(taskId, targetUri, event.getEventTime()));
+
+        var targetId = new BuildTargetIdentifier(targetUri.toString());
+        var taskStartParams = new TaskStartParams(taskId);
+        taskStartParams.setOriginId(originId);
+        taskStartParams.setEventTime(event.getEventTime());
+        taskStartParams.setMessage(event.getDisplayName());
+        taskStartParams.setDataKind(TaskStartDataKind.TEST_TASK);
+        taskStartParams.setData(new TestTask(targetId));
+        notifications.taskStart(taskStartParams);
+    }
+
+    private void onTestTaskFinish(TaskFinishEvent event) {
+        var report = testTaskReports.remove(event.getDescriptor().getTaskPath());
+
+        if (report == null) {
+            return;
+        }
+
+        var testReport = new TestReport(
+                new BuildTargetIdentifier(report.targetUri.toString()),
+                report.passed.get(),
+                report.failed.get(),
+                0,
+                0,
+                report.skipped.get());
+        testReport.setOriginId(originId);
+        testReport.setTime(event.getEventTime() - report.startTime);
+
+        var statusCode = report.failed.get() > 0 ? StatusCode.ERROR : StatusCode.OK;
+        var taskFinishParams = new TaskFinishParams(report.taskId, statusCode);
+        taskFinishParams.setOriginId(originId);
+        taskFinishParams.setEventTime(event.getEventTime());
+        taskFinishParams.setMessage(event.getDisplayName());
+        taskFinishParams.setDataKind(TaskFinishDataKind.TEST_REPORT);
+        taskFinishParams.setData(testReport);
+        notifications.taskFinish(taskFinishParams);
+    }
+
+    private void onTestStart(TestStartEvent event) {
+        var descriptor = (JvmTestOperationDescriptor) event.getDescriptor();
+        var report = testTaskReports.get(testTaskPathOf(descriptor));
+
+        if (report == null) {
+            return;
+        }
+
+        var taskId = childTaskId(report.taskId);
+        testTaskIds.put(descriptor, taskId);
+
+        var taskStartParams = new TaskStartParams(taskId);
+        taskStartParams.setOriginId(originId);
+        taskStartParams.setEventTime(event.getEventTime());
+        taskStartParams.setMessage(event.getDisplayName());
+        taskStartParams.setDataKind(TaskStartDataKind.TEST_START);
+        taskStartParams.setData(new TestStart(testNameOf(descriptor)));
+        notifications.taskStart(taskStartParams);
+    }
+
+    private void onTestFinish(TestFinishEvent event) {
+        var descriptor = (JvmTestOperationDescriptor) event.getDescriptor();
+        var report = testTaskReports.get(testTaskPathOf(descriptor));
+        var taskId = testTaskIds.remove(descriptor);
+
+        if (report == null || taskId == null) {
+            return;
+        }
+
+        var result = event.getResult();
+        TestFinish testFinish;
+
+        if (result instanceof TestFailureResult) {
+            report.failed.incrementAndGet();
+            testFinish = new TestFinish(testNameOf(descriptor), TestStatus.FAILED);
+            testFinish.setMessage(failureMessageOf((TestFailureResult) result));
+        } else if (result instanceof TestSkippedResult) {
+            report.skipped.incrementAndGet();
+            testFinish = new TestFinish(testNameOf(descriptor), TestStatus.SKIPPED);
+        } else {
+            report.passed.incrementAndGet();
+            testFinish = new TestFinish(testNameOf(descriptor), TestStatus.PASSED);
+        }
+
+        var statusCode = result instanceof TestFailureResult ? StatusCode.ERROR : StatusCode.OK;
+        var taskFinishParams = new TaskFinishParams(taskId, statusCode);
+        taskFinishParams.setOriginId(originId);
+        taskFinishParams.setEventTime(event.getEventTime());
+        taskFinishParams.setMessage(event.getDisplayName());
+        taskFinishParams.setDataKind(TaskFinishDataKind.TEST_FINISH);
+        taskFinishParams.setData(testFinish);
+        notifications.taskFinish(taskFinishParams);
+    }
+}
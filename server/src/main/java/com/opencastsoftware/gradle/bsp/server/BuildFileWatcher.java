@@ -0,0 +1,144 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.server.util.BuildInputs;
+import com.opencastsoftware.gradle.bsp.server.util.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the build inputs of a Gradle build, notifying a listener once a burst of changes has settled.
+ * <p>
+ * Each change restarts the debounce delay, so that e.g. a branch checkout which touches many build scripts
+ * results in a single notification.
+ */
+public class BuildFileWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(BuildFileWatcher.class);
+
+    private final Path projectRoot;
+    private final Duration debounceDelay;
+    private final Runnable listener;
+    private final WatchService watchService;
+    private final Map<Path, WatchKey> watchKeys = new HashMap<>();
+    private final Thread watchThread;
+    private final ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> pendingNotification;
+    private boolean closed = false;
+
+    public BuildFileWatcher(Path projectRoot, Duration debounceDelay, Runnable listener) throws IOException {
+        this.projectRoot = projectRoot.toAbsolutePath().normalize();
+        this.debounceDelay = debounceDelay;
+        this.listener = listener;
+        this.watchService = projectRoot.getFileSystem().newWatchService();
+        this.watchThread = DaemonThreadFactory.create(logger, "gradle-buildserver-watcher-%d").newThread(this::pollEvents);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(DaemonThreadFactory.create(logger, "gradle-buildserver-debounce-%d"));
+    }
+
+    /**
+     * Update the set of watched directories, registering new directories and cancelling
+     * the registration of directories which are no longer relevant.
+     * <p>
+     * Does nothing once the watcher has been closed, as the build files may be reloaded while the server shuts down.
+     *
+     * @param directories the directories to watch
+     */
+    public synchronized void watch(Set<Path> directories) {
+        if (closed) {
+            return;
+        }
+
+        watchKeys.entrySet().removeIf(entry -> {
+            var removed = !directories.contains(entry.getKey());
+            if (removed) {
+                entry.getValue().cancel();
+            }
+            return removed;
+        });
+
+        for (var directory : directories) {
+            if (!watchKeys.containsKey(directory)) {
+                try {
+                    var watchKey = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                    watchKeys.put(directory, watchKey);
+                } catch (IOException e) {
+                    logger.warn("Unable to watch directory {}", directory, e);
+                }
+            }
+        }
+    }
+
+    public void start() {
+        watchThread.start();
+    }
+
+    private synchronized void scheduleNotification() {
+        // Events which were already being processed when the watcher was closed are dropped
+        if (closed) {
+            return;
+        }
+
+        if (pendingNotification != null) {
+            pendingNotification.cancel(false);
+        }
+
+        pendingNotification = scheduler.schedule(listener, debounceDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void pollEvents() {
+        while (true) {
+            WatchKey watchKey;
+
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            var directory = (Path) watchKey.watchable();
+            var buildInputChanged = false;
+
+            for (var event : watchKey.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    buildInputChanged = true;
+                } else {
+                    var changedPath = directory.resolve((Path) event.context());
+                    if (BuildInputs.isBuildInput(projectRoot, changedPath)) {
+                        logger.debug("Build input {} changed", changedPath);
+                        buildInputChanged = true;
+                    }
+                }
+            }
+
+            watchKey.reset();
+
+            if (buildInputChanged) {
+                scheduleNotification();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        scheduler.shutdownNow();
+        watchService.close();
+    }
+}
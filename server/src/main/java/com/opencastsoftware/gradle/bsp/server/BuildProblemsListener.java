@@ -0,0 +1,114 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.Diagnostic;
+import ch.epfl.scala.bsp4j.DiagnosticSeverity;
+import ch.epfl.scala.bsp4j.Position;
+import ch.epfl.scala.bsp4j.Range;
+import org.gradle.tooling.events.ProgressEvent;
+import org.gradle.tooling.events.ProgressListener;
+import org.gradle.tooling.events.problems.*;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Collects the problems reported by a Gradle build as diagnostics for each source file.
+ * <p>
+ * Problems without a file location, e.g. deprecation warnings about the build itself,
+ * can't be attached to a document and are ignored.
+ */
+public class BuildProblemsListener implements ProgressListener {
+    private final Map<Path, List<Diagnostic>> diagnostics = new LinkedHashMap<>();
+
+    @Override
+    public void statusChanged(ProgressEvent event) {
+        if (event instanceof SingleProblemEvent) {
+            var problem = ((SingleProblemEvent) event).getProblem();
+
+            var locations = Stream.concat(
+                    problem.getOriginLocations().stream(),
+                    problem.getContextualLocations().stream());
+
+            // A problem may report several kinds of location for the same file
+            var locationsByFile = new LinkedHashMap<Path, FileLocation>();
+
+            locations.filter(FileLocation.class::isInstance).map(FileLocation.class::cast).forEach(location -> {
+                var path = Path.of(location.getPath()).toAbsolutePath().normalize();
+                locationsByFile.merge(path, location, BuildProblemsListener::preciseLocation);
+            });
+
+            synchronized (this) {
+                locationsByFile.forEach((path, location) -> {
+                    diagnostics.computeIfAbsent(path, p -> new ArrayList<>()).add(toDiagnostic(problem, location));
+                });
+            }
+        }
+    }
+
+    private static FileLocation preciseLocation(FileLocation left, FileLocation right) {
+        return left instanceof LineInFileLocation ? left : right;
+    }
+
+    static Diagnostic toDiagnostic(Problem problem, FileLocation location) {
+        var diagnostic = new Diagnostic(rangeOf(location), messageOf(problem));
+        diagnostic.setSeverity(severityOf(problem.getDefinition().getSeverity()));
+
+        var problemGroup = problem.getDefinition().getId().getGroup();
+        if (problemGroup != null) {
+            diagnostic.setSource(problemGroup.getDisplayName());
+        }
+
+        return diagnostic;
+    }
+
+    static Range rangeOf(FileLocation location) {
+        if (location instanceof LineInFileLocation) {
+            // Gradle reports 1-based lines and columns, where zero means unknown
+            var lineLocation = (LineInFileLocation) location;
+            var line = Math.max(0, lineLocation.getLine() - 1);
+            var column = Math.max(0, lineLocation.getColumn() - 1);
+            var length = Math.max(0, lineLocation.getLength());
+            return new Range(new Position(line, column), new Position(line, column + length));
+        } else {
+            return new Range(new Position(0, 0), new Position(0, 0));
+        }
+    }
+
+    static String messageOf(Problem problem) {
+        var contextualLabel = problem.getContextualLabel();
+        if (contextualLabel != null && contextualLabel.getContextualLabel() != null) {
+            return contextualLabel.getContextualLabel();
+        }
+
+        var details = problem.getDetails();
+        if (details != null && details.getDetails() != null) {
+            return details.getDetails();
+        }
+
+        return problem.getDefinition().getId().getDisplayName();
+    }
+
+    static DiagnosticSeverity severityOf(Severity severity) {
+        if (Severity.ERROR.equals(severity)) {
+            return DiagnosticSeverity.ERROR;
+        } else if (Severity.WARNING.equals(severity)) {
+            return DiagnosticSeverity.WARNING;
+        } else {
+            return DiagnosticSeverity.INFORMATION;
+        }
+    }
+
+    /**
+     * @return the diagnostics reported so far for each source file
+     */
+    public synchronized Map<Path, List<Diagnostic>> getDiagnostics() {
+        var copy = new LinkedHashMap<Path, List<Diagnostic>>();
+        diagnostics.forEach((path, fileDiagnostics) -> copy.put(path, List.copyOf(fileDiagnostics)));
+        return copy;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.gradle.tooling.CancellationTokenSource;
+import org.gradle.tooling.GradleConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Orders the builds requested by the client before they are handed to Gradle.
+ * <p>
+ * Queued builds are started in priority order as soon as the daemon pool that they are routed to has capacity,
+ * so that interactive compiles are not held up behind test runs.
+ * For kinds of build that can supersede one another, a request for a build which is already queued joins the
+ * queued build, and a request for a build which is already running cancels the stale build.
+ * <p>
+ * The state of the queue can be observed via JMX by registering the scheduler as an MXBean named {@value #OBJECT_NAME}.
+ */
+public class BuildScheduler implements BuildSchedulerMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(BuildScheduler.class);
+
+    static final String OBJECT_NAME = "com.opencastsoftware.gradle.bsp:type=BuildScheduler";
+
+    /**
+     * The kinds of build that can be scheduled, in priority order.
+     */
+    public enum Kind {
+        COMPILE(true),
+        CLEAN(true),
+        RUN(false),
+        TEST(true);
+
+        private final boolean supersedes;
+
+        Kind(boolean supersedes) {
+            this.supersedes = supersedes;
+        }
+
+        /**
+         * @return whether a newer request for an identical build replaces an older one
+         */
+        public boolean supersedes() {
+            return supersedes;
+        }
+    }
+
+    /**
+     * A scheduled build, as seen by the function which runs it.
+     */
+    public static class Build {
+        private final List<String> originIds = new ArrayList<>();
+        private final List<CancelChecker> cancelTokens = new ArrayList<>();
+        private final CancellationTokenSource gradleCanceller;
+        private final DaemonPool daemonPool;
+
+        Build(Supplier<CancellationTokenSource> cancellerFn, DaemonPool daemonPool) {
+            this.gradleCanceller = cancellerFn.get();
+            this.daemonPool = daemonPool;
+        }
+
+        synchronized void addRequest(List<String> originIds, CancelChecker cancelToken) {
+            this.originIds.addAll(originIds);
+            this.cancelTokens.add(cancelToken);
+        }
+
+        /**
+         * @return the origin IDs of every request that this build will satisfy
+         */
+        public synchronized List<String> originIds() {
+            return new ArrayList<>(originIds);
+        }
+
+        /**
+         * @return the daemon pool that this build must be run in
+         */
+        public DaemonPool daemonPool() {
+            return daemonPool;
+        }
+
+        /**
+         * @return the source of the Gradle cancellation token that this build must be run with
+         */
+        public CancellationTokenSource gradleCanceller() {
+            return gradleCanceller;
+        }
+
+        private static boolean isCancelled(CancelChecker cancelToken) {
+            try {
+                cancelToken.checkCanceled();
+                return false;
+            } catch (CancellationException e) {
+                return true;
+            }
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelTokens.stream().allMatch(Build::isCancelled);
+        }
+
+        /**
+         * A cancel checker which reports cancellation only once every request for this build has been cancelled.
+         */
+        public CancelChecker cancelToken() {
+            return () -> {
+                if (isCancelled()) {
+                    throw new CancellationException();
+                }
+            };
+        }
+    }
+
+    private static class Job<T> {
+        private final Kind kind;
+        private final String key;
+        private final long sequence;
+        private final long enqueuedAt = System.nanoTime();
+        private final Build build;
+        private final Function<Build, CompletableFuture<T>> runFn;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Job(Kind kind, String key, long sequence, Build build, Function<Build, CompletableFuture<T>> runFn) {
+            this.kind = kind;
+            this.key = key;
+            this.sequence = sequence;
+            this.build = build;
+            this.runFn = runFn;
+        }
+
+        boolean isSameBuild(Kind kind, String key) {
+            return this.kind == kind && this.key.equals(key);
+        }
+    }
+
+    private final Function<Kind, DaemonPool> routes;
+    private final Executor executor;
+    private final Supplier<CancellationTokenSource> cancellerFn;
+
+    private final NavigableSet<Job<?>> queue = new TreeSet<>(
+            Comparator.<Job<?>, Kind>comparing(job -> job.kind).thenComparingLong(job -> job.sequence));
+    private final List<Job<?>> running = new ArrayList<>();
+    private long nextSequence = 0;
+
+    private final AtomicLong startedBuilds = new AtomicLong(0);
+    private final AtomicLong totalWaitNanos = new AtomicLong(0);
+    private final AtomicLong maxWaitNanos = new AtomicLong(0);
+    private final AtomicLong joinedRequests = new AtomicLong(0);
+    private final AtomicLong supersededBuilds = new AtomicLong(0);
+
+    public BuildScheduler(Function<Kind, DaemonPool> routes, Executor executor) {
+        this(routes, executor, GradleConnector::newCancellationTokenSource);
+    }
+
+    BuildScheduler(Function<Kind, DaemonPool> routes, Executor executor, Supplier<CancellationTokenSource> cancellerFn) {
+        this.routes = routes;
+        this.executor = executor;
+        this.cancellerFn = cancellerFn;
+    }
+
+    /**
+     * Schedule a build.
+     *
+     * @param kind        the kind of build, which determines its priority
+     * @param key         a description of the work done by the build, used to identify identical builds
+     * @param originIds   the origin IDs of the requests that the build satisfies
+     * @param cancelToken the cancel checker of the requests that the build satisfies
+     * @param runFn       a function which starts the build and returns its eventual result
+     * @return the result of the build, which may be shared with other requests for an identical build
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CompletableFuture<T> submit(Kind kind, String key, List<String> originIds, CancelChecker cancelToken, Function<Build, CompletableFuture<T>> runFn) {
+        if (kind.supersedes()) {
+            for (var queuedJob : queue) {
+                if (queuedJob.isSameBuild(kind, key)) {
+                    logger.info("Joining queued {} build {}", kind, key);
+                    queuedJob.build.addRequest(originIds, cancelToken);
+                    joinedRequests.incrementAndGet();
+                    // Builds of the same kind always produce the same type of result
+                    return (CompletableFuture<T>) queuedJob.result;
+                }
+            }
+
+            for (var runningJob : running) {
+                if (runningJob.isSameBuild(kind, key)) {
+                    logger.info("Cancelling superseded {} build {}", kind, key);
+                    runningJob.build.gradleCanceller().cancel();
+                    supersededBuilds.incrementAndGet();
+                }
+            }
+        }
+
+        var build = new Build(cancellerFn, routes.apply(kind));
+        build.addRequest(originIds, cancelToken);
+
+        var job = new Job<>(kind, key, nextSequence++, build, runFn);
+        queue.add(job);
+
+        dispatch();
+
+        return job.result;
+    }
+
+    private synchronized void dispatch() {
+        var queuedJobs = queue.iterator();
+
+        while (queuedJobs.hasNext()) {
+            var job = queuedJobs.next();
+
+            if (job.build.isCancelled()) {
+                queuedJobs.remove();
+                job.result.completeExceptionally(new CancellationException());
+                continue;
+            }
+
+            if (!job.build.daemonPool().tryAcquire()) {
+                continue;
+            }
+
+            queuedJobs.remove();
+
+            var waitNanos = System.nanoTime() - job.enqueuedAt;
+            startedBuilds.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+            logger.debug("Starting {} build {} after waiting {}ms", job.kind, job.key, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+
+            running.add(job);
+            executor.execute(() -> start(job));
+        }
+    }
+
+    private <T> void start(Job<T> job) {
+        CompletableFuture<T> jobResult;
+
+        try {
+            jobResult = job.runFn.apply(job.build);
+        } catch (Throwable t) {
+            jobResult = CompletableFuture.failedFuture(t);
+        }
+
+        jobResult.whenComplete((result, error) -> {
+            synchronized (this) {
+                running.remove(job);
+                job.build.daemonPool().release();
+            }
+
+            if (error != null) {
+                job.result.completeExceptionally(error);
+            } else {
+                job.result.complete(result);
+            }
+
+            dispatch();
+        });
+    }
+
+    /**
+     * @return the number of builds waiting to start
+     */
+    @Override
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of builds currently running
+     */
+    @Override
+    public synchronized int getRunningBuilds() {
+        return running.size();
+    }
+
+    /**
+     * @return the number of builds started since the server started
+     */
+    @Override
+    public long getStartedBuilds() {
+        return startedBuilds.get();
+    }
+
+    /**
+     * @return the mean time that started builds spent in the queue, in milliseconds
+     */
+    @Override
+    public double getMeanWaitMillis() {
+        var started = startedBuilds.get();
+        return started == 0 ? 0.0 : (double) TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get()) / started / 1000.0;
+    }
+
+    /**
+     * @return the longest time that a started build spent in the queue, in milliseconds
+     */
+    @Override
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * @return the number of requests which joined an identical queued build
+     */
+    @Override
+    public long getJoinedRequests() {
+        return joinedRequests.get();
+    }
+
+    /**
+     * @return the number of running builds which were cancelled because an identical build was requested
+     */
+    @Override
+    public long getSupersededBuilds() {
+        return supersededBuilds.get();
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+/**
+ * The queue of the build scheduler, as exposed via JMX so that build contention can be observed while the server runs.
+ */
+public interface BuildSchedulerMXBean {
+    int getQueueDepth();
+
+    int getRunningBuilds();
+
+    long getStartedBuilds();
+
+    double getMeanWaitMillis();
+
+    long getMaxWaitMillis();
+
+    long getJoinedRequests();
+
+    long getSupersededBuilds();
+}
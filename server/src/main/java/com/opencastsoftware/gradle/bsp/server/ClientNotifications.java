@@ -0,0 +1,161 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.BuildClient;
+import ch.epfl.scala.bsp4j.LogMessageParams;
+import ch.epfl.scala.bsp4j.PublishDiagnosticsParams;
+import ch.epfl.scala.bsp4j.TaskFinishParams;
+import ch.epfl.scala.bsp4j.TaskProgressParams;
+import ch.epfl.scala.bsp4j.TaskStartParams;
+import com.opencastsoftware.gradle.bsp.server.util.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An asynchronous queue of task, log and diagnostic notifications bound for the build client.
+ * <p>
+ * Notifications are sent from a single thread, so that a slow client never blocks the Gradle progress thread
+ * and notifications are delivered in the order they were queued.
+ * <p>
+ * Task start and finish notifications, log messages and diagnostics are always delivered. Progress notifications are
+ * coalesced per task, so that only the latest progress of each task is sent, at most once per {@code progressInterval}.
+ * Any progress still pending when a task finishes is dropped, as the finish notification supersedes it.
+ */
+public class ClientNotifications implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ClientNotifications.class);
+
+    private final BuildClient client;
+    private final long progressIntervalNanos;
+    private final ScheduledExecutorService sender;
+
+    // Guarded by this
+    private final Map<String, TaskProgressParams> pendingProgress = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private long lastFlushNanos;
+
+    private final AtomicLong sentProgress = new AtomicLong(0);
+    private final AtomicLong droppedProgress = new AtomicLong(0);
+
+    public ClientNotifications(BuildClient client, Duration progressInterval) {
+        this.client = client;
+        this.progressIntervalNanos = progressInterval.toNanos();
+        this.lastFlushNanos = System.nanoTime() - progressIntervalNanos;
+        this.sender = Executors.newSingleThreadScheduledExecutor(DaemonThreadFactory.create(logger, "gradle-buildserver-notifications-%d"));
+    }
+
+    private void send(String description, Runnable notification) {
+        try {
+            sender.execute(() -> {
+                try {
+                    notification.run();
+                } catch (Throwable t) {
+                    logger.error("Unable to send {} notification to client", description, t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Dropping {} notification after shutdown", description);
+        }
+    }
+
+    public void taskStart(TaskStartParams params) {
+        send("task start", () -> client.onBuildTaskStart(params));
+    }
+
+    public synchronized void taskProgress(TaskProgressParams params) {
+        var previous = pendingProgress.put(params.getTaskId().getId(), params);
+
+        if (previous != null) {
+            droppedProgress.incrementAndGet();
+        }
+
+        if (!flushScheduled) {
+            var delayNanos = Math.max(0, lastFlushNanos + progressIntervalNanos - System.nanoTime());
+            try {
+                sender.schedule(this::flushProgress, delayNanos, TimeUnit.NANOSECONDS);
+                flushScheduled = true;
+            } catch (RejectedExecutionException e) {
+                pendingProgress.clear();
+            }
+        }
+    }
+
+    public void taskFinish(TaskFinishParams params) {
+        synchronized (this) {
+            if (pendingProgress.remove(params.getTaskId().getId()) != null) {
+                droppedProgress.incrementAndGet();
+            }
+        }
+
+        send("task finish", () -> client.onBuildTaskFinish(params));
+    }
+
+    public void logMessage(LogMessageParams params) {
+        send("log message", () -> client.onBuildLogMessage(params));
+    }
+
+    public void publishDiagnostics(PublishDiagnosticsParams params) {
+        send("diagnostics", () -> client.onBuildPublishDiagnostics(params));
+    }
+
+    private void flushProgress() {
+        TaskProgressParams[] progress;
+
+        synchronized (this) {
+            progress = pendingProgress.values().toArray(TaskProgressParams[]::new);
+            pendingProgress.clear();
+            flushScheduled = false;
+            lastFlushNanos = System.nanoTime();
+        }
+
+        for (var params : progress) {
+            try {
+                client.onBuildTaskProgress(params);
+                sentProgress.incrementAndGet();
+            } catch (Throwable t) {
+                logger.error("Unable to send task progress notification to client", t);
+            }
+        }
+    }
+
+    /**
+     * @return the number of progress notifications sent to the client
+     */
+    public long getSentProgress() {
+        return sentProgress.get();
+    }
+
+    /**
+     * @return the number of progress notifications which were superseded before they could be sent
+     */
+    public long getDroppedProgress() {
+        return droppedProgress.get();
+    }
+
+    /**
+     * Send any notifications which are already queued, then stop accepting notifications.
+     */
+    @Override
+    public void close() {
+        sender.shutdown();
+        try {
+            if (!sender.awaitTermination(5, TimeUnit.SECONDS)) {
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.StatusCode;
+import com.opencastsoftware.gradle.bsp.server.util.DaemonThreadFactory;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Merges compile requests which arrive within a short window of each other into a single Gradle build.
+ * <p>
+ * Each merged build is handed to the {@link BuildScheduler} as soon as its window closes, even if an earlier
+ * build is still running, so that the scheduler can join it to an identical queued build or use it to supersede
+ * an identical running build. The status of each merged build is reported back to every request that it contains.
+ */
+public class CompileCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(CompileCoalescer.class);
+
+    private final Duration window;
+    private final Function<Batch, CompletableFuture<StatusCode>> runBatch;
+    private final ScheduledExecutorService scheduler;
+
+    private final List<Request> pending = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private boolean shutdown = false;
+
+    private static class Request {
+        private final String originId;
+        private final List<String> tasks;
+        private final CancelChecker cancelToken;
+        private final CompletableFuture<StatusCode> result = new CompletableFuture<>();
+
+        Request(String originId, List<String> tasks, CancelChecker cancelToken) {
+            this.originId = originId;
+            this.tasks = tasks;
+            this.cancelToken = cancelToken;
+        }
+
+        boolean isCancelled() {
+            try {
+                cancelToken.checkCanceled();
+                return false;
+            } catch (CancellationException e) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * A set of compile requests to be run as a single build.
+     */
+    public static class Batch {
+        private final List<Request> requests;
+        private final List<String> tasks;
+
+        private Batch(List<Request> requests) {
+            this.requests = requests;
+            this.tasks = requests.stream()
+                    .flatMap(request -> request.tasks.stream())
+                    .distinct()
+                    .collect(Collectors.toUnmodifiableList());
+        }
+
+        /**
+         * @return the union of the tasks of each request, in the order they were requested
+         */
+        public List<String> tasks() {
+            return tasks;
+        }
+
+        /**
+         * @return the origin IDs of each request, which may contain {@code null} for requests without one
+         */
+        public List<String> originIds() {
+            return requests.stream().map(request -> request.originId).collect(Collectors.toList());
+        }
+
+        /**
+         * A cancel checker which reports cancellation only once every request in the batch has been cancelled.
+         */
+        public CancelChecker cancelToken() {
+            return () -> {
+                if (requests.stream().allMatch(Request::isCancelled)) {
+                    throw new CancellationException();
+                }
+            };
+        }
+    }
+
+    public CompileCoalescer(Duration window, Function<Batch, CompletableFuture<StatusCode>> runBatch) {
+        this.window = window;
+        this.runBatch = runBatch;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(DaemonThreadFactory.create(logger, "gradle-buildserver-compile-%d"));
+    }
+
+    /**
+     * Submit a compile request, to be merged with any others that arrive within the coalescing window.
+     *
+     * @param originId    the origin ID of the request, if any
+     * @param tasks       the compile tasks required by the request
+     * @param cancelToken the cancel checker of the request
+     * @return the status of the build that the request was merged into, or {@link StatusCode#CANCELLED} if the
+     * coalescer was shut down before the request was handed to a build
+     */
+    public CompletableFuture<StatusCode> submit(String originId, List<String> tasks, CancelChecker cancelToken) {
+        var request = new Request(originId, tasks, cancelToken);
+
+        synchronized (this) {
+            if (shutdown) {
+                request.result.complete(StatusCode.CANCELLED);
+                return request.result;
+            }
+
+            pending.add(request);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduler.schedule(this::flush, window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return request.result;
+    }
+
+    private void flush() {
+        List<Request> requests;
+
+        synchronized (this) {
+            requests = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        var batch = new Batch(requests);
+
+        if (requests.size() > 1) {
+            logger.info("Merged {} compile requests into a single build", requests.size());
+        }
+
+        CompletableFuture<StatusCode> batchResult;
+
+        try {
+            batchResult = runBatch.apply(batch);
+        } catch (Throwable t) {
+            batchResult = CompletableFuture.failedFuture(t);
+        }
+
+        batchResult.whenComplete((statusCode, error) -> {
+            for (var request : requests) {
+                if (error != null) {
+                    request.result.completeExceptionally(error);
+                } else {
+                    request.result.complete(statusCode);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stop merging compile requests, reporting any requests which have not yet been handed to a build as cancelled.
+     */
+    public void shutdown() {
+        List<Request> requests;
+
+        synchronized (this) {
+            requests = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+            shutdown = true;
+        }
+
+        requests.forEach(request -> request.result.complete(StatusCode.CANCELLED));
+
+        scheduler.shutdownNow();
+    }
+}
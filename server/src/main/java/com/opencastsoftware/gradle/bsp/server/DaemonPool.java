@@ -0,0 +1,141 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.gradle.tooling.LongRunningOperation;
+import org.gradle.tooling.ProjectConnection;
+
+import javax.management.ObjectName;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Gradle connection together with the number of builds that may run on it at once.
+ * <p>
+ * Gradle starts an additional daemon whenever a build is requested while the compatible daemons are busy,
+ * so the capacity of a pool is also the number of daemons that it will keep busy. Builds in a pool with
+ * its own JVM arguments always run on daemons which are separate from those of the other pools.
+ * <p>
+ * The usage of a pool can be observed via JMX by registering it as an MXBean named
+ * {@code com.opencastsoftware.gradle.bsp:type=DaemonPool,name=<name>}.
+ */
+public class DaemonPool implements DaemonPoolMXBean {
+    static final String OBJECT_NAME_PREFIX = "com.opencastsoftware.gradle.bsp:type=DaemonPool,name=";
+
+    private final String name;
+    private final ProjectConnection connection;
+    private final List<String> jvmArguments;
+    private final int capacity;
+
+    private final long createdAt = System.nanoTime();
+    private int activeBuilds = 0;
+    private long busySince = 0;
+    private long busyNanos = 0;
+    private final AtomicLong completedBuilds = new AtomicLong(0);
+
+    public DaemonPool(String name, ProjectConnection connection, List<String> jvmArguments, int capacity) {
+        this.name = name;
+        this.connection = connection;
+        this.jvmArguments = jvmArguments;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public ProjectConnection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Apply the JVM arguments of this pool to a Gradle operation, if any were configured.
+     * <p>
+     * If none were configured the operation keeps using the JVM arguments from {@code gradle.properties}.
+     */
+    public <T extends LongRunningOperation> T configure(T operation) {
+        if (!jvmArguments.isEmpty()) {
+            operation.setJvmArguments(jvmArguments);
+        }
+        return operation;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (activeBuilds >= capacity) {
+            return false;
+        }
+
+        if (activeBuilds == 0) {
+            busySince = System.nanoTime();
+        }
+
+        activeBuilds++;
+
+        return true;
+    }
+
+    synchronized void release() {
+        activeBuilds--;
+
+        if (activeBuilds == 0) {
+            busyNanos += System.nanoTime() - busySince;
+        }
+
+        completedBuilds.incrementAndGet();
+    }
+
+    /**
+     * @return the number of builds currently running in this pool
+     */
+    @Override
+    public synchronized int getActiveBuilds() {
+        return activeBuilds;
+    }
+
+    /**
+     * @return the number of builds which have finished running in this pool
+     */
+    @Override
+    public long getCompletedBuilds() {
+        return completedBuilds.get();
+    }
+
+    /**
+     * @return the fraction of the time since this pool was created during which at least one build was running
+     */
+    @Override
+    public synchronized double getBusyRatio() {
+        var now = System.nanoTime();
+        var busy = activeBuilds > 0 ? busyNanos + (now - busySince) : busyNanos;
+        var elapsed = now - createdAt;
+        return elapsed == 0 ? 0.0 : (double) busy / elapsed;
+    }
+
+    /**
+     * @return the fraction of this pool's capacity which is currently in use
+     */
+    @Override
+    public synchronized double getUtilization() {
+        return (double) activeBuilds / capacity;
+    }
+
+    String getObjectName() {
+        return OBJECT_NAME_PREFIX + ObjectName.quote(name);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DaemonPool[name=%s, capacity=%d, jvmArguments=%s, busyFor=%ds]",
+                name, capacity, jvmArguments, TimeUnit.NANOSECONDS.toSeconds(busyNanos));
+    }
+}
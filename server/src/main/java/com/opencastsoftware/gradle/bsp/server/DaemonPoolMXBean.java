@@ -0,0 +1,22 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+/**
+ * The usage of a daemon pool, as exposed via JMX so that the pool sizes can be tuned against real workloads.
+ */
+public interface DaemonPoolMXBean {
+    String getName();
+
+    int getCapacity();
+
+    int getActiveBuilds();
+
+    long getCompletedBuilds();
+
+    double getBusyRatio();
+
+    double getUtilization();
+}
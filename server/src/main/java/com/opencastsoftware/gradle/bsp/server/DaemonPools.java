@@ -0,0 +1,84 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import java.util.*;
+
+/**
+ * The daemon pools of the server, and the rules which decide which pool each kind of build runs in.
+ * <p>
+ * The {@value #INTERACTIVE} pool is always present and is also used for fetching models.
+ * By default compiles and cleans are routed to it, while tests and runs are routed to the {@value #TEST}
+ * pool if one is configured.
+ */
+public class DaemonPools implements AutoCloseable {
+    public static final String INTERACTIVE = "interactive";
+    public static final String TEST = "test";
+
+    private final Map<String, DaemonPool> pools;
+    private final Map<BuildScheduler.Kind, DaemonPool> routes;
+
+    private DaemonPools(Map<String, DaemonPool> pools, Map<BuildScheduler.Kind, DaemonPool> routes) {
+        this.pools = pools;
+        this.routes = routes;
+    }
+
+    public DaemonPool interactive() {
+        return pools.get(INTERACTIVE);
+    }
+
+    public DaemonPool poolFor(BuildScheduler.Kind kind) {
+        return routes.get(kind);
+    }
+
+    public Collection<DaemonPool> getPools() {
+        return pools.values();
+    }
+
+    private static Map<BuildScheduler.Kind, String> defaultRoutes(boolean hasTestPool) {
+        var routes = new EnumMap<BuildScheduler.Kind, String>(BuildScheduler.Kind.class);
+        routes.put(BuildScheduler.Kind.COMPILE, INTERACTIVE);
+        routes.put(BuildScheduler.Kind.CLEAN, INTERACTIVE);
+        routes.put(BuildScheduler.Kind.TEST, hasTestPool ? TEST : INTERACTIVE);
+        routes.put(BuildScheduler.Kind.RUN, hasTestPool ? TEST : INTERACTIVE);
+        return routes;
+    }
+
+    /**
+     * Create the daemon pools.
+     *
+     * @param interactive    the interactive pool
+     * @param test           the test pool, or {@code null} if tests should share the interactive pool
+     * @param routeOverrides rules overriding the default pool for some kinds of build
+     * @return the daemon pools
+     * @throws IllegalArgumentException if a rule refers to a pool which does not exist
+     */
+    public static DaemonPools of(DaemonPool interactive, DaemonPool test, Map<BuildScheduler.Kind, String> routeOverrides) {
+        var pools = new LinkedHashMap<String, DaemonPool>();
+        pools.put(INTERACTIVE, interactive);
+        if (test != null) {
+            pools.put(TEST, test);
+        }
+
+        var routeNames = defaultRoutes(test != null);
+        routeNames.putAll(routeOverrides);
+
+        var routes = new EnumMap<BuildScheduler.Kind, DaemonPool>(BuildScheduler.Kind.class);
+        routeNames.forEach((kind, poolName) -> {
+            var pool = pools.get(poolName);
+            if (pool == null) {
+                throw new IllegalArgumentException("Unknown daemon pool '" + poolName + "' for " + kind + " builds");
+            }
+            routes.put(kind, pool);
+        });
+
+        return new DaemonPools(pools, routes);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(pool -> pool.getConnection().close());
+    }
+}
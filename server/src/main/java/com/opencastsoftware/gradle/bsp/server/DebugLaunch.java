@@ -0,0 +1,165 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.DebugSessionAddress;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Starts a JVM process for a debug session, suspended until a debugger attaches to its JDWP agent.
+ * <p>
+ * The agent listens on an ephemeral port of the loopback interface, and the address of the session is known once
+ * the agent reports the port that it is listening on.
+ * <p>
+ * Tests are launched directly with the JUnit Platform console launcher or the JUnit 4 runner when either is on
+ * the test runtime classpath. Otherwise they are run by their Gradle test task, which is given the JDWP agent
+ * via the {@value #GRADLE_DEBUG_AGENT_PROPERTY} project property, so that any test framework supported by Gradle
+ * can be debugged.
+ */
+public class DebugLaunch {
+    private static final Logger logger = LoggerFactory.getLogger(DebugLaunch.class);
+
+    static final String JDWP_AGENT_OPTION = "-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=127.0.0.1:0";
+
+    // Read by the init script, which adds the agent to every Test task
+    static final String GRADLE_DEBUG_AGENT_PROPERTY = "bsp.debug.agent";
+
+    private static final Pattern JDWP_LISTENING = Pattern.compile("^Listening for transport dt_socket at address: (?:.*:)?(\\d+)$");
+
+    /**
+     * The console test runners which can run selected tests from a test runtime classpath.
+     */
+    public enum TestRunner {
+        JUNIT_PLATFORM("org.junit.platform.console.ConsoleLauncher"),
+        JUNIT_4("org.junit.runner.JUnitCore");
+
+        private final String mainClass;
+
+        TestRunner(String mainClass) {
+            this.mainClass = mainClass;
+        }
+
+        public String getMainClass() {
+            return mainClass;
+        }
+
+        /**
+         * Get the arguments which run the selected tests.
+         * <p>
+         * The JUnit 4 runner can only select whole test classes, so it runs every test of a class with selected methods.
+         *
+         * @param selectedTests the test class names and selected methods
+         * @return the arguments of the test runner
+         */
+        public List<String> getArgumentsFor(SortedMap<String, SortedSet<String>> selectedTests) {
+            var arguments = new ArrayList<String>();
+
+            if (this == JUNIT_PLATFORM) {
+                arguments.add("--disable-banner");
+
+                if (selectedTests.isEmpty()) {
+                    arguments.add("--scan-classpath");
+                }
+
+                selectedTests.forEach((className, methods) -> {
+                    if (methods.isEmpty()) {
+                        arguments.add("--select-class=" + className);
+                    } else {
+                        methods.forEach(method -> arguments.add("--select-method=" + className + "#" + method));
+                    }
+                });
+            } else {
+                arguments.addAll(selectedTests.keySet());
+            }
+
+            return arguments;
+        }
+
+        /**
+         * Find the test runner available on a test runtime classpath.
+         *
+         * @param classpath the test runtime classpath
+         * @return the test runner, preferring the JUnit Platform if it is available
+         */
+        public static Optional<TestRunner> findOn(List<String> classpath) {
+            var urls = new ArrayList<URL>();
+
+            for (var entry : classpath) {
+                try {
+                    urls.add(Paths.get(entry).toUri().toURL());
+                } catch (MalformedURLException e) {
+                    logger.warn("Ignoring malformed classpath entry {}", entry, e);
+                }
+            }
+
+            try (var classLoader = new URLClassLoader(urls.toArray(URL[]::new), null)) {
+                return Arrays.stream(values())
+                        .filter(runner -> classLoader.findResource(runner.getMainClass().replace('.', '/') + ".class") != null)
+                        .findFirst();
+            } catch (IOException e) {
+                logger.warn("Unable to search the test runtime classpath for a test runner", e);
+                return Optional.empty();
+            }
+        }
+    }
+
+    private DebugLaunch() {
+    }
+
+    /**
+     * Watch the standard output of a debug session for the address that its JDWP agent is listening on.
+     *
+     * @param address the address of the debug session, which is completed once the agent is listening
+     * @param stdout  the consumer of every other line written to standard output
+     * @return a consumer of the lines written to standard output
+     */
+    static Consumer<String> listenForAddress(CompletableFuture<DebugSessionAddress> address, Consumer<String> stdout) {
+        return line -> {
+            var matcher = JDWP_LISTENING.matcher(line);
+            if (!address.isDone() && matcher.matches()) {
+                address.complete(new DebugSessionAddress("tcp://127.0.0.1:" + matcher.group(1)));
+            } else {
+                stdout.accept(line);
+            }
+        };
+    }
+
+    /**
+     * Start the process of a debug session.
+     *
+     * @param launch      the process to debug, which must include the {@link #JDWP_AGENT_OPTION}
+     * @param stdout      the consumer of lines written to standard output
+     * @param stderr      the consumer of lines written to standard error
+     * @param cancelToken the cancellation token of the debug session, which destroys the process when cancelled
+     * @param executor    the executor used to wait for the process and read its output
+     * @return the address of the debug session, once its JDWP agent is listening
+     */
+    public static CompletableFuture<DebugSessionAddress> start(JvmLaunch launch, Consumer<String> stdout, Consumer<String> stderr, CancelChecker cancelToken, Executor executor) {
+        var address = new CompletableFuture<DebugSessionAddress>();
+
+        launch.start(listenForAddress(address, stdout), stderr, cancelToken, executor).whenComplete((exitCode, error) -> {
+            if (error != null) {
+                address.completeExceptionally(error);
+            } else {
+                address.completeExceptionally(new IllegalStateException("Debug session process exited with exit code " + exitCode + " before its debug agent started"));
+            }
+        });
+
+        return address;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Resolves the sources artifacts of dependency modules on demand, caching the results by module coordinates.
+ * <p>
+ * Modules are only resolved the first time that they are requested, as described by {@link FetchCache}.
+ * The sources found are persisted under the {@code .bsp} directory of the project, so later sessions
+ * only resolve modules that they have never seen before.
+ * <p>
+ * Published module versions don't change, so cache entries remain valid for as long as their sources jars exist.
+ */
+public class DependencySourcesCache {
+    private static final Logger logger = LoggerFactory.getLogger(DependencySourcesCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final ObjectInputFilter CACHE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=8;java.lang.*;java.util.*;java.net.URI;!*");
+
+    private final Path cacheFile;
+    private final FetchCache<String, Set<URI>> sources;
+    private final AtomicBoolean unsaved = new AtomicBoolean(false);
+
+    private boolean loaded = false;
+
+    /**
+     * @param projectRoot the root directory of the project
+     * @param resolver    the function which resolves the sources jars of a set of {@code group:name:version} coordinates
+     */
+    public DependencySourcesCache(Path projectRoot, Function<Set<String>, CompletableFuture<Map<String, Set<URI>>>> resolver) {
+        this.cacheFile = projectRoot.resolve(".bsp").resolve("gradle-bsp").resolve("dependency-sources.bin");
+        this.sources = new FetchCache<>(modules -> {
+            logger.info("Resolving sources of {} dependency modules", modules.size());
+            return resolver.apply(modules).thenApply(resolved -> {
+                unsaved.set(true);
+                return resolved;
+            });
+        });
+    }
+
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+
+        try (var input = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(cacheFile))))) {
+            input.setObjectInputFilter(CACHE_FILTER);
+
+            if (input.readInt() != FORMAT_VERSION) {
+                return;
+            }
+
+            @SuppressWarnings("unchecked")
+            var entries = (Map<String, List<URI>>) input.readObject();
+
+            var loadedModules = 0;
+
+            for (var entry : entries.entrySet()) {
+                // The Gradle caches may have been cleaned up since the entry was written
+                var allExist = entry.getValue().stream().allMatch(jar -> Files.exists(Path.of(jar)));
+                if (allExist) {
+                    sources.putIfAbsent(entry.getKey(), Set.copyOf(entry.getValue()));
+                    loadedModules++;
+                }
+            }
+
+            logger.info("Loaded sources of {} dependency modules from cache {}", loadedModules, cacheFile);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            logger.warn("Unable to read dependency sources cache {}", cacheFile, e);
+        }
+    }
+
+    private synchronized void save() {
+        var entries = new HashMap<String, List<URI>>();
+
+        // Modules without sources are not persisted, in case their sources were unavailable due to a transient error
+        sources.fetchedValues().forEach((coordinates, sourcesJars) -> {
+            if (!sourcesJars.isEmpty()) {
+                entries.put(coordinates, new ArrayList<>(sourcesJars));
+            }
+        });
+
+        try {
+            Files.createDirectories(cacheFile.getParent());
+
+            var tempFile = Files.createTempFile(cacheFile.getParent(), "dependency-sources", ".tmp");
+
+            try {
+                try (var output = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile))))) {
+                    output.writeInt(FORMAT_VERSION);
+                    output.writeObject(entries);
+                }
+
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write dependency sources cache {}", cacheFile, e);
+        }
+    }
+
+    /**
+     * Get the sources jars of the given dependency modules, resolving any modules which have not been resolved before.
+     *
+     * @param modules the {@code group:name:version} coordinates of the modules
+     * @return the sources jars of each module, which are empty for modules without sources
+     */
+    public CompletableFuture<Map<String, Set<URI>>> sourcesFor(Collection<String> modules) {
+        ensureLoaded();
+
+        return sources.get(modules).thenApply(resolved -> {
+            if (unsaved.compareAndSet(true, false)) {
+                save();
+            }
+
+            var moduleSources = new LinkedHashMap<String, Set<URI>>();
+            modules.forEach(coordinates -> moduleSources.put(coordinates, resolved.getOrDefault(coordinates, Set.of())));
+            return moduleSources;
+        });
+    }
+}
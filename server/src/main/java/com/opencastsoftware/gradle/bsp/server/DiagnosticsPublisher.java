@@ -0,0 +1,104 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import ch.epfl.scala.bsp4j.Diagnostic;
+import ch.epfl.scala.bsp4j.PublishDiagnosticsParams;
+import ch.epfl.scala.bsp4j.TextDocumentIdentifier;
+import com.opencastsoftware.gradle.bsp.server.util.SourcePathIndex;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the diagnostics of each build to the client, sending only the documents whose diagnostics
+ * have changed since the previous build of their build target.
+ * <p>
+ * Every notification uses {@code reset} semantics, replacing all of the diagnostics the client holds
+ * for that document and build target. A document whose diagnostics have been fixed receives an empty
+ * list of diagnostics.
+ */
+public class DiagnosticsPublisher {
+    private final Consumer<PublishDiagnosticsParams> publish;
+
+    // Guarded by this
+    private final Map<URI, Map<URI, List<Diagnostic>>> published = new HashMap<>();
+
+    public DiagnosticsPublisher(Consumer<PublishDiagnosticsParams> publish) {
+        this.publish = publish;
+    }
+
+    static Optional<URI> targetFor(SourcePathIndex sourcePathIndex, Path document, Set<URI> builtTargets) {
+        var owningTargets = new TreeSet<>(sourcePathIndex.targetsContaining(document));
+
+        // Prefer the targets that were requested, but fall back to any target which owns the document
+        return owningTargets.stream()
+                .filter(builtTargets::contains)
+                .findFirst()
+                .or(() -> owningTargets.stream().findFirst());
+    }
+
+    /**
+     * Publish the diagnostics produced by a build.
+     *
+     * @param sourcePathIndex the index used to find the build target of each document
+     * @param builtTargets    the build targets which were built, whose previous diagnostics are replaced
+     * @param diagnostics     the diagnostics reported by the build for each document
+     * @param originId        the origin ID of the request which started the build, or {@code null}
+     */
+    public synchronized void publish(SourcePathIndex sourcePathIndex, Set<URI> builtTargets, Map<Path, List<Diagnostic>> diagnostics, String originId) {
+        var current = new HashMap<URI, Map<URI, List<Diagnostic>>>();
+
+        builtTargets.forEach(targetUri -> current.put(targetUri, new LinkedHashMap<>()));
+
+        diagnostics.forEach((document, documentDiagnostics) -> {
+            targetFor(sourcePathIndex, document, builtTargets).ifPresent(targetUri -> {
+                current.computeIfAbsent(targetUri, t -> new LinkedHashMap<>())
+                        .computeIfAbsent(document.toUri(), d -> new ArrayList<>())
+                        .addAll(documentDiagnostics);
+            });
+        });
+
+        current.forEach((targetUri, currentDocuments) -> {
+            var previousDocuments = published.getOrDefault(targetUri, Map.of());
+
+            currentDocuments.forEach((documentUri, documentDiagnostics) -> {
+                if (!documentDiagnostics.equals(previousDocuments.get(documentUri))) {
+                    publish.accept(paramsFor(targetUri, documentUri, documentDiagnostics, originId));
+                }
+            });
+
+            if (!builtTargets.contains(targetUri)) {
+                // This target wasn't built, so its other documents may still have problems
+                previousDocuments.forEach(currentDocuments::putIfAbsent);
+            }
+
+            previousDocuments.keySet().forEach(documentUri -> {
+                if (!currentDocuments.containsKey(documentUri)) {
+                    publish.accept(paramsFor(targetUri, documentUri, List.of(), originId));
+                }
+            });
+
+            if (currentDocuments.isEmpty()) {
+                published.remove(targetUri);
+            } else {
+                published.put(targetUri, currentDocuments);
+            }
+        });
+    }
+
+    private static PublishDiagnosticsParams paramsFor(URI targetUri, URI documentUri, List<Diagnostic> diagnostics, String originId) {
+        var params = new PublishDiagnosticsParams(
+                new TextDocumentIdentifier(documentUri.toString()),
+                new BuildTargetIdentifier(targetUri.toString()),
+                List.copyOf(diagnostics),
+                Boolean.TRUE);
+        params.setOriginId(originId);
+        return params;
+    }
+}
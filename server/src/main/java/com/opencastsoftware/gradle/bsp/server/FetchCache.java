@@ -0,0 +1,103 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Fetches values on demand in batches, caching the value of each key once it has been fetched.
+ * <p>
+ * Only the keys which have not been requested before are fetched, and requests which arrive while a key
+ * is being fetched share the same result. A failed fetch is not cached, so later requests can try again.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value fetched for each key
+ */
+public class FetchCache<K, V> {
+    private final Function<Set<K>, CompletableFuture<Map<K, V>>> fetcher;
+    private final ConcurrentMap<K, CompletableFuture<Optional<V>>> values = new ConcurrentHashMap<>();
+
+    /**
+     * @param fetcher the function which fetches the values of a set of keys, omitting any keys without a value
+     */
+    public FetchCache(Function<Set<K>, CompletableFuture<Map<K, V>>> fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Get the values of the given keys, fetching any keys which have not been fetched before.
+     *
+     * @param keys the keys
+     * @return the value of each key that has one, in the order the keys were given
+     */
+    public CompletableFuture<Map<K, V>> get(Collection<K> keys) {
+        var unfetchedKeys = new LinkedHashSet<K>();
+        var fetch = new CompletableFuture<Map<K, V>>();
+        var keyValues = new LinkedHashMap<K, CompletableFuture<Optional<V>>>();
+
+        for (var key : keys) {
+            keyValues.put(key, values.computeIfAbsent(key, k -> {
+                unfetchedKeys.add(k);
+                return fetch.thenApply(fetched -> Optional.ofNullable(fetched.get(k)));
+            }));
+        }
+
+        if (!unfetchedKeys.isEmpty()) {
+            CompletableFuture<Map<K, V>> fetched;
+            try {
+                fetched = fetcher.apply(Set.copyOf(unfetchedKeys));
+            } catch (Throwable t) {
+                fetched = CompletableFuture.failedFuture(t);
+            }
+
+            fetched.whenComplete((result, error) -> {
+                if (error != null) {
+                    // Allow the keys to be fetched again by later requests
+                    unfetchedKeys.forEach(key -> values.remove(key, keyValues.get(key)));
+                    fetch.completeExceptionally(error);
+                } else {
+                    fetch.complete(result);
+                }
+            });
+        }
+
+        return CompletableFuture
+                .allOf(keyValues.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    var result = new LinkedHashMap<K, V>();
+                    keyValues.forEach((key, value) -> value.join().ifPresent(v -> result.put(key, v)));
+                    return result;
+                });
+    }
+
+    /**
+     * Add a value which is already known, unless the key has been fetched or is being fetched.
+     *
+     * @param key   the key
+     * @param value the value of the key
+     */
+    public void putIfAbsent(K key, V value) {
+        values.putIfAbsent(key, CompletableFuture.completedFuture(Optional.of(value)));
+    }
+
+    /**
+     * @return the values which have been fetched successfully so far, excluding any keys without a value
+     */
+    public Map<K, V> fetchedValues() {
+        var result = new HashMap<K, V>();
+
+        values.forEach((key, value) -> {
+            if (value.isDone() && !value.isCompletedExceptionally()) {
+                value.join().ifPresent(v -> result.put(key, v));
+            }
+        });
+
+        return result;
+    }
+}
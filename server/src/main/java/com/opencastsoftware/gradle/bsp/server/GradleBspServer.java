@@ -5,78 +5,169 @@
 package com.opencastsoftware.gradle.bsp.server;
 
 import ch.epfl.scala.bsp4j.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.opencastsoftware.gradle.bsp.model.*;
+import com.opencastsoftware.gradle.bsp.server.util.BuildInputs;
 import com.opencastsoftware.gradle.bsp.server.util.Conversions;
 import com.opencastsoftware.gradle.bsp.server.util.DaemonThreadFactory;
 import com.opencastsoftware.gradle.bsp.server.util.GradleResults;
+import com.opencastsoftware.gradle.bsp.server.util.LineOutputStream;
+import com.opencastsoftware.gradle.bsp.server.util.MBeanRegistry;
+import com.opencastsoftware.gradle.bsp.server.util.ModelCopies;
+import com.opencastsoftware.gradle.bsp.server.util.RequestExecutor;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
-import org.eclipse.lsp4j.jsonrpc.CompletableFutures;
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
 import org.eclipse.lsp4j.jsonrpc.messages.ResponseError;
 import org.eclipse.lsp4j.jsonrpc.messages.ResponseErrorCode;
 import org.gradle.tooling.ConfigurableLauncher;
-import org.gradle.tooling.GradleConnector;
 import org.gradle.tooling.ProjectConnection;
 import org.gradle.tooling.events.OperationType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine.ExitCode;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class GradleBspServer implements BuildServer {
+public class GradleBspServer implements BuildServer, JvmBuildServer, JavaBuildServer, ScalaBuildServer, GradleBuildServer {
     private static final Logger logger = LoggerFactory.getLogger(GradleBspServer.class);
 
+    private static final Duration BUILD_FILE_DEBOUNCE_DELAY = Duration.ofMillis(500);
+    private static final Duration COMPILE_COALESCING_WINDOW = Duration.ofMillis(50);
+    private static final Duration PROGRESS_NOTIFICATION_INTERVAL = Duration.ofMillis(100);
+
+    private static final String DEPENDENCY_SOURCES_MODULES_PROPERTY = "bsp.dependencySources.modules";
+    private static final String JVM_ENVIRONMENTS_KIND_PROPERTY = "bsp.jvmEnvironments.kind";
+    private static final String JVM_ENVIRONMENTS_TARGETS_PROPERTY = "bsp.jvmEnvironments.targets";
+
+    private static final String COMPILER_OPTIONS_LANGUAGE_PROPERTY = "bsp.compilerOptions.language";
+    private static final String COMPILER_OPTIONS_TARGETS_PROPERTY = "bsp.compilerOptions.targets";
+
+    private static final String JVM_RUN_ENVIRONMENT = "run";
+    private static final String JVM_TEST_ENVIRONMENT = "test";
+
+    private static final String SCALA_MAIN_CLASS_DATA_KIND = "scala-main-class";
+
+    private static final Gson gson = new Gson();
+
+    private static final List<String> SUPPORTED_LANGUAGE_IDS = List.of("java", "groovy", "scala", "antlr");
+
     private int exitCode = ExitCode.OK;
     private BuildClient client;
+    private ClientNotifications notifications;
+    private DiagnosticsPublisher diagnosticsPublisher;
 
+    private final Path projectRoot;
     private final Path initScriptPath;
+    private final RunMode runMode;
 
     private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
-    private final AtomicReference<ProjectConnection> gradleConnection;
-    private final AtomicReference<BspWorkspace> workspace;
+    private final DaemonPools daemonPools;
+    private final AtomicReference<WorkspaceSnapshot> workspace = new AtomicReference<>();
+    private final WorkspaceCache workspaceCache;
+    private final DependencySourcesCache dependencySourcesCache;
+    private final AtomicBoolean revalidateOnStartup = new AtomicBoolean(false);
     private final AtomicReference<BuildClientCapabilities> clientCapabilities = new AtomicReference<>();
+    private final AtomicReference<BuildFileWatcher> buildFileWatcher = new AtomicReference<>();
+
+    private CompletableFuture<Void> backgroundReload = CompletableFuture.completedFuture(null);
+
+    private final RequestExecutor executor;
+    private final ThreadFactory backgroundThreadFactory = DaemonThreadFactory.create(logger, "gradle-buildserver-background-%d");
+    private final ExecutorService backgroundExecutor = Executors.newCachedThreadPool(backgroundThreadFactory);
+    private final CompileCoalescer compileCoalescer = new CompileCoalescer(COMPILE_COALESCING_WINDOW, this::runCompileBatch);
+    private final BuildScheduler buildScheduler;
+    private final RequestMetrics requestMetrics = new RequestMetrics(ManagementFactory.getPlatformMBeanServer());
+    private final MBeanRegistry mbeanRegistry = new MBeanRegistry(ManagementFactory.getPlatformMBeanServer());
+
+    private volatile CompletableFuture<WorkspaceSnapshot> workspaceLoaded;
+
+    /**
+     * How {@code buildTarget/run} requests launch the code of a build target.
+     */
+    public enum RunMode {
+        /**
+         * Run the {@code run} task of the build target with Gradle.
+         */
+        GRADLE,
+        /**
+         * Compile the build target with Gradle, then launch its main class directly from its runtime classpath.
+         */
+        DIRECT
+    }
 
-    private final ThreadFactory threadFactory = DaemonThreadFactory.create(logger, "gradle-buildserver-%d");
-    private final ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+    public GradleBspServer(DaemonPools daemonPools, RequestExecutor executor, Path projectRoot, Path initScriptPath) {
+        this(daemonPools, executor, projectRoot, initScriptPath, RunMode.GRADLE);
+    }
 
-    public GradleBspServer(ProjectConnection gradleConnection, Path initScriptPath) {
+    public GradleBspServer(DaemonPools daemonPools, RequestExecutor executor, Path projectRoot, Path initScriptPath, RunMode runMode) {
+        this.projectRoot = projectRoot;
         this.initScriptPath = initScriptPath;
-        this.gradleConnection = new AtomicReference<>(gradleConnection);
-        this.workspace = new AtomicReference<>(getCustomModel(gradleConnection, BspWorkspace.class));
-        logger.info("Retrieved workspace model {}", this.workspace.get());
+        this.runMode = runMode;
+        this.daemonPools = daemonPools;
+        this.executor = executor;
+        this.buildScheduler = new BuildScheduler(daemonPools::poolFor, backgroundExecutor);
+        this.mbeanRegistry.register(RequestExecutor.OBJECT_NAME, executor);
+        this.mbeanRegistry.register(BuildScheduler.OBJECT_NAME, buildScheduler);
+        daemonPools.getPools().forEach(pool -> mbeanRegistry.register(pool.getObjectName(), pool));
+        this.workspaceCache = new WorkspaceCache(projectRoot);
+        this.dependencySourcesCache = new DependencySourcesCache(projectRoot, this::fetchDependencySources);
+        this.workspaceLoaded = loadInitialWorkspace();
     }
 
-    private <T> T getCustomModel(ProjectConnection connection, Class<T> customModelClass) {
-        return connection
-                .model(customModelClass)
-                .setStandardOutput(System.err)
-                .setStandardError(System.err)
-                .addArguments("--init-script", initScriptPath.toString())
-                .get();
+    CompletableFuture<WorkspaceSnapshot> loadInitialWorkspace() {
+        return CompletableFuture.supplyAsync(workspaceCache::load, backgroundExecutor).thenCompose(cachedWorkspace -> {
+            if (cachedWorkspace.isPresent()) {
+                logger.info("Loaded workspace model from cache {}", workspaceCache.getCacheFile());
+                revalidateOnStartup.set(true);
+                return CompletableFuture.completedFuture(cachedWorkspace.get());
+            } else {
+                return getCustomModelFuture(daemonPools.interactive(), BspWorkspace.class).thenApply(fetchedWorkspace -> {
+                    var workspace = ModelCopies.copyOf(fetchedWorkspace);
+                    var snapshot = WorkspaceSnapshot.of(workspace, BuildInputs.hashOf(projectRoot, workspace));
+                    workspaceCache.save(snapshot);
+                    logger.info("Retrieved workspace model {}", workspace);
+                    return snapshot;
+                });
+            }
+        }).whenComplete((snapshot, error) -> {
+            if (error != null) {
+                logger.error("Unable to load workspace model", error);
+            } else {
+                workspace.set(snapshot);
+            }
+        });
     }
 
-    private <T> CompletableFuture<T> getCustomModelFuture(ProjectConnection connection, Class<T> customModelClass) {
-        var modelBuilder = connection
-                .model(customModelClass)
+    private <T> CompletableFuture<T> getCustomModelFuture(DaemonPool daemonPool, Class<T> customModelClass, String... arguments) {
+        var modelBuilder = daemonPool.configure(daemonPool.getConnection().model(customModelClass))
                 .setStandardOutput(System.err)
                 .setStandardError(System.err)
-                .addArguments("--init-script", initScriptPath.toString());
+                .addArguments("--init-script", initScriptPath.toString())
+                .addArguments(arguments);
 
         return GradleResults.handle(modelBuilder::get);
     }
 
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
     public boolean isInitialized() {
         return initialized.get();
     }
@@ -85,10 +176,18 @@ public class GradleBspServer implements BuildServer {
         return shutdown.get();
     }
 
-    public ExecutorService getExecutor() {
+    public RequestExecutor getExecutor() {
         return executor;
     }
 
+    public DaemonPools getDaemonPools() {
+        return daemonPools;
+    }
+
+    public BuildScheduler getBuildScheduler() {
+        return buildScheduler;
+    }
+
     public BuildClient getClient() {
         return client;
     }
@@ -97,9 +196,88 @@ public class GradleBspServer implements BuildServer {
         return exitCode;
     }
 
-    public <A> CompletableFuture<A> ifInitialized(Function<CancelChecker, A> action) {
+    /**
+     * Run the action once the given precondition has completed successfully.
+     * <p>
+     * Cancelling the returned future prevents the action from running if it has not started yet,
+     * and is visible to a running action via its {@link CancelChecker}. It never cancels the precondition,
+     * which may be shared between many requests.
+     */
+    <A> CompletableFuture<A> after(CompletableFuture<?> precondition, Function<CancelChecker, A> action) {
+        return afterAsync(precondition, cancelToken -> CompletableFuture.completedFuture(action.apply(cancelToken)));
+    }
+
+    /**
+     * Run the asynchronous action once the given precondition has completed successfully.
+     * <p>
+     * As with {@link #after(CompletableFuture, Function)}, cancelling the returned future is visible to the action
+     * via its {@link CancelChecker}. It also cancels the future returned by the action, which must therefore
+     * not be shared with other requests.
+     */
+    <A> CompletableFuture<A> afterAsync(CompletableFuture<?> precondition, Function<CancelChecker, CompletableFuture<A>> action) {
+        var result = new CompletableFuture<A>();
+
+        CancelChecker cancelToken = () -> {
+            if (result.isCancelled()) {
+                throw new CancellationException();
+            }
+        };
+
+        precondition.whenComplete((value, error) -> {
+            if (result.isDone()) {
+                return;
+            }
+
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+
+            try {
+                executor.execute(() -> {
+                    if (result.isDone()) {
+                        return;
+                    }
+
+                    try {
+                        var actionResult = action.apply(cancelToken);
+
+                        actionResult.whenComplete((actionValue, actionError) -> {
+                            if (actionError instanceof CompletionException && actionError.getCause() != null) {
+                                result.completeExceptionally(actionError.getCause());
+                            } else if (actionError != null) {
+                                result.completeExceptionally(actionError);
+                            } else {
+                                result.complete(actionValue);
+                            }
+                        });
+
+                        result.whenComplete((resultValue, resultError) -> {
+                            if (result.isCancelled()) {
+                                actionResult.cancel(true);
+                            }
+                        });
+                    } catch (Throwable t) {
+                        result.completeExceptionally(t);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.warn("Rejecting request as {} requests are already queued", executor.getQueuedRequests());
+                var responseError = new ResponseError(ResponseErrorCode.RequestFailed, "Server is overloaded, please retry the request later", null);
+                result.completeExceptionally(new ResponseErrorException(responseError));
+            }
+        });
+
+        return result;
+    }
+
+    <A> CompletableFuture<A> ifInitialized(CompletableFuture<?> precondition, Function<CancelChecker, A> action) {
+        return ifInitializedAsync(precondition, cancelToken -> CompletableFuture.completedFuture(action.apply(cancelToken)));
+    }
+
+    <A> CompletableFuture<A> ifInitializedAsync(CompletableFuture<?> precondition, Function<CancelChecker, CompletableFuture<A>> action) {
         if (isInitialized() && !isShutdown()) {
-            return CompletableFutures.computeAsync(executor, action);
+            return afterAsync(precondition, action);
         } else {
             var error = isShutdown()
                     ? new ResponseError(ResponseErrorCode.InvalidRequest, "Server has been shut down", null)
@@ -110,8 +288,12 @@ public class GradleBspServer implements BuildServer {
         }
     }
 
+    public <A> CompletableFuture<A> ifInitialized(Function<CancelChecker, A> action) {
+        return ifInitialized(workspaceLoaded, action);
+    }
+
     public <A> CompletableFuture<A> ifInitializedAsync(Function<CancelChecker, CompletableFuture<A>> action) {
-        return ifInitialized(action).thenCompose(x -> x);
+        return ifInitializedAsync(workspaceLoaded, action);
     }
 
     public void ifShouldNotify(Runnable action) {
@@ -121,23 +303,46 @@ public class GradleBspServer implements BuildServer {
     }
 
     List<String> getLanguageIds(Predicate<? super BspBuildTarget> targetFilter) {
-        return workspace.get().buildTargets().stream()
+        return workspace.get().workspace().buildTargets().stream()
                 .filter(targetFilter)
                 .flatMap(target -> target.languageIds().stream())
                 .distinct().collect(Collectors.toList());
     }
 
+    List<String> getClientSupportedLanguageIds() {
+        var clientLanguageIds = clientCapabilities.get().getLanguageIds();
+        return SUPPORTED_LANGUAGE_IDS.stream()
+                .filter(clientLanguageIds::contains)
+                .collect(Collectors.toList());
+    }
+
     BuildServerCapabilities getCapabilities() {
         var serverCapabilities = new BuildServerCapabilities();
 
-        // This is a very loose approximation - targets can contain multiple languages
-        // and e.g. ANTLR can't be run even if it's contained in a Java target that can
-        var compilableLanguageIds = getLanguageIds(t -> t.capabilities().canCompile());
-        var testableLanguageIds = getLanguageIds(t -> t.capabilities().canTest());
-        var runnableLanguageIds = getLanguageIds(t -> t.capabilities().canRun());
+        List<String> compilableLanguageIds;
+        List<String> testableLanguageIds;
+        List<String> runnableLanguageIds;
+        List<String> debuggableLanguageIds;
+
+        if (workspace.get() != null) {
+            // This is a very loose approximation - targets can contain multiple languages
+            // and e.g. ANTLR can't be run even if it's contained in a Java target that can
+            compilableLanguageIds = getLanguageIds(t -> t.capabilities().canCompile());
+            testableLanguageIds = getLanguageIds(t -> t.capabilities().canTest());
+            runnableLanguageIds = getLanguageIds(t -> t.capabilities().canRun());
+            debuggableLanguageIds = getLanguageIds(t -> t.capabilities().canDebug());
+        } else {
+            // The workspace model is still loading, so we can only offer the languages that we could support
+            compilableLanguageIds = getClientSupportedLanguageIds();
+            testableLanguageIds = compilableLanguageIds;
+            runnableLanguageIds = compilableLanguageIds;
+            debuggableLanguageIds = compilableLanguageIds;
+        }
+
         var compileCapabilities = new CompileProvider(compilableLanguageIds);
         var testCapabilities = new TestProvider(testableLanguageIds);
         var runCapabilities = new RunProvider(runnableLanguageIds);
+        var debugCapabilities = new DebugProvider(debuggableLanguageIds);
 
         serverCapabilities.setCanReload(true);
 
@@ -153,16 +358,26 @@ public class GradleBspServer implements BuildServer {
             serverCapabilities.setRunProvider(runCapabilities);
         }
 
+        if (!debuggableLanguageIds.isEmpty()) {
+            serverCapabilities.setDebugProvider(debugCapabilities);
+        }
+
         serverCapabilities.setResourcesProvider(Boolean.TRUE);
+        serverCapabilities.setOutputPathsProvider(Boolean.TRUE);
         serverCapabilities.setInverseSourcesProvider(Boolean.TRUE);
         serverCapabilities.setDependencyModulesProvider(Boolean.TRUE);
+        serverCapabilities.setDependencySourcesProvider(Boolean.TRUE);
+        serverCapabilities.setBuildTargetChangedProvider(Boolean.TRUE);
+        serverCapabilities.setJvmRunEnvironmentProvider(Boolean.TRUE);
+        serverCapabilities.setJvmTestEnvironmentProvider(Boolean.TRUE);
+        serverCapabilities.setJvmCompileClasspathProvider(Boolean.TRUE);
 
         return serverCapabilities;
     }
 
     @Override
     public CompletableFuture<InitializeBuildResult> buildInitialize(InitializeBuildParams params) {
-        return CompletableFutures.computeAsync(executor, cancelToken -> {
+        return after(CompletableFuture.completedFuture(null), cancelToken -> {
             cancelToken.checkCanceled();
 
             clientCapabilities.set(params.getCapabilities());
@@ -178,11 +393,40 @@ public class GradleBspServer implements BuildServer {
     @Override
     public void onBuildInitialized() {
         initialized.set(true);
+
+        workspaceLoaded.whenComplete((snapshot, error) -> {
+            // Watch the build files even if the model couldn't be loaded, so that fixing the build triggers a reload
+            watchBuildFiles();
+
+            if (revalidateOnStartup.get()) {
+                // The cached model may be affected by things that we don't hash, like init scripts or the environment
+                inBackground("Revalidating cached workspace model", () -> {
+                    var inputsHash = BuildInputs.hashOf(projectRoot, snapshot.workspace());
+                    return fetchWorkspace(() -> {}, inputsHash);
+                });
+            }
+        });
+    }
+
+    BspWorkspace currentWorkspace() {
+        var snapshot = workspace.get();
+        return snapshot == null ? null : snapshot.workspace();
+    }
+
+    void watchBuildFiles() {
+        try {
+            var watcher = new BuildFileWatcher(projectRoot, BUILD_FILE_DEBOUNCE_DELAY, this::reloadInBackground);
+            watcher.watch(BuildInputs.directoriesOf(projectRoot, currentWorkspace()));
+            watcher.start();
+            buildFileWatcher.set(watcher);
+        } catch (IOException e) {
+            logger.warn("Unable to watch build files for changes", e);
+        }
     }
 
     @Override
     public CompletableFuture<Object> buildShutdown() {
-        return ifInitialized(cancelToken -> {
+        return ifInitialized(CompletableFuture.completedFuture(null), cancelToken -> {
             performShutdown();
             shutdown.set(true);
             return null;
@@ -190,6 +434,16 @@ public class GradleBspServer implements BuildServer {
     }
 
     void performShutdown() {
+        compileCoalescer.shutdown();
+
+        var watcher = buildFileWatcher.getAndSet(null);
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                logger.warn("Unable to stop watching build files", e);
+            }
+        }
     }
 
     @Override
@@ -202,46 +456,109 @@ public class GradleBspServer implements BuildServer {
             }
 
             executor.shutdown();
+            backgroundExecutor.shutdownNow();
 
             if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
                 exitCode = ExitCode.SOFTWARE;
             }
+
+            if (notifications != null) {
+                notifications.close();
+            }
+
+            requestMetrics.close();
+            mbeanRegistry.close();
         } catch (InterruptedException e) {
             exitCode = ExitCode.SOFTWARE;
         }
     }
 
-    private boolean hasClientSupportedLanguage(BspBuildTarget target) {
-        return clientCapabilities.get()
-                .getLanguageIds().stream()
-                .anyMatch(supportedLanguage -> target.languageIds().contains(supportedLanguage));
+    @Override
+    public CompletableFuture<RequestMetricsResult> gradleMetrics() {
+        return CompletableFuture.completedFuture(new RequestMetricsResult(requestMetrics.snapshot()));
     }
 
     @Override
     public CompletableFuture<WorkspaceBuildTargetsResult> workspaceBuildTargets() {
         return ifInitialized(cancelToken -> {
             cancelToken.checkCanceled();
-            var buildTargets = workspace.get()
-                    .buildTargets().stream()
-                    .filter(this::hasClientSupportedLanguage)
-                    .map(Conversions::toBspBuildTarget)
-                    .collect(Collectors.toList());
+            var clientLanguageIds = clientCapabilities.get().getLanguageIds();
+            var buildTargets = workspace.get().buildTargetsFor(Set.copyOf(clientLanguageIds));
             return new WorkspaceBuildTargetsResult(buildTargets);
         });
     }
 
     @Override
     public CompletableFuture<Object> workspaceReload() {
-        return ifInitializedAsync(cancelToken -> {
+        // Wait for the initial model import to finish, but retry it here if it failed
+        var initialLoadAttempted = workspaceLoaded.handle((snapshot, error) -> null);
+        return ifInitializedAsync(initialLoadAttempted, cancelToken -> {
             cancelToken.checkCanceled();
-            return getCustomModelFuture(this.gradleConnection.get(), BspWorkspace.class).thenApply(workspace -> {
-                cancelToken.checkCanceled();
-                this.workspace.set(workspace);
-                return null;
-            });
+            return reloadWorkspace(cancelToken).thenApply(v -> null);
+        });
+    }
+
+    CompletableFuture<Void> reloadWorkspace(CancelChecker cancelToken) {
+        var current = this.workspace.get();
+        var inputsHash = BuildInputs.hashOf(projectRoot, currentWorkspace());
+
+        if (current != null && inputsHash.equals(current.inputsHash())) {
+            logger.info("Build inputs are unchanged, skipping workspace model reload");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return fetchWorkspace(cancelToken, inputsHash);
+    }
+
+    CompletableFuture<Void> fetchWorkspace(CancelChecker cancelToken, String inputsHash) {
+        return getCustomModelFuture(daemonPools.interactive(), BspWorkspace.class).thenAccept(fetchedWorkspace -> {
+            cancelToken.checkCanceled();
+            var workspace = ModelCopies.copyOf(fetchedWorkspace);
+            var snapshot = WorkspaceSnapshot.of(workspace, inputsHash);
+            var previous = this.workspace.getAndSet(snapshot);
+
+            workspaceCache.save(snapshot);
+
+            var watcher = buildFileWatcher.get();
+            if (watcher != null) {
+                watcher.watch(BuildInputs.directoriesOf(projectRoot, workspace));
+            }
+
+            if (previous == null) {
+                // The initial model import failed, so requests can be served from this model from now on
+                workspaceLoaded = CompletableFuture.completedFuture(snapshot);
+            } else {
+                notifyBuildTargetChanges(previous.workspace(), workspace);
+            }
         });
     }
 
+    void reloadInBackground() {
+        inBackground("Build files changed, reloading workspace model", () -> reloadWorkspace(() -> {}));
+    }
+
+    synchronized void inBackground(String description, Supplier<CompletableFuture<Void>> reload) {
+        if (isInitialized() && !isShutdown()) {
+            // Chain onto the previous reload so that models are always applied in the order they were requested
+            backgroundReload = backgroundReload.handle((result, error) -> null).thenComposeAsync(v -> {
+                logger.info(description);
+                return reload.get();
+            }, backgroundExecutor).whenComplete((result, error) -> {
+                if (error != null) {
+                    logger.error("Unable to reload workspace model", error);
+                }
+            });
+        }
+    }
+
+    void notifyBuildTargetChanges(BspWorkspace previous, BspWorkspace current) {
+        var changes = WorkspaceChanges.between(previous, current);
+        if (!changes.isEmpty()) {
+            logger.info("{} build targets changed after reload", changes.size());
+            ifShouldNotify(() -> client.onBuildTargetDidChange(new DidChangeBuildTarget(changes)));
+        }
+    }
+
     List<URI> getTargetUris(SourcesParams params) {
         return params.getTargets().stream()
                 .map(BuildTargetIdentifier::getUri)
@@ -250,7 +567,7 @@ public class GradleBspServer implements BuildServer {
     }
 
     List<SourcesItem> getSourcesFrom(List<URI> targetUris) {
-        var sourceDirectoriesMapping = workspace.get().buildTargetSources().getSources();
+        var sourceDirectoriesMapping = workspace.get().workspace().buildTargetSources().getSources();
 
         return targetUris.stream().flatMap(target -> {
             return Stream.ofNullable(sourceDirectoriesMapping.get(target))
@@ -273,26 +590,15 @@ public class GradleBspServer implements BuildServer {
         });
     }
 
-    boolean sourceItemContains(BspSourceItem sourceItem, Path documentPath) {
-        var sourceItemPath = Paths.get(sourceItem.uri());
-        return documentPath.normalize().startsWith(sourceItemPath.normalize());
-    }
-
-    boolean entryContains(Map.Entry<URI, Set<BspSourceItem>> entry, Path documentPath)  {
-        return entry.getValue().stream()
-                .anyMatch(sourceItem -> sourceItemContains(sourceItem, documentPath));
-    }
-
     @Override
     public CompletableFuture<InverseSourcesResult> buildTargetInverseSources(InverseSourcesParams params) {
         return ifInitialized(cancelToken -> {
             var documentUri = params.getTextDocument().getUri();
             var documentPath = Paths.get(URI.create(documentUri));
             var buildTargets = workspace.get()
-                    .buildTargetSources().getSources()
-                    .entrySet().stream()
-                    .filter(entry -> entryContains(entry, documentPath))
-                    .map(entry -> new BuildTargetIdentifier(entry.getKey().toString()))
+                    .sourcePathIndex()
+                    .targetsContaining(documentPath).stream()
+                    .map(target -> new BuildTargetIdentifier(target.toString()))
                     .collect(Collectors.toList());
             return new InverseSourcesResult(buildTargets);
         });
@@ -300,8 +606,56 @@ public class GradleBspServer implements BuildServer {
 
     @Override
     public CompletableFuture<DependencySourcesResult> buildTargetDependencySources(DependencySourcesParams params) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'buildTargetDependencySources'");
+        return ifInitializedAsync(cancelToken -> {
+            var dependencyModules = workspace.get().workspace().buildTargetDependencies().dependencyModules();
+
+            var modulesByTarget = new LinkedHashMap<URI, List<String>>();
+
+            getTargetUris(params).forEach(targetUri -> {
+                var targetModules = Stream.ofNullable(dependencyModules.get(targetUri))
+                        .flatMap(Collection::stream)
+                        .map(BspDependencyModule::mavenData)
+                        .filter(Objects::nonNull)
+                        .map(mavenModule -> mavenModule.organization() + ":" + mavenModule.name() + ":" + mavenModule.version())
+                        .collect(Collectors.toList());
+                modulesByTarget.put(targetUri, targetModules);
+            });
+
+            var allModules = modulesByTarget.values().stream()
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+
+            return dependencySourcesCache.sourcesFor(allModules).thenApply(sources -> {
+                var dependencySourcesItems = modulesByTarget.entrySet().stream().map(entry -> {
+                    var targetSources = getSourcesOf(entry.getValue(), sources);
+                    return new DependencySourcesItem(new BuildTargetIdentifier(entry.getKey().toString()), targetSources);
+                }).collect(Collectors.toList());
+
+                return new DependencySourcesResult(dependencySourcesItems);
+            });
+        });
+    }
+
+    static List<String> getSourcesOf(List<String> modules, Map<String, Set<URI>> sources) {
+        return modules.stream()
+                .flatMap(coordinates -> Stream.ofNullable(sources.get(coordinates)))
+                .flatMap(Collection::stream)
+                .map(URI::toString)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    CompletableFuture<Map<String, Set<URI>>> fetchDependencySources(Set<String> modules) {
+        var modulesArgument = "-P" + DEPENDENCY_SOURCES_MODULES_PROPERTY + "=" + String.join(",", modules);
+        return getCustomModelFuture(daemonPools.interactive(), BspDependencySources.class, modulesArgument)
+                .thenApply(fetchedSources -> ModelCopies.copyOf(fetchedSources).getSources());
+    }
+
+    List<URI> getTargetUris(DependencySourcesParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
     }
 
 
@@ -313,7 +667,7 @@ public class GradleBspServer implements BuildServer {
     }
 
     List<ResourcesItem> getResourcesFrom(List<URI> targetUris) {
-        var resourceDirectoriesMapping = workspace.get().buildTargetResources().getResources();
+        var resourceDirectoriesMapping = workspace.get().workspace().buildTargetResources().getResources();
 
         return targetUris.stream().flatMap(target -> {
             return Stream.ofNullable(resourceDirectoriesMapping.get(target)).map(srcDirs -> {
@@ -335,21 +689,88 @@ public class GradleBspServer implements BuildServer {
         });
     }
 
+    List<URI> getTargetUris(OutputPathsParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
+    List<OutputPathsItem> getOutputPathsFrom(List<URI> targetUris) {
+        var outputPathsMapping = workspace.get().workspace().buildTargetOutputPaths().getOutputPaths();
+
+        return targetUris.stream().flatMap(target -> {
+            return Stream.ofNullable(outputPathsMapping.get(target)).map(outputDirs -> {
+                var id = new BuildTargetIdentifier(target.toString());
+                var outputPaths = outputDirs.stream()
+                        .map(outputDir -> new OutputPathItem(outputDir.toString(), OutputPathItemKind.DIRECTORY))
+                        .collect(Collectors.toList());
+                return new OutputPathsItem(id, outputPaths);
+            });
+        }).collect(Collectors.toList());
+    }
+
     @Override
     public CompletableFuture<OutputPathsResult> buildTargetOutputPaths(OutputPathsParams params) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'buildTargetOutputPaths'");
+        return ifInitialized(cancelToken -> {
+            var targetUris = getTargetUris(params);
+            var outputPathsItems = getOutputPathsFrom(targetUris);
+            return new OutputPathsResult(outputPathsItems);
+        });
+    }
+
+    <T extends ConfigurableLauncher<T>> T configureBuildLauncher(BuildScheduler.Build build, Function<ProjectConnection, T> launcherFn) {
+        return configureBuildLauncher(build, launcherFn, null);
     }
 
-    <T extends ConfigurableLauncher<T>> T configureBuildLauncher(CancelChecker cancelToken, String originId, Function<ProjectConnection, T> launcherFn) {
-        var gradleCanceller = GradleConnector.newCancellationTokenSource();
+    <T extends ConfigurableLauncher<T>> T configureBuildLauncher(BuildScheduler.Build build, Function<ProjectConnection, T> launcherFn, BuildProblemsListener problemsListener) {
+        var daemonPool = build.daemonPool();
+        var gradleCanceller = build.gradleCanceller();
         var operationTypes = Set.of(OperationType.BUILD_PHASE, OperationType.TASK);
-        var progressListener = new BuildClientProgressListener(client, cancelToken, gradleCanceller, originId);
-        return launcherFn.apply(gradleConnection.get())
+
+        var launcher = daemonPool.configure(launcherFn.apply(daemonPool.getConnection()))
                 .setStandardOutput(System.err)
                 .setStandardError(System.err)
-                .withCancellationToken(gradleCanceller.token())
-                .addProgressListener(progressListener, operationTypes);
+                .withCancellationToken(gradleCanceller.token());
+
+        // Each request that shares this build receives its own progress notifications
+        for (var originId : build.originIds()) {
+            var progressListener = new BuildClientProgressListener(notifications, build.cancelToken(), gradleCanceller, originId);
+            launcher = launcher.addProgressListener(progressListener, operationTypes);
+        }
+
+        if (problemsListener != null) {
+            launcher = launcher.addProgressListener(problemsListener, OperationType.PROBLEMS);
+        }
+
+        return launcher;
+    }
+
+    void publishDiagnostics(Set<URI> builtTargets, BuildProblemsListener problemsListener, List<String> originIds, StatusCode statusCode) {
+        var snapshot = workspace.get();
+
+        // A cancelled build may not have reached the compiler, so its diagnostics are incomplete
+        if (snapshot == null || diagnosticsPublisher == null || statusCode == StatusCode.CANCELLED) {
+            return;
+        }
+
+        // Diagnostics from a shared build can only be attributed to a single request
+        var originId = originIds.size() == 1 ? originIds.get(0) : null;
+
+        diagnosticsPublisher.publish(snapshot.sourcePathIndex(), builtTargets, problemsListener.getDiagnostics(), originId);
+    }
+
+    Set<URI> getTargetsForCompileTasks(Collection<String> tasks) {
+        var compileTaskMapping = workspace.get().workspace().compileTasks().getCompileTasks();
+
+        return compileTaskMapping.entrySet().stream()
+                .filter(entry -> tasks.contains(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    static String buildKeyOf(String[] tasks) {
+        return Arrays.stream(tasks).sorted().collect(Collectors.joining(" "));
     }
 
     List<URI> getTargetUris(CompileParams params) {
@@ -360,7 +781,7 @@ public class GradleBspServer implements BuildServer {
     }
 
     String[] getCompileTasksFrom(List<URI> targetUris) {
-        var compileTaskMapping = workspace.get().compileTasks().getCompileTasks();
+        var compileTaskMapping = workspace.get().workspace().compileTasks().getCompileTasks();
 
         return targetUris.stream().flatMap(target -> {
             return Stream.ofNullable(compileTaskMapping.get(target));
@@ -383,11 +804,28 @@ public class GradleBspServer implements BuildServer {
                 return CompletableFuture.completedFuture(compileResult);
             }
 
-            logger.info("Running build tasks {}", String.join(", ", targetCompileTasks));
-
-            var build = configureBuildLauncher(cancelToken, params.getOriginId(), ProjectConnection::newBuild);
+            return compileCoalescer.submit(params.getOriginId(), List.of(targetCompileTasks), cancelToken)
+                    .thenApply(statusCode -> {
+                        compileResult.setStatusCode(statusCode);
+                        return compileResult;
+                    });
+        });
+    }
 
-            return GradleResults.handleCompile(compileResult, build.forTasks(targetCompileTasks));
+    CompletableFuture<StatusCode> runCompileBatch(CompileCoalescer.Batch batch) {
+        var tasks = batch.tasks().toArray(String[]::new);
+
+        return buildScheduler.submit(BuildScheduler.Kind.COMPILE, buildKeyOf(tasks), batch.originIds(), batch.cancelToken(), scheduledBuild -> {
+            logger.info("Running build tasks {}", String.join(", ", tasks));
+            var problemsListener = new BuildProblemsListener();
+            var build = configureBuildLauncher(scheduledBuild, ProjectConnection::newBuild, problemsListener);
+            return GradleResults.handleCompile(new CompileResult(StatusCode.OK), build.forTasks(tasks))
+                    .thenApply(CompileResult::getStatusCode)
+                    .whenComplete((statusCode, error) -> {
+                        if (error == null) {
+                            publishDiagnostics(getTargetsForCompileTasks(batch.tasks()), problemsListener, batch.originIds(), statusCode);
+                        }
+                    });
         });
     }
 
@@ -399,7 +837,7 @@ public class GradleBspServer implements BuildServer {
     }
 
     String[] getTestTasksFrom(List<URI> targetUris) {
-        var testTaskMapping = workspace.get().testTasks().getTestTasks();
+        var testTaskMapping = workspace.get().workspace().testTasks().getTestTasks();
 
         return targetUris.stream().flatMap(target -> {
             return Stream.ofNullable(testTaskMapping.get(target))
@@ -407,6 +845,19 @@ public class GradleBspServer implements BuildServer {
         }).distinct().toArray(String[]::new);
     }
 
+    Map<String, URI> getTargetsByTestTask(Collection<URI> targetUris) {
+        var testTaskMapping = workspace.get().workspace().testTasks().getTestTasks();
+        var targetsByTestTask = new HashMap<String, URI>();
+
+        targetUris.forEach(targetUri -> {
+            Stream.ofNullable(testTaskMapping.get(targetUri))
+                    .flatMap(Collection::stream)
+                    .forEach(testTask -> targetsByTestTask.putIfAbsent(testTask, targetUri));
+        });
+
+        return targetsByTestTask;
+    }
+
     @Override
     public CompletableFuture<TestResult> buildTargetTest(TestParams params) {
         return ifInitializedAsync(cancelToken -> {
@@ -414,61 +865,390 @@ public class GradleBspServer implements BuildServer {
             testResult.setOriginId(params.getOriginId());
 
             var targetUris = getTargetUris(params);
-            var targetTestTasks = getTestTasksFrom(targetUris);
+
+            Optional<TestSelection> testSelection;
+            try {
+                testSelection = TestSelection.from(params, targetUris);
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.failedFuture(invalidParams(e.getMessage()));
+            }
+
+            var testedTargets = testSelection.<Collection<URI>>map(TestSelection::targets).orElse(targetUris);
+            var targetTestTasks = getTestTasksFrom(List.copyOf(testedTargets));
 
             if (targetTestTasks.length == 0) {
-                var targetUriStrings = targetUris.stream().map(URI::toString).collect(Collectors.joining(", "));
+                var targetUriStrings = testedTargets.stream().map(URI::toString).collect(Collectors.joining(", "));
                 logger.error("No test tasks could be found for build targets {}", targetUriStrings);
                 testResult.setStatusCode(StatusCode.ERROR);
                 return CompletableFuture.completedFuture(testResult);
             }
 
-            logger.info("Running build tasks {}", String.join(", ", targetTestTasks));
-
-            var build = configureBuildLauncher(cancelToken, params.getOriginId(), ProjectConnection::newTestLauncher);
-
-            return GradleResults.handleTest(testResult, build.forTasks(targetTestTasks));
+            var originIds = Collections.singletonList(params.getOriginId());
+            var targetsByTestTask = getTargetsByTestTask(testedTargets);
+            var testTaskMapping = workspace.get().workspace().testTasks().getTestTasks();
+
+            // Requests for different tests from the same tasks are different builds
+            var buildKey = testSelection
+                    .map(selection -> buildKeyOf(targetTestTasks) + " " + selection.key())
+                    .orElseGet(() -> buildKeyOf(targetTestTasks));
+
+            return buildScheduler.submit(BuildScheduler.Kind.TEST, buildKey, originIds, cancelToken, scheduledBuild -> {
+                var problemsListener = new BuildProblemsListener();
+                var build = configureBuildLauncher(scheduledBuild, ProjectConnection::newTestLauncher, problemsListener);
+
+                for (var originId : scheduledBuild.originIds()) {
+                    var testListener = new BuildClientTestListener(notifications, targetsByTestTask, originId);
+                    build = build.addProgressListener(testListener, Set.of(OperationType.TASK, OperationType.TEST));
+                }
+
+                if (testSelection.isPresent()) {
+                    logger.info("Running tests {}", testSelection.get().key());
+                    build = testSelection.get().applyTo(build, testTaskMapping);
+                } else {
+                    logger.info("Running build tasks {}", String.join(", ", targetTestTasks));
+                    build = build.forTasks(targetTestTasks);
+                }
+
+                return GradleResults.handleTest(new TestResult(StatusCode.OK), build)
+                        .thenApply(TestResult::getStatusCode)
+                        .whenComplete((statusCode, error) -> {
+                            if (error == null) {
+                                publishDiagnostics(Set.copyOf(testedTargets), problemsListener, originIds, statusCode);
+                            }
+                        });
+            }).thenApply(statusCode -> {
+                testResult.setStatusCode(statusCode);
+                return testResult;
+            });
         });
     }
 
     String[] getRunTaskFor(URI targetUri) {
-        var runTaskMapping = workspace.get().runTasks().getRunTasks();
+        var runTaskMapping = workspace.get().workspace().runTasks().getRunTasks();
         return Stream.ofNullable(runTaskMapping.get(targetUri)).toArray(String[]::new);
     }
 
-    @Override
-    public CompletableFuture<RunResult> buildTargetRun(RunParams params) {
-        return ifInitializedAsync(cancelToken -> {
-            var runResult = new RunResult(StatusCode.OK);
-            runResult.setOriginId(params.getOriginId());
+    CompletableFuture<RunResult> runWithGradle(RunParams params, CancelChecker cancelToken) {
+        var runResult = new RunResult(StatusCode.OK);
+        runResult.setOriginId(params.getOriginId());
+
+        var targetUri = URI.create(params.getTarget().getUri());
+        var targetRunTasks = getRunTaskFor(targetUri);
+
+        if (targetRunTasks.length == 0) {
+            logger.error("No run tasks could be found for build target {}", targetUri);
+            runResult.setStatusCode(StatusCode.ERROR);
+            return CompletableFuture.completedFuture(runResult);
+        }
+
+        var originIds = Collections.singletonList(params.getOriginId());
+
+        return buildScheduler.submit(BuildScheduler.Kind.RUN, buildKeyOf(targetRunTasks), originIds, cancelToken, scheduledBuild -> {
+            logger.info("Running build tasks {}", String.join(", ", targetRunTasks));
+            var problemsListener = new BuildProblemsListener();
+            var build = configureBuildLauncher(scheduledBuild, ProjectConnection::newBuild, problemsListener);
+            return GradleResults.handleRun(new RunResult(StatusCode.OK), build.forTasks(targetRunTasks))
+                    .thenApply(RunResult::getStatusCode)
+                    .whenComplete((statusCode, error) -> {
+                        if (error == null) {
+                            publishDiagnostics(Set.of(targetUri), problemsListener, originIds, statusCode);
+                        }
+                    });
+        }).thenApply(statusCode -> {
+            runResult.setStatusCode(statusCode);
+            return runResult;
+        });
+    }
+
+
+    Path getJavaExecutableFor(URI targetUri) {
+        var javaHome = workspace.get().workspace().buildTargets().stream()
+                .filter(target -> target.id().uri().equals(targetUri))
+                .map(target -> target.scalaData() != null ? target.scalaData().jvmBuildTarget() : target.jvmData())
+                .filter(Objects::nonNull)
+                .map(BspJvmBuildTarget::javaHome)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .map(Paths::get)
+                .orElseGet(() -> Paths.get(System.getProperty("java.home")));
+
+        var isWindows = System.getProperty("os.name").startsWith("Windows");
+
+        return javaHome.resolve("bin").resolve(isWindows ? "java.exe" : "java");
+    }
+
+    static Optional<ScalaMainClass> getMainClassFrom(RunParams params) {
+        if (!SCALA_MAIN_CLASS_DATA_KIND.equals(params.getDataKind()) || params.getData() == null) {
+            return Optional.empty();
+        }
+
+        var data = params.getData();
+        var jsonData = data instanceof JsonElement ? (JsonElement) data : gson.toJsonTree(data);
 
+        return Optional.ofNullable(gson.fromJson(jsonData, ScalaMainClass.class));
+    }
+
+    Optional<JvmLaunch> getJvmLaunchFor(RunParams params, BspJvmEnvironment environment) {
+        var requestedMainClass = getMainClassFrom(params);
+
+        var mainClass = requestedMainClass
+                .map(ScalaMainClass::getClassName)
+                .or(() -> environment.mainClasses().stream().findFirst());
+
+        return mainClass.map(className -> {
             var targetUri = URI.create(params.getTarget().getUri());
-            var targetRunTasks = getRunTaskFor(targetUri);
 
-            if (targetRunTasks.length == 0) {
-                logger.error("No run tasks could be found for build target {}", targetUri);
-                runResult.setStatusCode(StatusCode.ERROR);
+            var classpath = environment.classpath().stream()
+                    .map(entry -> Paths.get(entry).toString())
+                    .collect(Collectors.toList());
+
+            var jvmOptions = new ArrayList<>(environment.jvmOptions());
+            requestedMainClass.map(ScalaMainClass::getJvmOptions).ifPresent(jvmOptions::addAll);
+
+            var arguments = new ArrayList<String>();
+            requestedMainClass.map(ScalaMainClass::getArguments).ifPresent(arguments::addAll);
+            Optional.ofNullable(params.getArguments()).ifPresent(arguments::addAll);
+
+            var workingDirectory = Optional.ofNullable(params.getWorkingDirectory())
+                    .map(URI::create)
+                    .orElse(environment.workingDirectory());
+
+            var environmentVariables = new LinkedHashMap<>(environment.environmentVariables());
+            Optional.ofNullable(params.getEnvironmentVariables()).ifPresent(environmentVariables::putAll);
+
+            return new JvmLaunch(
+                    getJavaExecutableFor(targetUri),
+                    classpath,
+                    jvmOptions,
+                    className,
+                    arguments,
+                    Paths.get(workingDirectory),
+                    environmentVariables);
+        });
+    }
+
+    void logProcessOutput(String originId, MessageType messageType, String line) {
+        var logMessage = new LogMessageParams(messageType, line);
+        logMessage.setOriginId(originId);
+        notifications.logMessage(logMessage);
+    }
+
+    CompletableFuture<RunResult> runDirectly(RunParams params, CancelChecker cancelToken) {
+        var runResult = new RunResult(StatusCode.OK);
+        runResult.setOriginId(params.getOriginId());
+
+        var targetUri = URI.create(params.getTarget().getUri());
+        var targetCompileTasks = getCompileTasksFrom(List.of(targetUri));
+
+        var compiled = targetCompileTasks.length == 0
+                ? CompletableFuture.completedFuture(StatusCode.OK)
+                : compileCoalescer.submit(params.getOriginId(), List.of(targetCompileTasks), cancelToken);
+
+        return compiled.thenCompose(compileStatus -> {
+            if (compileStatus != StatusCode.OK) {
+                runResult.setStatusCode(compileStatus);
                 return CompletableFuture.completedFuture(runResult);
             }
 
-            logger.info("Running build tasks {}", String.join(", ", targetRunTasks));
-
-            var build = configureBuildLauncher(cancelToken, params.getOriginId(), ProjectConnection::newBuild);
+            return getJvmEnvironmentsFor(JVM_RUN_ENVIRONMENT, List.of(targetUri)).thenCompose(environments -> {
+                var jvmLaunch = Optional.ofNullable(environments.get(targetUri))
+                        .flatMap(environment -> getJvmLaunchFor(params, environment));
+
+                if (jvmLaunch.isEmpty()) {
+                    logger.info("No main class could be found for build target {}, running with Gradle instead", targetUri);
+                    return runWithGradle(params, cancelToken);
+                }
+
+                var originId = params.getOriginId();
+
+                return jvmLaunch.get().start(
+                        line -> logProcessOutput(originId, MessageType.INFO, line),
+                        line -> logProcessOutput(originId, MessageType.ERROR, line),
+                        cancelToken,
+                        backgroundExecutor
+                ).thenApply(exitCode -> {
+                    if (cancelToken.isCanceled()) {
+                        runResult.setStatusCode(StatusCode.CANCELLED);
+                    } else if (exitCode != 0) {
+                        runResult.setStatusCode(StatusCode.ERROR);
+                    }
+                    return runResult;
+                });
+            });
+        });
+    }
 
-            return GradleResults.handleRun(runResult, build.forTasks(targetRunTasks));
+    @Override
+    public CompletableFuture<RunResult> buildTargetRun(RunParams params) {
+        return ifInitializedAsync(cancelToken -> {
+            if (runMode == RunMode.DIRECT) {
+                return runDirectly(params, cancelToken);
+            } else {
+                return runWithGradle(params, cancelToken);
+            }
         });
     }
 
+    List<URI> getTargetUris(DependencyModulesParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public CompletableFuture<DependencyModulesResult> buildTargetDependencyModules(DependencyModulesParams params) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'buildTargetDependencyModules'");
+        return ifInitialized(cancelToken -> {
+            var snapshot = workspace.get();
+            var dependencyModulesItems = getTargetUris(params).stream()
+                    .map(snapshot::dependencyModulesFor)
+                    .collect(Collectors.toList());
+            return new DependencyModulesResult(dependencyModulesItems);
+        });
+    }
+
+    List<URI> getTargetUris(DebugSessionParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
+    private static ResponseErrorException invalidParams(String message) {
+        return new ResponseErrorException(new ResponseError(ResponseErrorCode.InvalidParams, message, null));
+    }
+
+    Optional<JvmLaunch> getTestDebugLaunchFor(URI targetUri, BspJvmEnvironment environment, SortedMap<String, SortedSet<String>> selectedTests) {
+        var classpath = environment.classpath().stream()
+                .map(entry -> Paths.get(entry).toString())
+                .collect(Collectors.toList());
+
+        return DebugLaunch.TestRunner.findOn(classpath)
+                // The JUnit 4 runner can't discover test classes by itself
+                .filter(testRunner -> testRunner != DebugLaunch.TestRunner.JUNIT_4 || !selectedTests.isEmpty())
+                .map(testRunner -> new JvmLaunch(
+                        getJavaExecutableFor(targetUri),
+                        classpath,
+                        environment.jvmOptions(),
+                        testRunner.getMainClass(),
+                        testRunner.getArgumentsFor(selectedTests),
+                        Paths.get(environment.workingDirectory()),
+                        environment.environmentVariables()));
+    }
+
+    CompletableFuture<DebugSessionAddress> startDebugLaunch(JvmLaunch jvmLaunch, CancelChecker sessionCancelToken) {
+        return DebugLaunch.start(
+                jvmLaunch.withJvmOption(DebugLaunch.JDWP_AGENT_OPTION),
+                line -> logProcessOutput(null, MessageType.INFO, line),
+                line -> logProcessOutput(null, MessageType.ERROR, line),
+                sessionCancelToken,
+                backgroundExecutor);
+    }
+
+    CompletableFuture<DebugSessionAddress> startTestDebugBuild(URI targetUri, Optional<TestSelection> testSelection, CancelChecker sessionCancelToken) {
+        var targetTestTasks = getTestTasksFrom(List.of(targetUri));
+
+        if (targetTestTasks.length == 0) {
+            return CompletableFuture.failedFuture(invalidParams("No test tasks could be found for build target " + targetUri));
+        }
+
+        var testTaskMapping = workspace.get().workspace().testTasks().getTestTasks();
+        var address = new CompletableFuture<DebugSessionAddress>();
+
+        var buildKey = testSelection
+                .map(selection -> buildKeyOf(targetTestTasks) + " " + selection.key())
+                .orElseGet(() -> buildKeyOf(targetTestTasks));
+
+        // Debug sessions are never superseded, so they are scheduled in the same way as runs
+        buildScheduler.submit(BuildScheduler.Kind.RUN, "debug " + buildKey, Collections.singletonList(null), sessionCancelToken, scheduledBuild -> {
+            var build = configureBuildLauncher(scheduledBuild, ProjectConnection::newTestLauncher)
+                    .setStandardOutput(new LineOutputStream(DebugLaunch.listenForAddress(address, System.err::println)))
+                    .addArguments("-P" + DebugLaunch.GRADLE_DEBUG_AGENT_PROPERTY + "=" + DebugLaunch.JDWP_AGENT_OPTION);
+
+            if (testSelection.isPresent()) {
+                logger.info("Debugging tests {}", testSelection.get().key());
+                build = testSelection.get().applyTo(build, testTaskMapping);
+            } else {
+                logger.info("Debugging build tasks {}", String.join(", ", targetTestTasks));
+                build = build.forTasks(targetTestTasks);
+            }
+
+            return GradleResults.handleTest(new TestResult(StatusCode.OK), build).thenApply(TestResult::getStatusCode);
+        }).whenComplete((statusCode, error) -> {
+            address.completeExceptionally(error != null ? error : new IllegalStateException(
+                    "Debug session build finished with status " + statusCode + " before its debug agent started"));
+        });
+
+        return address;
+    }
+
+    CompletableFuture<DebugSessionAddress> startDebugSessionFor(DebugSessionParams params, URI targetUri, CancelChecker sessionCancelToken) {
+        var dataKind = params.getDataKind();
+        var target = new BuildTargetIdentifier(targetUri.toString());
+
+        if (TestSelection.SCALA_TEST_SUITES.equals(dataKind) || TestSelection.SCALA_TEST_SUITES_SELECTION.equals(dataKind)) {
+            var testParams = new TestParams(List.of(target));
+            testParams.setDataKind(dataKind);
+            testParams.setData(params.getData());
+
+            var testSelection = TestSelection.from(testParams, List.of(targetUri));
+            var selectedTests = testSelection
+                    .map(selection -> selection.testsFor(targetUri))
+                    .orElseGet(TreeMap::new);
+
+            // Tests are launched directly when a console test runner is available, and run by Gradle otherwise
+            return getJvmEnvironmentsFor(JVM_TEST_ENVIRONMENT, List.of(targetUri)).thenCompose(environments ->
+                    Optional.ofNullable(environments.get(targetUri))
+                            .flatMap(environment -> getTestDebugLaunchFor(targetUri, environment, selectedTests))
+                            .map(jvmLaunch -> startDebugLaunch(jvmLaunch, sessionCancelToken))
+                            .orElseGet(() -> startTestDebugBuild(targetUri, testSelection, sessionCancelToken)));
+        } else if (dataKind == null || SCALA_MAIN_CLASS_DATA_KIND.equals(dataKind)) {
+            var runParams = new RunParams(target);
+            runParams.setDataKind(dataKind);
+            runParams.setData(params.getData());
+
+            return getJvmEnvironmentsFor(JVM_RUN_ENVIRONMENT, List.of(targetUri)).thenCompose(environments -> {
+                var jvmLaunch = Optional.ofNullable(environments.get(targetUri))
+                        .flatMap(environment -> getJvmLaunchFor(runParams, environment))
+                        .orElseThrow(() -> invalidParams("No main class could be found for build target " + targetUri));
+                return startDebugLaunch(jvmLaunch, sessionCancelToken);
+            });
+        } else {
+            return CompletableFuture.failedFuture(invalidParams("Unsupported debug session data kind " + dataKind));
+        }
     }
 
     @Override
     public CompletableFuture<DebugSessionAddress> debugSessionStart(DebugSessionParams params) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'debugSessionStart'");
+        return ifInitializedAsync(cancelToken -> {
+            var targetUris = getTargetUris(params);
+
+            if (targetUris.size() != 1) {
+                return CompletableFuture.failedFuture(invalidParams("Debug sessions must be started for exactly one build target"));
+            }
+
+            var targetUri = targetUris.get(0);
+            var targetCompileTasks = getCompileTasksFrom(targetUris);
+
+            var compiled = targetCompileTasks.length == 0
+                    ? CompletableFuture.completedFuture(StatusCode.OK)
+                    : compileCoalescer.submit(null, List.of(targetCompileTasks), cancelToken);
+
+            // The debug session outlives the request that started it, so its process is only destroyed on shutdown
+            CancelChecker sessionCancelToken = () -> {
+                if (isShutdown()) {
+                    throw new CancellationException();
+                }
+            };
+
+            return compiled.thenCompose(compileStatus -> {
+                if (compileStatus != StatusCode.OK) {
+                    throw invalidParams("Build target " + targetUri + " could not be compiled");
+                }
+
+                return startDebugSessionFor(params, targetUri, sessionCancelToken);
+            });
+        });
     }
 
     List<URI> getTargetUris(CleanCacheParams params) {
@@ -479,7 +1259,7 @@ public class GradleBspServer implements BuildServer {
     }
 
     String[] getCleanTasksFrom(List<URI> targetUris) {
-        var cleanTaskMapping = workspace.get().cleanTasks().getCleanTasks();
+        var cleanTaskMapping = workspace.get().workspace().cleanTasks().getCleanTasks();
 
         return targetUris.stream().flatMap(target -> {
             return Stream.ofNullable(cleanTaskMapping.get(target));
@@ -501,15 +1281,190 @@ public class GradleBspServer implements BuildServer {
                 return CompletableFuture.completedFuture(cleanResult);
             }
 
-            logger.info("Running build tasks {}", String.join(", ", targetCleanTasks));
+            var originIds = Collections.<String>singletonList(null);
+
+            return buildScheduler.submit(BuildScheduler.Kind.CLEAN, buildKeyOf(targetCleanTasks), originIds, cancelToken, scheduledBuild -> {
+                logger.info("Running build tasks {}", String.join(", ", targetCleanTasks));
+                var build = configureBuildLauncher(scheduledBuild, ProjectConnection::newBuild);
+                return GradleResults.handleClean(new CleanCacheResult(Boolean.TRUE), build.forTasks(targetCleanTasks))
+                        .thenApply(CleanCacheResult::getCleaned);
+            }).thenApply(cleaned -> {
+                cleanResult.setCleaned(cleaned);
+                return cleanResult;
+            });
+        });
+    }
+
+    static String targetsArgument(String propertyName, Set<URI> targetUris) {
+        return "-P" + propertyName + "=" + targetUris.stream()
+                .map(URI::toString)
+                .collect(Collectors.joining(" "));
+    }
+
+    CompletableFuture<Map<URI, BspJvmEnvironment>> fetchJvmEnvironments(String kind, Set<URI> targetUris) {
+        var kindArgument = "-P" + JVM_ENVIRONMENTS_KIND_PROPERTY + "=" + kind;
+        var targetsArgument = targetsArgument(JVM_ENVIRONMENTS_TARGETS_PROPERTY, targetUris);
+        return getCustomModelFuture(daemonPools.interactive(), BspJvmEnvironments.class, kindArgument, targetsArgument)
+                .thenApply(fetchedEnvironments -> ModelCopies.copyOf(fetchedEnvironments).getEnvironments());
+    }
+
+    CompletableFuture<Map<URI, BspJvmEnvironment>> getJvmEnvironmentsFor(String kind, List<URI> targetUris) {
+        return workspace.get()
+                .<BspJvmEnvironment>targetModels("jvmEnvironment:" + kind, targets -> fetchJvmEnvironments(kind, targets))
+                .modelsFor(targetUris);
+    }
+
+    CompletableFuture<List<JvmEnvironmentItem>> getJvmEnvironmentItemsFor(String kind, List<URI> targetUris) {
+        return getJvmEnvironmentsFor(kind, targetUris).thenApply(environments -> environments.entrySet().stream()
+                .map(entry -> Conversions.toBspJvmEnvironmentItem(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList()));
+    }
+
+    List<URI> getTargetUris(JvmRunEnvironmentParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CompletableFuture<JvmRunEnvironmentResult> buildTargetJvmRunEnvironment(JvmRunEnvironmentParams params) {
+        return ifInitializedAsync(cancelToken -> {
+            return getJvmEnvironmentItemsFor(JVM_RUN_ENVIRONMENT, getTargetUris(params))
+                    .thenApply(JvmRunEnvironmentResult::new);
+        });
+    }
+
+    List<URI> getTargetUris(JvmTestEnvironmentParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CompletableFuture<JvmTestEnvironmentResult> buildTargetJvmTestEnvironment(JvmTestEnvironmentParams params) {
+        return ifInitializedAsync(cancelToken -> {
+            return getJvmEnvironmentItemsFor(JVM_TEST_ENVIRONMENT, getTargetUris(params))
+                    .thenApply(JvmTestEnvironmentResult::new);
+        });
+    }
+
+    CompletableFuture<Map<URI, BspCompilerOptions>> fetchCompilerOptions(String languageId, Set<URI> targetUris) {
+        var languageArgument = "-P" + COMPILER_OPTIONS_LANGUAGE_PROPERTY + "=" + languageId;
+        var targetsArgument = targetsArgument(COMPILER_OPTIONS_TARGETS_PROPERTY, targetUris);
+        return getCustomModelFuture(daemonPools.interactive(), BspBuildTargetCompilerOptions.class, languageArgument, targetsArgument)
+                .thenApply(fetchedOptions -> ModelCopies.copyOf(fetchedOptions).getCompilerOptions());
+    }
+
+    CompletableFuture<Map<URI, BspCompilerOptions>> getCompilerOptionsFor(String languageId, List<URI> targetUris) {
+        return workspace.get()
+                .<BspCompilerOptions>targetModels("compilerOptions:" + languageId, targets -> fetchCompilerOptions(languageId, targets))
+                .modelsFor(targetUris);
+    }
+
+    List<URI> getTargetUris(JvmCompileClasspathParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CompletableFuture<JvmCompileClasspathResult> buildTargetJvmCompileClasspath(JvmCompileClasspathParams params) {
+        return ifInitializedAsync(cancelToken -> {
+            var targetUris = getTargetUris(params);
+
+            // Scala-only build targets have no Java compiler options
+            return getCompilerOptionsFor("java", targetUris).thenCompose(javaOptions -> {
+                var scalaTargetUris = targetUris.stream()
+                        .filter(targetUri -> !javaOptions.containsKey(targetUri))
+                        .collect(Collectors.toList());
+
+                return getCompilerOptionsFor("scala", scalaTargetUris).thenApply(scalaOptions -> {
+                    var classpathItems = targetUris.stream().flatMap(targetUri -> {
+                        return Stream.ofNullable(javaOptions.getOrDefault(targetUri, scalaOptions.get(targetUri))).map(options -> {
+                            var id = new BuildTargetIdentifier(targetUri.toString());
+                            var classpath = options.classpath().stream().map(URI::toString).collect(Collectors.toList());
+                            return new JvmCompileClasspathItem(id, classpath);
+                        });
+                    }).collect(Collectors.toList());
+
+                    return new JvmCompileClasspathResult(classpathItems);
+                });
+            });
+        });
+    }
 
-            var build = configureBuildLauncher(cancelToken, null, ProjectConnection::newBuild);
+    List<URI> getTargetUris(JavacOptionsParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
 
-            return GradleResults.handleClean(cleanResult, build.forTasks(targetCleanTasks));
+    @Override
+    public CompletableFuture<JavacOptionsResult> buildTargetJavacOptions(JavacOptionsParams params) {
+        return ifInitializedAsync(cancelToken -> {
+            return getCompilerOptionsFor("java", getTargetUris(params)).thenApply(compilerOptions -> {
+                var javacOptionsItems = compilerOptions.entrySet().stream()
+                        .map(entry -> Conversions.toBspJavacOptionsItem(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList());
+                return new JavacOptionsResult(javacOptionsItems);
+            });
         });
     }
 
+    List<URI> getTargetUris(ScalacOptionsParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CompletableFuture<ScalacOptionsResult> buildTargetScalacOptions(ScalacOptionsParams params) {
+        return ifInitializedAsync(cancelToken -> {
+            return getCompilerOptionsFor("scala", getTargetUris(params)).thenApply(compilerOptions -> {
+                var scalacOptionsItems = compilerOptions.entrySet().stream()
+                        .map(entry -> Conversions.toBspScalacOptionsItem(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList());
+                return new ScalacOptionsResult(scalacOptionsItems);
+            });
+        });
+    }
+
+    List<URI> getTargetUris(ScalaMainClassesParams params) {
+        return params.getTargets().stream()
+                .map(BuildTargetIdentifier::getUri)
+                .map(URI::create)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CompletableFuture<ScalaMainClassesResult> buildTargetScalaMainClasses(ScalaMainClassesParams params) {
+        return ifInitializedAsync(cancelToken -> {
+            return getJvmEnvironmentsFor(JVM_RUN_ENVIRONMENT, getTargetUris(params)).thenApply(environments -> {
+                var mainClassesItems = environments.entrySet().stream()
+                        .map(entry -> Conversions.toBspScalaMainClassesItem(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList());
+                var result = new ScalaMainClassesResult(mainClassesItems);
+                result.setOriginId(params.getOriginId());
+                return result;
+            });
+        });
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public CompletableFuture<ScalaTestClassesResult> buildTargetScalaTestClasses(ScalaTestClassesParams params) {
+        // Test classes can only be discovered by scanning the compiled classes, which clients already do themselves
+        return ifInitialized(cancelToken -> new ScalaTestClassesResult(List.of()));
+    }
+
     public void onConnectWithClient(BuildClient client) {
         this.client = client;
+        this.notifications = new ClientNotifications(client, PROGRESS_NOTIFICATION_INTERVAL);
+        this.diagnosticsPublisher = new DiagnosticsPublisher(notifications::publishDiagnostics);
     }
 }
@@ -6,9 +6,12 @@ package com.opencastsoftware.gradle.bsp.server;
 
 import ch.epfl.scala.bsp4j.BuildClient;
 import com.opencastsoftware.gradle.bsp.server.util.DaemonThreadFactory;
+import com.opencastsoftware.gradle.bsp.server.util.RequestExecutor;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.RemoteEndpoint;
+import org.eclipse.lsp4j.jsonrpc.validation.ReflectiveMessageValidator;
 import org.gradle.tooling.GradleConnector;
-import org.gradle.tooling.ProjectConnection;
 import org.newsclub.net.unix.AFUNIXSocket;
 import org.newsclub.net.unix.AFUNIXSocketAddress;
 import org.slf4j.Logger;
@@ -20,10 +23,13 @@ import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.net.Socket;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
@@ -38,6 +44,51 @@ public class GradleBspServerLauncher implements Callable<Integer> {
     @ArgGroup(exclusive = true, multiplicity = "1")
     private Transport transport;
 
+    @Option(names = { "--daemons" }, defaultValue = "1", description = "Number of builds that may run at once in the interactive daemon pool. Default: ${DEFAULT-VALUE}.")
+    int interactiveDaemons;
+
+    @Option(names = { "--daemon-jvm-args" }, split = "\\s+", description = "JVM arguments for the interactive daemon pool.")
+    List<String> interactiveJvmArgs = List.of();
+
+    @Option(names = { "--test-daemons" }, defaultValue = "1", description = "Number of builds that may run at once in the test daemon pool, or 0 to run tests in the interactive pool. Default: ${DEFAULT-VALUE}.")
+    int testDaemons;
+
+    @Option(names = { "--test-daemon-jvm-args" }, split = "\\s+", description = "JVM arguments for the test daemon pool.")
+    List<String> testJvmArgs = List.of();
+
+    @Option(names = { "--max-concurrent-requests" }, defaultValue = "16", description = "Number of requests that may run at once. Default: ${DEFAULT-VALUE}.")
+    int maxConcurrentRequests;
+
+    @Option(names = { "--request-queue-capacity" }, defaultValue = "1024", description = "Number of requests that may wait to run before further requests are rejected. Default: ${DEFAULT-VALUE}.")
+    int requestQueueCapacity;
+
+    @Option(names = { "--run-mode" }, defaultValue = "GRADLE", description = "How to launch build targets for run requests: GRADLE runs the `run` task, DIRECT compiles the target and launches its main class from its runtime classpath. Valid values: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}.")
+    GradleBspServer.RunMode runMode;
+
+    @Option(names = { "--trace" }, defaultValue = "OFF", description = "How to trace JSON-RPC messages to standard error: OFF traces nothing, SAMPLED traces a sample of requests and every error response, FULL records every message in a ring buffer which is written when an error response is sent or when it is dumped via JMX. Valid values: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}.")
+    MessageTrace.Mode traceMode;
+
+    @Option(names = { "--trace-sample-rate" }, defaultValue = "100", description = "Number of requests for each one that is traced in SAMPLED mode. Default: ${DEFAULT-VALUE}.")
+    int traceSampleRate;
+
+    @Option(names = { "--trace-buffer-size" }, defaultValue = "256", description = "Number of messages kept in the ring buffer in FULL mode. Default: ${DEFAULT-VALUE}.")
+    int traceBufferSize;
+
+    @Option(names = { "--validate-messages" }, defaultValue = "ALL", description = "Which JSON-RPC messages to validate against the protocol: ALL validates requests and notifications from the client and every message sent to it, INBOUND only validates messages from the client, OFF validates nothing. Valid values: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}.")
+    MessageValidation messageValidation;
+
+    @Option(names = { "--route" }, description = "Route a kind of build to a daemon pool, e.g. --route RUN=interactive. Valid kinds: ${COMPLETION-CANDIDATES}.")
+    Map<BuildScheduler.Kind, String> routes = Map.of();
+
+    /**
+     * Which JSON-RPC messages are validated reflectively against the protocol.
+     */
+    public enum MessageValidation {
+        ALL,
+        INBOUND,
+        OFF
+    }
+
     private static class Transport {
         @Option(names = { "--stdio" }, required = true, description = "Use standard input / output streams.")
         boolean useStdio;
@@ -71,7 +122,7 @@ public class GradleBspServerLauncher implements Callable<Integer> {
         return initScriptPath;
     }
 
-    private File findProjectRoot() {
+    private Path findProjectRoot() {
         var currentDir = Paths.get(".")
                 .toAbsolutePath()
                 .normalize();
@@ -84,16 +135,39 @@ public class GradleBspServerLauncher implements Callable<Integer> {
             parentDir = parentDir.getParent();
         }
 
-        return currentDir.toFile();
+        return currentDir;
+    }
+
+    private DaemonPools createDaemonPools(GradleConnector connector) {
+        var interactivePool = new DaemonPool(DaemonPools.INTERACTIVE, connector.connect(), interactiveJvmArgs, Math.max(1, interactiveDaemons));
+        var testPool = testDaemons > 0 ? new DaemonPool(DaemonPools.TEST, connector.connect(), testJvmArgs, testDaemons) : null;
+        return DaemonPools.of(interactivePool, testPool, routes);
+    }
+
+    private MessageConsumer validateInbound(MessageConsumer consumer) {
+        // Incoming messages are consumed by the remote endpoint, and outgoing messages by the output stream
+        if (messageValidation == MessageValidation.INBOUND && consumer instanceof RemoteEndpoint) {
+            return new ReflectiveMessageValidator(consumer);
+        } else {
+            return consumer;
+        }
     }
 
     private int listenOn(InputStream in, OutputStream out) throws InterruptedException, ExecutionException {
+        var projectRoot = findProjectRoot();
+
         var connector = GradleConnector.newConnector()
-                .forProjectDirectory(findProjectRoot())
+                .forProjectDirectory(projectRoot.toFile())
                 .useBuildDistribution();
 
-        try (ProjectConnection connection = connector.connect()) {
-            var server = new GradleBspServer(connection, initScriptPath);
+        var mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try (DaemonPools daemonPools = createDaemonPools(connector);
+             var messageTrace = new MessageTrace(traceMode, traceSampleRate, traceBufferSize, new PrintWriter(System.err), mbeanServer)) {
+            logger.info("Using daemon pools {}", daemonPools.getPools());
+
+            var requestExecutor = RequestExecutor.create(Math.max(1, maxConcurrentRequests), Math.max(0, requestQueueCapacity));
+            var server = new GradleBspServer(daemonPools, requestExecutor, projectRoot, initScriptPath, runMode);
 
             var threadFactory = DaemonThreadFactory.create(logger, "gradle-buildserver-listener-%d");
             var executor = Executors.newSingleThreadExecutor(threadFactory);
@@ -104,8 +178,8 @@ public class GradleBspServerLauncher implements Callable<Integer> {
                     .setInput(in)
                     .setOutput(out)
                     .setExecutorService(executor)
-                    .traceMessages(new PrintWriter(System.err))
-                    .validateMessages(true)
+                    .validateMessages(messageValidation == MessageValidation.ALL)
+                    .wrapMessages(consumer -> messageTrace.wrap(server.getRequestMetrics().wrap(validateInbound(consumer))))
                     .create();
 
             server.onConnectWithClient(launcher.getRemoteProxy());
@@ -116,6 +190,10 @@ public class GradleBspServerLauncher implements Callable<Integer> {
 
             logger.info("Server exiting with exit code {}", exitCode);
 
+            if (exitCode != CommandLine.ExitCode.OK) {
+                messageTrace.dump();
+            }
+
             return exitCode;
         }
     }
@@ -0,0 +1,24 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.eclipse.lsp4j.jsonrpc.services.JsonRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The requests supported by this server in addition to those of the Build Server Protocol.
+ */
+public interface GradleBuildServer {
+    /**
+     * Get the latency, concurrency and error metrics of the requests received by the server.
+     * <p>
+     * This request can be sent at any time, including before the server is initialized.
+     *
+     * @return the metrics of each method that has been requested
+     */
+    @JsonRequest("gradle/metrics")
+    CompletableFuture<RequestMetricsResult> gradleMetrics();
+}
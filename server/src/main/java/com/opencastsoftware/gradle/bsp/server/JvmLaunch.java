@@ -0,0 +1,146 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A JVM process which runs a main class directly from a runtime classpath, without going through Gradle.
+ * <p>
+ * The output of the process is streamed line by line to the given consumers while it runs, and the
+ * process is destroyed if the request which launched it is cancelled.
+ */
+public class JvmLaunch {
+    private static final Logger logger = LoggerFactory.getLogger(JvmLaunch.class);
+
+    private static final long CANCEL_POLL_INTERVAL_MILLIS = 100;
+
+    private final List<String> command;
+    private final Path workingDirectory;
+    private final Map<String, String> environmentVariables;
+
+    public JvmLaunch(Path javaExecutable, List<String> classpath, List<String> jvmOptions, String mainClass, List<String> arguments, Path workingDirectory, Map<String, String> environmentVariables) {
+        var command = new ArrayList<String>();
+        command.add(javaExecutable.toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classpath));
+        command.add(mainClass);
+        command.addAll(arguments);
+
+        this.command = List.copyOf(command);
+        this.workingDirectory = workingDirectory;
+        this.environmentVariables = environmentVariables;
+    }
+
+    private JvmLaunch(List<String> command, Path workingDirectory, Map<String, String> environmentVariables) {
+        this.command = List.copyOf(command);
+        this.workingDirectory = workingDirectory;
+        this.environmentVariables = environmentVariables;
+    }
+
+    /**
+     * @param jvmOption the JVM option to add
+     * @return a launch of the same process with the given JVM option added before any other options
+     */
+    public JvmLaunch withJvmOption(String jvmOption) {
+        var command = new ArrayList<>(this.command);
+        command.add(1, jvmOption);
+        return new JvmLaunch(command, workingDirectory, environmentVariables);
+    }
+
+    public List<String> getCommand() {
+        return command;
+    }
+
+    public Path getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    public Map<String, String> getEnvironmentVariables() {
+        return environmentVariables;
+    }
+
+    private static CompletableFuture<Void> pipe(InputStream stream, Consumer<String> lines, Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            try (var reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.accept(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Start the process, streaming its output until it exits.
+     *
+     * @param stdout      the consumer of lines written to standard output
+     * @param stderr      the consumer of lines written to standard error
+     * @param cancelToken the cancellation token of the request which launched the process
+     * @param executor    the executor used to wait for the process and read its output
+     * @return the exit code of the process, once all of its output has been consumed
+     */
+    public CompletableFuture<Integer> start(Consumer<String> stdout, Consumer<String> stderr, CancelChecker cancelToken, Executor executor) {
+        var processBuilder = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectInput(ProcessBuilder.Redirect.PIPE);
+
+        processBuilder.environment().putAll(environmentVariables);
+
+        Process process;
+        try {
+            process = processBuilder.start();
+            // The process has no console to read from
+            process.getOutputStream().close();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        logger.info("Started process {} with command {}", process.pid(), command);
+
+        var stdoutPiped = pipe(process.getInputStream(), stdout, executor);
+        var stderrPiped = pipe(process.getErrorStream(), stderr, executor);
+
+        var exited = CompletableFuture.supplyAsync(() -> {
+            try {
+                while (!process.waitFor(CANCEL_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (cancelToken.isCanceled()) {
+                        logger.info("Destroying process {} as its request was cancelled", process.pid());
+                        process.descendants().forEach(ProcessHandle::destroy);
+                        process.destroy();
+                    }
+                }
+                return process.exitValue();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, executor);
+
+        return CompletableFuture.allOf(exited, stdoutPiped, stderrPiped).thenApply(ignored -> {
+            var exitCode = exited.join();
+            logger.info("Process {} exited with exit code {}", process.pid(), exitCode);
+            return exitCode;
+        });
+    }
+}
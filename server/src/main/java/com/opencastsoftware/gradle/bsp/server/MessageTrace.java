@@ -0,0 +1,284 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.server.util.DaemonThreadFactory;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.RequestMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Traces the JSON-RPC messages exchanged with the build client, without formatting or writing them on the
+ * threads which send and receive messages.
+ * <ul>
+ *     <li>{@link Mode#OFF} traces nothing.</li>
+ *     <li>{@link Mode#SAMPLED} writes one in every {@code sampleRate} requests along with its response, one in every
+ *     {@code sampleRate} notifications, and every error response.</li>
+ *     <li>{@link Mode#FULL} records every message in a ring buffer of the last {@code capacity} messages, which is
+ *     written whenever an error response is sent or a dump is requested via JMX.</li>
+ * </ul>
+ * Messages are formatted and written by a single background thread. If the trace output can't keep up, messages
+ * are dropped rather than delaying the server.
+ * <p>
+ * The trace is registered as an MXBean named {@value #OBJECT_NAME} when an {@link MBeanServer} is provided,
+ * so that its mode can be changed and its ring buffer dumped while the server is running.
+ */
+public class MessageTrace implements MessageTraceMXBean, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MessageTrace.class);
+
+    static final String OBJECT_NAME = "com.opencastsoftware.gradle.bsp:type=MessageTrace";
+
+    private static final int WRITE_QUEUE_CAPACITY = 1024;
+
+    // The only notifications that a build client sends to the server
+    private static final Set<String> CLIENT_NOTIFICATIONS = Set.of("build/initialized", "build/exit", "$/cancelRequest");
+
+    /**
+     * How JSON-RPC messages are traced.
+     */
+    public enum Mode {
+        OFF,
+        SAMPLED,
+        FULL
+    }
+
+    private static class Entry {
+        final long timeMillis;
+        final Message message;
+
+        Entry(long timeMillis, Message message) {
+            this.timeMillis = timeMillis;
+            this.message = message;
+        }
+    }
+
+    private static class WriteTask implements Runnable {
+        final List<Entry> entries;
+        final PrintWriter output;
+
+        WriteTask(List<Entry> entries, PrintWriter output) {
+            this.entries = entries;
+            this.output = output;
+        }
+
+        @Override
+        public void run() {
+            for (var entry : entries) {
+                output.println("[Trace - " + Instant.ofEpochMilli(entry.timeMillis) + "] " + describe(entry.message));
+                output.println(entry.message);
+                output.println();
+            }
+            output.flush();
+        }
+    }
+
+    private volatile Mode mode;
+    private volatile int sampleRate;
+
+    private final PrintWriter output;
+    private final MBeanServer mbeanServer;
+    private final ThreadPoolExecutor writer;
+
+    // Guarded by this
+    private final Entry[] buffer;
+    private long recordedMessages = 0;
+    private long dumpedMessages = 0;
+
+    private final AtomicLong sampleCounter = new AtomicLong(0);
+    private final Set<String> sampledRequests = ConcurrentHashMap.newKeySet();
+    private final AtomicLong droppedMessages = new AtomicLong(0);
+
+    /**
+     * @param mode        the initial trace mode
+     * @param sampleRate  the number of messages for each one that is traced in {@link Mode#SAMPLED} mode
+     * @param capacity    the number of messages retained in {@link Mode#FULL} mode
+     * @param output      the trace output
+     * @param mbeanServer the server to register the trace with, if any
+     */
+    public MessageTrace(Mode mode, int sampleRate, int capacity, PrintWriter output, MBeanServer mbeanServer) {
+        this.mode = mode;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.buffer = new Entry[Math.max(1, capacity)];
+        this.output = output;
+        this.mbeanServer = mbeanServer;
+        this.writer = new ThreadPoolExecutor(
+                1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY),
+                DaemonThreadFactory.create(logger, "gradle-buildserver-trace-%d"),
+                (task, executor) -> droppedMessages.addAndGet(((WriteTask) task).entries.size()));
+
+        if (mbeanServer != null) {
+            try {
+                mbeanServer.registerMBean(this, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                logger.warn("Unable to register message trace", e);
+            }
+        }
+    }
+
+    static String describe(Message message) {
+        if (message instanceof RequestMessage) {
+            var request = (RequestMessage) message;
+            return "Received request '" + request.getMethod() + " - (" + request.getId() + ")'";
+        } else if (message instanceof ResponseMessage) {
+            var response = (ResponseMessage) message;
+            var outcome = response.getError() != null ? "error response" : "response";
+            return "Sent " + outcome + " '(" + response.getId() + ")'";
+        } else if (message instanceof NotificationMessage) {
+            var method = ((NotificationMessage) message).getMethod();
+            return (CLIENT_NOTIFICATIONS.contains(method) ? "Received" : "Sent") + " notification '" + method + "'";
+        } else {
+            return "Message";
+        }
+    }
+
+    private static boolean isErrorResponse(Message message) {
+        return message instanceof ResponseMessage && ((ResponseMessage) message).getError() != null;
+    }
+
+    private void write(List<Entry> entries) {
+        if (!entries.isEmpty()) {
+            writer.execute(new WriteTask(entries, output));
+        }
+    }
+
+    private boolean isSampled(Message message) {
+        if (message instanceof RequestMessage) {
+            var sampled = sampleCounter.getAndIncrement() % sampleRate == 0;
+            if (sampled) {
+                sampledRequests.add(((RequestMessage) message).getId());
+            }
+            return sampled;
+        } else if (message instanceof ResponseMessage) {
+            var sampled = sampledRequests.remove(((ResponseMessage) message).getId());
+            return sampled || isErrorResponse(message);
+        } else {
+            return sampleCounter.getAndIncrement() % sampleRate == 0;
+        }
+    }
+
+    private synchronized void record(Entry entry) {
+        buffer[(int) (recordedMessages % buffer.length)] = entry;
+        recordedMessages++;
+    }
+
+    void trace(Message message) {
+        var currentMode = mode;
+
+        if (currentMode == Mode.FULL) {
+            record(new Entry(System.currentTimeMillis(), message));
+            if (isErrorResponse(message)) {
+                dump();
+            }
+        } else if (currentMode == Mode.SAMPLED && isSampled(message)) {
+            write(List.of(new Entry(System.currentTimeMillis(), message)));
+        }
+    }
+
+    /**
+     * Wrap a message consumer so that the messages it consumes are traced.
+     *
+     * @param consumer the message consumer to wrap
+     * @return a message consumer which traces messages before passing them on
+     */
+    public MessageConsumer wrap(MessageConsumer consumer) {
+        return message -> {
+            if (mode != Mode.OFF) {
+                trace(message);
+            }
+            consumer.consume(message);
+        };
+    }
+
+    @Override
+    public String getMode() {
+        return mode.name();
+    }
+
+    @Override
+    public void setMode(String mode) {
+        var newMode = Mode.valueOf(mode.toUpperCase());
+        logger.info("Changing message trace mode to {}", newMode);
+        this.mode = newMode;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    @Override
+    public synchronized int getBufferedMessages() {
+        return (int) Math.min(recordedMessages, buffer.length);
+    }
+
+    @Override
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    @Override
+    public int dump() {
+        var entries = new ArrayList<Entry>();
+
+        synchronized (this) {
+            var first = Math.max(dumpedMessages, recordedMessages - buffer.length);
+            for (var sequence = first; sequence < recordedMessages; sequence++) {
+                entries.add(buffer[(int) (sequence % buffer.length)]);
+            }
+            dumpedMessages = recordedMessages;
+        }
+
+        write(entries);
+
+        return entries.size();
+    }
+
+    /**
+     * Write any messages which are already queued, then stop tracing.
+     */
+    @Override
+    public void close() {
+        mode = Mode.OFF;
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (mbeanServer != null) {
+            try {
+                mbeanServer.unregisterMBean(new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                logger.debug("Unable to unregister message trace", e);
+            }
+        }
+    }
+}
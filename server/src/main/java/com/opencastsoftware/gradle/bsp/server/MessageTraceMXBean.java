@@ -0,0 +1,29 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+/**
+ * The JSON-RPC message trace, as exposed via JMX so that it can be reconfigured and dumped while the server runs.
+ */
+public interface MessageTraceMXBean {
+    String getMode();
+
+    void setMode(String mode);
+
+    int getSampleRate();
+
+    void setSampleRate(int sampleRate);
+
+    int getBufferedMessages();
+
+    long getDroppedMessages();
+
+    /**
+     * Write the messages recorded in the ring buffer since the previous dump to the trace output.
+     *
+     * @return the number of messages written
+     */
+    int dump();
+}
@@ -0,0 +1,114 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import java.util.Objects;
+
+/**
+ * A snapshot of the metrics of the requests for a JSON-RPC method, as returned by the {@code gradle/metrics} request.
+ */
+public class RequestMethodMetrics {
+    private final String method;
+    private final long count;
+    private final long errors;
+    private final long cancelled;
+    private final int inFlight;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    public RequestMethodMetrics(String method, long count, long errors, long cancelled, int inFlight, double meanMillis, double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+        this.method = method;
+        this.count = count;
+        this.errors = errors;
+        this.cancelled = cancelled;
+        this.inFlight = inFlight;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RequestMethodMetrics that = (RequestMethodMetrics) o;
+        return count == that.count &&
+                errors == that.errors &&
+                cancelled == that.cancelled &&
+                inFlight == that.inFlight &&
+                Double.compare(meanMillis, that.meanMillis) == 0 &&
+                Double.compare(p50Millis, that.p50Millis) == 0 &&
+                Double.compare(p95Millis, that.p95Millis) == 0 &&
+                Double.compare(p99Millis, that.p99Millis) == 0 &&
+                Double.compare(maxMillis, that.maxMillis) == 0 &&
+                Objects.equals(method, that.method);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, count, errors, cancelled, inFlight, meanMillis, p50Millis, p95Millis, p99Millis, maxMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMethodMetrics[" +
+                "method='" + method + '\'' +
+                ", count=" + count +
+                ", errors=" + errors +
+                ", cancelled=" + cancelled +
+                ", inFlight=" + inFlight +
+                ", meanMillis=" + meanMillis +
+                ", p50Millis=" + p50Millis +
+                ", p95Millis=" + p95Millis +
+                ", p99Millis=" + p99Millis +
+                ", maxMillis=" + maxMillis +
+                ']';
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+/**
+ * The latency, concurrency and error metrics of the requests for a JSON-RPC method, as exposed via JMX.
+ */
+public interface RequestMethodMetricsMXBean {
+    String getMethod();
+
+    long getCount();
+
+    long getErrors();
+
+    long getCancelled();
+
+    int getInFlight();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+}
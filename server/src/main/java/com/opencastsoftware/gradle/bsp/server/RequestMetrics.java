@@ -0,0 +1,224 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.server.util.LatencyHistogram;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.messages.RequestMessage;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseErrorCode;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Records the latency, concurrency and errors of the requests received from the build client, by JSON-RPC method.
+ * <p>
+ * Requests are timed from the moment that they are read until their response is written, so the latency includes
+ * any time spent waiting for the workspace model to load or for a request thread to become available.
+ * <p>
+ * The metrics of each method are registered as an MXBean named
+ * {@code com.opencastsoftware.gradle.bsp:type=RequestMetrics,method=<method>} when an {@link MBeanServer} is provided.
+ */
+public class RequestMetrics implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RequestMetrics.class);
+
+    static final String OBJECT_NAME_PREFIX = "com.opencastsoftware.gradle.bsp:type=RequestMetrics,method=";
+
+    private final MBeanServer mbeanServer;
+    private final ConcurrentMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+
+    static class MethodMetrics implements RequestMethodMetricsMXBean {
+        private final String method;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong(0);
+        private final AtomicLong cancelled = new AtomicLong(0);
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+
+        MethodMetrics(String method) {
+            this.method = method;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public long getCount() {
+            return latencies.getCount();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.get();
+        }
+
+        @Override
+        public long getCancelled() {
+            return cancelled.get();
+        }
+
+        @Override
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return latencies.getMeanMicros() / 1000.0;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return latencies.getPercentileMicros(50) / 1000.0;
+        }
+
+        @Override
+        public double getP95Millis() {
+            return latencies.getPercentileMicros(95) / 1000.0;
+        }
+
+        @Override
+        public double getP99Millis() {
+            return latencies.getPercentileMicros(99) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return latencies.getMaxMicros() / 1000.0;
+        }
+
+        RequestMethodMetrics snapshot() {
+            return new RequestMethodMetrics(
+                    method, getCount(), getErrors(), getCancelled(), getInFlight(),
+                    getMeanMillis(), getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+        }
+    }
+
+    private static class InFlightRequest {
+        final MethodMetrics metrics;
+        final long startNanos;
+
+        InFlightRequest(MethodMetrics metrics, long startNanos) {
+            this.metrics = metrics;
+            this.startNanos = startNanos;
+        }
+    }
+
+    public RequestMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param mbeanServer the server to register the metrics of each method with, if any
+     */
+    public RequestMetrics(MBeanServer mbeanServer) {
+        this.mbeanServer = mbeanServer;
+    }
+
+    private MethodMetrics createMethodMetrics(String method) {
+        var metrics = new MethodMetrics(method);
+
+        if (mbeanServer != null) {
+            try {
+                mbeanServer.registerMBean(metrics, new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(method)));
+            } catch (JMException e) {
+                logger.warn("Unable to register request metrics for method {}", method, e);
+            }
+        }
+
+        return metrics;
+    }
+
+    void requestStarted(String id, String method) {
+        var metrics = methods.computeIfAbsent(method, this::createMethodMetrics);
+        metrics.inFlight.incrementAndGet();
+        inFlightRequests.put(id, new InFlightRequest(metrics, System.nanoTime()));
+    }
+
+    void requestFinished(String id, Integer errorCode) {
+        var request = inFlightRequests.remove(id);
+
+        if (request == null) {
+            return;
+        }
+
+        var metrics = request.metrics;
+
+        metrics.inFlight.decrementAndGet();
+        metrics.latencies.record((System.nanoTime() - request.startNanos) / 1000);
+
+        if (errorCode != null) {
+            if (errorCode == ResponseErrorCode.RequestCancelled.getValue()) {
+                metrics.cancelled.incrementAndGet();
+            } else {
+                metrics.errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Wrap a message consumer so that the requests it reads and the responses it writes are recorded.
+     * <p>
+     * This is applied to both the incoming and outgoing messages of the connection with the build client.
+     *
+     * @param consumer the message consumer to wrap
+     * @return a message consumer which records request metrics before passing messages on
+     */
+    public MessageConsumer wrap(MessageConsumer consumer) {
+        return message -> {
+            if (message instanceof RequestMessage) {
+                var request = (RequestMessage) message;
+                requestStarted(request.getId(), request.getMethod());
+            } else if (message instanceof ResponseMessage) {
+                var response = (ResponseMessage) message;
+                var error = response.getError();
+                requestFinished(response.getId(), error != null ? error.getCode() : null);
+            }
+
+            consumer.consume(message);
+        };
+    }
+
+    /**
+     * @return a snapshot of the metrics of each method which has been requested, ordered by method name
+     */
+    public List<RequestMethodMetrics> snapshot() {
+        return methods.values().stream()
+                .map(MethodMetrics::snapshot)
+                .sorted(Comparator.comparing(RequestMethodMetrics::getMethod))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Unregister the metrics of each method from JMX.
+     */
+    @Override
+    public void close() {
+        if (mbeanServer == null) {
+            return;
+        }
+
+        for (var method : methods.keySet()) {
+            try {
+                mbeanServer.unregisterMBean(new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(method)));
+            } catch (JMException e) {
+                logger.debug("Unable to unregister request metrics for method {}", method, e);
+            }
+        }
+    }
+}
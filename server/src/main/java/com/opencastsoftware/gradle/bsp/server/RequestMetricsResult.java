@@ -0,0 +1,43 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The result of a {@code gradle/metrics} request.
+ */
+public class RequestMetricsResult {
+    private final List<RequestMethodMetrics> requests;
+
+    public RequestMetricsResult(List<RequestMethodMetrics> requests) {
+        this.requests = requests;
+    }
+
+    public List<RequestMethodMetrics> getRequests() {
+        return requests;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RequestMetricsResult that = (RequestMetricsResult) o;
+        return Objects.equals(requests, that.requests);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(requests);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetricsResult[" +
+                "requests=" + requests +
+                ']';
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Fetches a per-target model on demand, caching the model of each build target once it has been fetched.
+ *
+ * @param <M> the type of model fetched for each build target
+ * @see FetchCache
+ */
+public class TargetModelCache<M> extends FetchCache<URI, M> {
+    /**
+     * @param fetcher the function which fetches the models of a set of build targets, omitting any targets without a model
+     */
+    public TargetModelCache(Function<Set<URI>, CompletableFuture<Map<URI, M>>> fetcher) {
+        super(fetcher);
+    }
+
+    /**
+     * Get the models of the given build targets, fetching any targets which have not been fetched before.
+     *
+     * @param targetUris the URIs of the build targets
+     * @return the model of each build target that has one, in the order the targets were given
+     */
+    public CompletableFuture<Map<URI, M>> modelsFor(Collection<URI> targetUris) {
+        return get(targetUris);
+    }
+}
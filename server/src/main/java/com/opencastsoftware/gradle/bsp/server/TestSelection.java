@@ -0,0 +1,200 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.ScalaTestParams;
+import ch.epfl.scala.bsp4j.ScalaTestSuites;
+import ch.epfl.scala.bsp4j.TestParams;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import org.gradle.tooling.TestLauncher;
+
+import java.net.URI;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The test classes and methods selected by a {@code buildTarget/test} request.
+ * <p>
+ * Selections are read from the {@link TestParams} data, which may use any of the test data kinds
+ * defined by the Scala extension of the protocol. Test classes without any selected methods run
+ * every test in the class, and build targets without any selected test classes run their whole test suite.
+ */
+public class TestSelection {
+    static final String SCALA_TEST = "scala-test";
+    static final String SCALA_TEST_SUITES = "scala-test-suites";
+    static final String SCALA_TEST_SUITES_SELECTION = "scala-test-suites-selection";
+
+    private static final Gson gson = new Gson();
+
+    // Test class names and selected methods by build target, sorted for a stable build key
+    private final SortedMap<URI, SortedMap<String, SortedSet<String>>> selectedTests;
+
+    private TestSelection(SortedMap<URI, SortedMap<String, SortedSet<String>>> selectedTests) {
+        this.selectedTests = selectedTests;
+    }
+
+    private static <T> T dataAs(Object data, Class<T> dataClass) {
+        if (dataClass.isInstance(data)) {
+            return dataClass.cast(data);
+        } else if (data instanceof JsonElement) {
+            return gson.fromJson((JsonElement) data, dataClass);
+        } else {
+            return gson.fromJson(gson.toJsonTree(data), dataClass);
+        }
+    }
+
+    private static List<String> classNamesOf(Object data) {
+        var classNamesType = new TypeToken<List<String>>() {}.getType();
+        var jsonData = data instanceof JsonElement ? (JsonElement) data : gson.toJsonTree(data);
+        return gson.fromJson(jsonData, classNamesType);
+    }
+
+    /**
+     * Read the test selection from the data of a test request.
+     *
+     * @param params     the parameters of the test request
+     * @param targetUris the build targets to test
+     * @return the selected tests, or an empty {@link Optional} when the whole test suite should run,
+     * which is also the case when the data does not select any test classes
+     * @throws IllegalArgumentException if the request uses an unsupported data kind
+     */
+    public static Optional<TestSelection> from(TestParams params, List<URI> targetUris) {
+        var dataKind = params.getDataKind();
+        var data = params.getData();
+
+        if (dataKind == null || data == null) {
+            return Optional.empty();
+        }
+
+        var selectedTests = new TreeMap<URI, SortedMap<String, SortedSet<String>>>();
+
+        switch (dataKind) {
+            case SCALA_TEST:
+                var scalaTestParams = dataAs(data, ScalaTestParams.class);
+                targetUris.forEach(targetUri -> selectedTests.put(targetUri, new TreeMap<>()));
+                Optional.ofNullable(scalaTestParams.getTestClasses()).orElse(List.of()).forEach(item -> {
+                    if (item.getTarget() == null) {
+                        return;
+                    }
+                    // Items can only narrow down the tests of the requested build targets
+                    var targetTests = selectedTests.get(URI.create(item.getTarget().getUri()));
+                    if (targetTests == null) {
+                        return;
+                    }
+                    Optional.ofNullable(item.getClasses()).orElse(List.of())
+                            .forEach(className -> targetTests.computeIfAbsent(className, c -> new TreeSet<>()));
+                });
+                break;
+            case SCALA_TEST_SUITES:
+                var classNames = Optional.ofNullable(classNamesOf(data)).orElse(List.of());
+                targetUris.forEach(targetUri -> {
+                    var targetTests = selectedTests.computeIfAbsent(targetUri, t -> new TreeMap<>());
+                    classNames.forEach(className -> targetTests.computeIfAbsent(className, c -> new TreeSet<>()));
+                });
+                break;
+            case SCALA_TEST_SUITES_SELECTION:
+                var scalaTestSuites = dataAs(data, ScalaTestSuites.class);
+                targetUris.forEach(targetUri -> {
+                    var targetTests = selectedTests.computeIfAbsent(targetUri, t -> new TreeMap<>());
+                    Optional.ofNullable(scalaTestSuites.getSuites()).orElse(List.of()).forEach(suite -> {
+                        var methods = targetTests.computeIfAbsent(suite.getClassName(), c -> new TreeSet<>());
+                        Optional.ofNullable(suite.getTests()).ifPresent(methods::addAll);
+                    });
+                });
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported test data kind " + dataKind);
+        }
+
+        var selectsTestClasses = selectedTests.values().stream().anyMatch(targetTests -> !targetTests.isEmpty());
+
+        return selectsTestClasses ? Optional.of(new TestSelection(selectedTests)) : Optional.empty();
+    }
+
+    /**
+     * @return the build targets to test, including those which run their whole test suite
+     */
+    public Set<URI> targets() {
+        return Collections.unmodifiableSet(selectedTests.keySet());
+    }
+
+    /**
+     * @param targetUri the build target
+     * @return the test class names and selected methods of the given build target,
+     * which are empty when the whole test suite of the target should run
+     */
+    public SortedMap<String, SortedSet<String>> testsFor(URI targetUri) {
+        return Collections.unmodifiableSortedMap(selectedTests.getOrDefault(targetUri, new TreeMap<>()));
+    }
+
+    /**
+     * Get the key which distinguishes this selection when deduplicating test builds.
+     *
+     * @return a stable description of the selected tests
+     */
+    public String key() {
+        return selectedTests.entrySet().stream()
+                .flatMap(targetEntry -> {
+                    if (targetEntry.getValue().isEmpty()) {
+                        return Stream.of(targetEntry.getKey().toString());
+                    }
+                    return targetEntry.getValue().entrySet().stream().map(classEntry -> {
+                        var classKey = targetEntry.getKey() + "#" + classEntry.getKey();
+                        return classEntry.getValue().isEmpty() ? classKey : classKey + "#" + String.join(",", classEntry.getValue());
+                    });
+                })
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Configure a test launcher to run the selected tests.
+     *
+     * @param launcher          the launcher to configure
+     * @param testTasksByTarget the test tasks of each build target
+     * @return the configured launcher
+     */
+    public TestLauncher applyTo(TestLauncher launcher, Map<URI, ? extends Collection<String>> testTasksByTarget) {
+        var configured = launcher;
+        var wholeSuiteTasks = new LinkedHashSet<String>();
+
+        for (var targetEntry : selectedTests.entrySet()) {
+            var testTasks = testTasksByTarget.get(targetEntry.getKey());
+
+            if (testTasks == null) {
+                continue;
+            }
+
+            if (targetEntry.getValue().isEmpty()) {
+                wholeSuiteTasks.addAll(testTasks);
+                continue;
+            }
+
+            for (var testTask : testTasks) {
+                var wholeClasses = new ArrayList<String>();
+
+                for (var classEntry : targetEntry.getValue().entrySet()) {
+                    if (classEntry.getValue().isEmpty()) {
+                        wholeClasses.add(classEntry.getKey());
+                    } else {
+                        configured = configured.withTaskAndTestMethods(testTask, classEntry.getKey(), classEntry.getValue());
+                    }
+                }
+
+                if (!wholeClasses.isEmpty()) {
+                    configured = configured.withTaskAndTestClasses(testTask, wholeClasses);
+                }
+            }
+        }
+
+        if (!wholeSuiteTasks.isEmpty()) {
+            configured = configured.forTasks(wholeSuiteTasks.toArray(String[]::new));
+        }
+
+        return configured;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.model.BspWorkspace;
+import com.opencastsoftware.gradle.bsp.server.util.BuildInputs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persists the most recently imported workspace model under the {@code .bsp} directory of the project.
+ * <p>
+ * Each cache entry records the server version and the hash of the build inputs that the model was imported from.
+ * The entry is only used if both of these still match when the server starts.
+ */
+public class WorkspaceCache {
+    private static final Logger logger = LoggerFactory.getLogger(WorkspaceCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final ObjectInputFilter MODEL_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=32;java.lang.*;java.util.*;java.net.URI;com.opencastsoftware.gradle.bsp.model.*;!*");
+
+    private final Path projectRoot;
+    private final Path cacheFile;
+
+    public WorkspaceCache(Path projectRoot) {
+        this.projectRoot = projectRoot;
+        this.cacheFile = projectRoot.resolve(".bsp").resolve("gradle-bsp").resolve("workspace.bin");
+    }
+
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Load the cached workspace model, if it was imported by this version of the server
+     * from build inputs identical to the current ones.
+     *
+     * @return the cached workspace snapshot, or an empty {@link Optional} if there is no valid cache entry
+     */
+    public Optional<WorkspaceSnapshot> load() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+
+        try (var input = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(cacheFile))))) {
+            input.setObjectInputFilter(MODEL_FILTER);
+
+            var formatVersion = input.readInt();
+            var serverVersion = input.readUTF();
+            var inputsHash = input.readUTF();
+
+            if (formatVersion != FORMAT_VERSION || !BuildInfo.version.equals(serverVersion)) {
+                logger.info("Ignoring workspace model cache written by server version {}", serverVersion);
+                return Optional.empty();
+            }
+
+            var workspace = (BspWorkspace) input.readObject();
+
+            if (!inputsHash.equals(BuildInputs.hashOf(projectRoot, workspace))) {
+                logger.info("Ignoring workspace model cache as the build inputs have changed");
+                return Optional.empty();
+            }
+
+            return Optional.of(WorkspaceSnapshot.of(workspace, inputsHash));
+        } catch (IOException | UncheckedIOException | ClassNotFoundException | ClassCastException e) {
+            logger.warn("Unable to read workspace model cache {}", cacheFile, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replace the cached workspace model.
+     * <p>
+     * The cache file is written atomically, so that a concurrently starting server never observes a partial entry.
+     *
+     * @param snapshot the workspace snapshot to persist, whose model must consist of our own serializable model classes
+     */
+    public void save(WorkspaceSnapshot snapshot) {
+        try {
+            Files.createDirectories(cacheFile.getParent());
+
+            var tempFile = Files.createTempFile(cacheFile.getParent(), "workspace", ".tmp");
+
+            try {
+                try (var output = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile))))) {
+                    output.writeInt(FORMAT_VERSION);
+                    output.writeUTF(BuildInfo.version);
+                    output.writeUTF(snapshot.inputsHash());
+                    output.writeObject(snapshot.workspace());
+                }
+
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write workspace model cache {}", cacheFile, e);
+        }
+    }
+}
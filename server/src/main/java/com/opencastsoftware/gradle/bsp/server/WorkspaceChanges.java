@@ -0,0 +1,132 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.BuildTargetEvent;
+import ch.epfl.scala.bsp4j.BuildTargetEventKind;
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import com.opencastsoftware.gradle.bsp.model.BspDependencyModule;
+import com.opencastsoftware.gradle.bsp.model.BspWorkspace;
+import com.opencastsoftware.gradle.bsp.server.util.Conversions;
+
+import java.net.URI;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes the build targets which were created, changed or deleted between two workspace models.
+ * <p>
+ * Each build target is reduced to a fingerprint of plain values covering the target itself, its sources,
+ * resources, output paths, dependency modules and task mappings, so that models fetched by different Tooling API
+ * connections can be compared reliably.
+ */
+public class WorkspaceChanges {
+    private WorkspaceChanges() {
+    }
+
+    private static List<Object> fingerprintOf(BspDependencyModule module) {
+        var mavenData = module.mavenData();
+
+        var mavenFingerprint = mavenData == null ? null : Arrays.asList(
+                mavenData.organization(),
+                mavenData.scope(),
+                Stream.ofNullable(mavenData.artifacts())
+                        .flatMap(Collection::stream)
+                        .map(artifact -> Arrays.asList(artifact.uri(), artifact.classifier()))
+                        .collect(Collectors.toSet()));
+
+        return Arrays.asList(module.name(), module.version(), module.dataKind(), mavenFingerprint);
+    }
+
+    static Map<URI, List<Object>> fingerprintsOf(BspWorkspace workspace) {
+        var sources = workspace.buildTargetSources().getSources();
+        var resources = workspace.buildTargetResources().getResources();
+        var outputPaths = workspace.buildTargetOutputPaths().getOutputPaths();
+        var dependencyModules = workspace.buildTargetDependencies().dependencyModules();
+        var compileTasks = workspace.compileTasks().getCompileTasks();
+        var testTasks = workspace.testTasks().getTestTasks();
+        var runTasks = workspace.runTasks().getRunTasks();
+        var cleanTasks = workspace.cleanTasks().getCleanTasks();
+
+        var fingerprints = new HashMap<URI, List<Object>>();
+
+        workspace.buildTargets().forEach(target -> {
+            var targetUri = target.id().uri();
+
+            var targetSources = Stream.ofNullable(sources.get(targetUri))
+                    .flatMap(Collection::stream)
+                    .map(sourceItem -> List.of(sourceItem.uri(), Boolean.TRUE.equals(sourceItem.generated())))
+                    .collect(Collectors.toSet());
+
+            var targetResources = Stream.ofNullable(resources.get(targetUri))
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+
+            var targetOutputPaths = Stream.ofNullable(outputPaths.get(targetUri))
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+
+            var targetDependencies = Stream.ofNullable(dependencyModules.get(targetUri))
+                    .flatMap(Collection::stream)
+                    .map(WorkspaceChanges::fingerprintOf)
+                    .collect(Collectors.toSet());
+
+            var fingerprint = Arrays.asList(
+                    Conversions.toBspBuildTarget(target),
+                    targetSources,
+                    targetResources,
+                    targetOutputPaths,
+                    targetDependencies,
+                    compileTasks.get(targetUri),
+                    testTasks.get(targetUri),
+                    runTasks.get(targetUri),
+                    cleanTasks.get(targetUri));
+
+            fingerprints.put(targetUri, fingerprint);
+        });
+
+        return fingerprints;
+    }
+
+    private static BuildTargetEvent eventFor(URI targetUri, BuildTargetEventKind kind) {
+        var event = new BuildTargetEvent(new BuildTargetIdentifier(targetUri.toString()));
+        event.setKind(kind);
+        return event;
+    }
+
+    /**
+     * Compute the changes between two workspace models.
+     *
+     * @param previous the workspace model that is being replaced
+     * @param current  the newly loaded workspace model
+     * @return the events describing each created, changed or deleted build target, ordered by target URI
+     */
+    public static List<BuildTargetEvent> between(BspWorkspace previous, BspWorkspace current) {
+        var previousFingerprints = fingerprintsOf(previous);
+        var currentFingerprints = fingerprintsOf(current);
+
+        var targetUris = new TreeSet<URI>();
+        targetUris.addAll(previousFingerprints.keySet());
+        targetUris.addAll(currentFingerprints.keySet());
+
+        var events = new ArrayList<BuildTargetEvent>();
+
+        targetUris.forEach(targetUri -> {
+            var previousFingerprint = previousFingerprints.get(targetUri);
+            var currentFingerprint = currentFingerprints.get(targetUri);
+
+            if (previousFingerprint == null) {
+                events.add(eventFor(targetUri, BuildTargetEventKind.CREATED));
+            } else if (currentFingerprint == null) {
+                events.add(eventFor(targetUri, BuildTargetEventKind.DELETED));
+            } else if (!previousFingerprint.equals(currentFingerprint)) {
+                events.add(eventFor(targetUri, BuildTargetEventKind.CHANGED));
+            }
+        });
+
+        return events;
+    }
+}
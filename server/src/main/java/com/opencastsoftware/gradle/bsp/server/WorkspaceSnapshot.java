@@ -0,0 +1,138 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.BuildTarget;
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import ch.epfl.scala.bsp4j.DependencyModule;
+import ch.epfl.scala.bsp4j.DependencyModulesItem;
+import com.opencastsoftware.gradle.bsp.model.BspBuildTarget;
+import com.opencastsoftware.gradle.bsp.model.BspDependencyModule;
+import com.opencastsoftware.gradle.bsp.model.BspWorkspace;
+import com.opencastsoftware.gradle.bsp.server.util.Conversions;
+import com.opencastsoftware.gradle.bsp.server.util.SourcePathIndex;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A workspace model together with the indexes derived from it.
+ * <p>
+ * A new snapshot is created each time a workspace model is loaded, so that the derived data is always
+ * replaced atomically along with the model it was built from.
+ */
+public class WorkspaceSnapshot {
+    private final BspWorkspace workspace;
+    private final String inputsHash;
+    private final SourcePathIndex sourcePathIndex;
+    private final ConcurrentMap<Set<String>, List<BuildTarget>> buildTargetsByLanguage = new ConcurrentHashMap<>();
+    private final ConcurrentMap<BspDependencyModule, DependencyModule> dependencyModules = new ConcurrentHashMap<>();
+    private final ConcurrentMap<URI, DependencyModulesItem> dependencyModulesByTarget = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TargetModelCache<?>> targetModels = new ConcurrentHashMap<>();
+
+    private WorkspaceSnapshot(BspWorkspace workspace, String inputsHash) {
+        this.workspace = workspace;
+        this.inputsHash = inputsHash;
+        this.sourcePathIndex = SourcePathIndex.of(workspace);
+    }
+
+    public BspWorkspace workspace() {
+        return workspace;
+    }
+
+    /**
+     * Get the hash of the build inputs that the workspace model was imported from.
+     *
+     * @return a hex-encoded SHA-256 hash
+     * @see com.opencastsoftware.gradle.bsp.server.util.BuildInputs#hashOf
+     */
+    public String inputsHash() {
+        return inputsHash;
+    }
+
+    public SourcePathIndex sourcePathIndex() {
+        return sourcePathIndex;
+    }
+
+    private List<BuildTarget> convertBuildTargets(Set<String> languageIds) {
+        return workspace.buildTargets().stream()
+                .filter(target -> hasLanguageIn(target, languageIds))
+                .map(Conversions::toBspBuildTarget)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private static boolean hasLanguageIn(BspBuildTarget target, Set<String> languageIds) {
+        return target.languageIds().stream().anyMatch(languageIds::contains);
+    }
+
+    /**
+     * Get the BSP build targets which contain any of the given languages.
+     * <p>
+     * The converted targets are cached for each distinct set of languages, so repeated requests
+     * from the same client return the same prebuilt list.
+     *
+     * @param languageIds the languages supported by the client
+     * @return an immutable list of BSP build targets
+     */
+    public List<BuildTarget> buildTargetsFor(Set<String> languageIds) {
+        return buildTargetsByLanguage.computeIfAbsent(Set.copyOf(languageIds), this::convertBuildTargets);
+    }
+
+    private DependencyModule convertDependencyModule(BspDependencyModule dependencyModule) {
+        return dependencyModules.computeIfAbsent(dependencyModule, Conversions::toBspDependencyModule);
+    }
+
+    private DependencyModulesItem convertDependencyModules(URI targetUri) {
+        var targetModules = workspace.buildTargetDependencies().dependencyModules().get(targetUri);
+
+        var modules = Stream.ofNullable(targetModules)
+                .flatMap(Collection::stream)
+                .map(this::convertDependencyModule)
+                .collect(Collectors.toUnmodifiableList());
+
+        return new DependencyModulesItem(new BuildTargetIdentifier(targetUri.toString()), modules);
+    }
+
+    /**
+     * Get the BSP dependency modules of a build target.
+     * <p>
+     * Each distinct dependency module is converted only once, and the converted module is shared
+     * by every build target which depends upon it.
+     *
+     * @param targetUri the URI of the build target
+     * @return the dependency modules of the build target
+     */
+    public DependencyModulesItem dependencyModulesFor(URI targetUri) {
+        return dependencyModulesByTarget.computeIfAbsent(targetUri, this::convertDependencyModules);
+    }
+
+    /**
+     * Get the cache of a model which is fetched for individual build targets on demand.
+     * <p>
+     * The cached models belong to this snapshot, so they are discarded when the workspace model is reloaded.
+     *
+     * @param modelKey the key which identifies the model
+     * @param fetcher  the function which fetches the model for a set of build targets
+     * @param <M>      the type of model fetched for each build target
+     * @return the cache of the model identified by {@code modelKey}
+     */
+    @SuppressWarnings("unchecked")
+    public <M> TargetModelCache<M> targetModels(String modelKey, Function<Set<URI>, CompletableFuture<Map<URI, M>>> fetcher) {
+        return (TargetModelCache<M>) targetModels.computeIfAbsent(modelKey, key -> new TargetModelCache<>(fetcher));
+    }
+
+    public static WorkspaceSnapshot of(BspWorkspace workspace, String inputsHash) {
+        return new WorkspaceSnapshot(workspace, inputsHash);
+    }
+}
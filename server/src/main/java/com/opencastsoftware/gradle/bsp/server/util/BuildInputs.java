@@ -0,0 +1,180 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import com.opencastsoftware.gradle.bsp.model.BspBuildTarget;
+import com.opencastsoftware.gradle.bsp.model.BspWorkspace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The files which can affect the workspace model of a Gradle build: settings and build scripts,
+ * {@code gradle.properties}, version catalogs and the contents of {@code buildSrc}.
+ */
+public class BuildInputs {
+    private static final Set<String> BUILD_FILE_NAMES = Set.of(
+            "settings.gradle", "settings.gradle.kts",
+            "build.gradle", "build.gradle.kts",
+            "gradle.properties");
+
+    private static final Set<String> BUILD_SRC_OUTPUT_NAMES = Set.of("build", ".gradle");
+
+    private BuildInputs() {
+    }
+
+    private static Path buildSrcOf(Path projectRoot) {
+        return projectRoot.resolve("buildSrc");
+    }
+
+    private static boolean isBuildSrcOutput(Path buildSrc, Path path) {
+        return path.startsWith(buildSrc) &&
+                !path.equals(buildSrc) &&
+                BUILD_SRC_OUTPUT_NAMES.contains(buildSrc.relativize(path).getName(0).toString());
+    }
+
+    /**
+     * Determine whether a file may affect the workspace model.
+     *
+     * @param projectRoot the root directory of the Gradle build
+     * @param path        the path of a file within the build
+     * @return whether a change to this file should cause the workspace model to be reloaded
+     */
+    public static boolean isBuildInput(Path projectRoot, Path path) {
+        var normalizedPath = path.toAbsolutePath().normalize();
+        var normalizedRoot = projectRoot.toAbsolutePath().normalize();
+        var buildSrc = buildSrcOf(normalizedRoot);
+        var fileName = normalizedPath.getFileName();
+
+        if (fileName == null) {
+            return false;
+        } else if (normalizedPath.startsWith(buildSrc)) {
+            return !isBuildSrcOutput(buildSrc, normalizedPath);
+        } else if (BUILD_FILE_NAMES.contains(fileName.toString())) {
+            return true;
+        } else {
+            return normalizedRoot.resolve("gradle").equals(normalizedPath.getParent()) &&
+                    fileName.toString().endsWith(".toml");
+        }
+    }
+
+    private static Stream<Path> buildSrcDirectoriesOf(Path projectRoot) {
+        var buildSrc = buildSrcOf(projectRoot);
+
+        if (!Files.isDirectory(buildSrc)) {
+            return Stream.empty();
+        }
+
+        try (var paths = Files.walk(buildSrc)) {
+            return paths
+                    .filter(Files::isDirectory)
+                    .filter(path -> !isBuildSrcOutput(buildSrc, path))
+                    .collect(Collectors.toList())
+                    .stream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the directories which must be watched in order to observe changes to build inputs.
+     *
+     * @param projectRoot the root directory of the Gradle build
+     * @param workspace   the current workspace model, used to find the directory of each project,
+     *                    or {@code null} if no model has been loaded yet
+     * @return the existing directories containing build inputs
+     */
+    public static Set<Path> directoriesOf(Path projectRoot, BspWorkspace workspace) {
+        var normalizedRoot = projectRoot.toAbsolutePath().normalize();
+
+        var projectDirectories = Stream.ofNullable(workspace)
+                .flatMap(ws -> ws.buildTargets().stream())
+                .map(BspBuildTarget::baseDirectory)
+                // The base directory of a build target is optional
+                .filter(Objects::nonNull)
+                .map(Paths::get)
+                .map(Path::normalize);
+
+        return Stream.of(
+                        Stream.of(normalizedRoot, normalizedRoot.resolve("gradle")),
+                        projectDirectories,
+                        buildSrcDirectoriesOf(normalizedRoot))
+                .flatMap(directories -> directories)
+                .filter(Files::isDirectory)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Get the build input files of a Gradle build.
+     *
+     * @param projectRoot the root directory of the Gradle build
+     * @param workspace   the current workspace model, or {@code null} if no model has been loaded yet
+     * @return the existing build input files, in a stable order
+     */
+    public static List<Path> filesOf(Path projectRoot, BspWorkspace workspace) {
+        return directoriesOf(projectRoot, workspace).stream()
+                .flatMap(directory -> {
+                    try (var paths = Files.list(directory)) {
+                        return paths
+                                .filter(Files::isRegularFile)
+                                .filter(path -> isBuildInput(projectRoot, path))
+                                .collect(Collectors.toList())
+                                .stream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Compute a content hash of the build input files of a Gradle build.
+     * <p>
+     * The hash covers the path of each file relative to the project root as well as its contents,
+     * so that adding, removing or renaming a build input also changes the hash.
+     *
+     * @param projectRoot the root directory of the Gradle build
+     * @param workspace   the current workspace model, or {@code null} if no model has been loaded yet
+     * @return a hex-encoded SHA-256 hash
+     */
+    public static String hashOf(Path projectRoot, BspWorkspace workspace) {
+        var normalizedRoot = projectRoot.toAbsolutePath().normalize();
+
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+
+            for (var file : filesOf(normalizedRoot, workspace)) {
+                digest.update(normalizedRoot.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(file));
+                digest.update((byte) 0);
+            }
+
+            var hash = new StringBuilder();
+            for (var b : digest.digest()) {
+                hash.append(String.format("%02x", b));
+            }
+
+            return hash.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,14 +6,16 @@ package com.opencastsoftware.gradle.bsp.server.util;
 
 import ch.epfl.scala.bsp4j.*;
 import com.opencastsoftware.gradle.bsp.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
-import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 
 public class Conversions {
+    private static final Logger logger = LoggerFactory.getLogger(Conversions.class);
+
     public static BuildTargetIdentifier toBspBuildTargetId(BspBuildTargetId targetId) {
         return new BuildTargetIdentifier(targetId.uri().toString());
     }
@@ -46,59 +48,147 @@ public class Conversions {
             bspTarget.setBaseDirectory(buildTarget.baseDirectory().toString());
         }
 
-        if (buildTarget.dataKind() != null && buildTarget.data() != null) {
+        if (buildTarget.dataKind() != null) {
             var dataKind = buildTarget.dataKind();
-            var data = buildTarget.data();
 
-            bspTarget.setDataKind(buildTarget.dataKind());
-            // Tooling API classes are loaded into a different classloader,
-            // which makes this whole process a total nightmare
+            // The Tooling API can only adapt the data of a build target to our model classes
+            // when it is accessed via a method whose return type is one of our model interfaces
             if (dataKind.equals("jvm")) {
-                bspTarget.setData(Conversions.toBspJvmBuildTarget(data));
+                var jvmData = buildTarget.jvmData();
+                if (jvmData != null) {
+                    bspTarget.setDataKind(dataKind);
+                    bspTarget.setData(Conversions.toBspJvmBuildTarget(jvmData));
+                } else {
+                    logger.warn("Build target {} has data kind {} but no JVM data", buildTarget.id().uri(), dataKind);
+                }
             } else if (dataKind.equals("scala")) {
-                bspTarget.setData(Conversions.toBspScalaBuildTarget(data));
-            } else {
-                bspTarget.setData(data);
+                var scalaData = buildTarget.scalaData();
+                if (scalaData != null) {
+                    bspTarget.setDataKind(dataKind);
+                    bspTarget.setData(Conversions.toBspScalaBuildTarget(scalaData));
+                } else {
+                    logger.warn("Build target {} has data kind {} but no Scala data", buildTarget.id().uri(), dataKind);
+                }
+            } else if (buildTarget.data() != null) {
+                bspTarget.setDataKind(dataKind);
+                bspTarget.setData(buildTarget.data());
             }
         }
 
         return bspTarget;
     }
 
-    public static JvmBuildTarget toBspJvmBuildTarget(Serializable data) {
-        try {
-            var bspJvmBuildTarget = new JvmBuildTarget();
-            var javaHomeMethod = data.getClass().getDeclaredMethod("javaHome");
-            var javaVersionMethod = data.getClass().getDeclaredMethod("javaVersion");
-            bspJvmBuildTarget.setJavaHome(javaHomeMethod.invoke(data).toString());
-            bspJvmBuildTarget.setJavaVersion((String) javaVersionMethod.invoke(data));
-            return bspJvmBuildTarget;
-        } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-            return null;
+    public static MavenDependencyModuleArtifact toBspMavenDependencyModuleArtifact(BspMavenDependencyModuleArtifact artifact) {
+        var bspArtifact = new MavenDependencyModuleArtifact(artifact.uri().toString());
+        bspArtifact.setClassifier(artifact.classifier());
+        return bspArtifact;
+    }
+
+    public static MavenDependencyModule toBspMavenDependencyModule(BspMavenDependencyModule mavenModule) {
+        var bspMavenModule = new MavenDependencyModule(
+                mavenModule.organization(),
+                mavenModule.name(),
+                mavenModule.version(),
+                mavenModule.artifacts().stream()
+                        .map(Conversions::toBspMavenDependencyModuleArtifact)
+                        .collect(Collectors.toList())
+        );
+
+        bspMavenModule.setScope(mavenModule.scope());
+
+        return bspMavenModule;
+    }
+
+    public static DependencyModule toBspDependencyModule(BspDependencyModule dependencyModule) {
+        var bspModule = new DependencyModule(dependencyModule.name(), dependencyModule.version());
+
+        if ("maven".equals(dependencyModule.dataKind())) {
+            var mavenData = dependencyModule.mavenData();
+            if (mavenData != null) {
+                bspModule.setDataKind(DependencyModuleDataKind.MAVEN);
+                bspModule.setData(Conversions.toBspMavenDependencyModule(mavenData));
+            }
+        }
+
+        return bspModule;
+    }
+
+    public static JvmBuildTarget toBspJvmBuildTarget(BspJvmBuildTarget jvmBuildTarget) {
+        var bspJvmBuildTarget = new JvmBuildTarget();
+        if (jvmBuildTarget.javaHome() != null) {
+            bspJvmBuildTarget.setJavaHome(jvmBuildTarget.javaHome().toString());
         }
+        bspJvmBuildTarget.setJavaVersion(jvmBuildTarget.javaVersion());
+        return bspJvmBuildTarget;
     }
 
-    public static ScalaPlatform toBspScalaPlatform(Object scalaPlatform) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
-        var valueMethod = scalaPlatform.getClass().getDeclaredMethod("value");
-        return ScalaPlatform.forValue((Integer) valueMethod.invoke(scalaPlatform));
+    public static ScalaPlatform toBspScalaPlatform(BspScalaPlatform scalaPlatform) {
+        return ScalaPlatform.forValue(scalaPlatform.value());
     }
 
-    public static ScalaBuildTarget toBspScalaBuildTarget(Serializable data) {
-        try {
-            var scalaOrgMethod = data.getClass().getDeclaredMethod("scalaOrganization");
-            var scalaVersionMethod = data.getClass().getDeclaredMethod("scalaVersion");
-            var scalaBinaryVersionMethod = data.getClass().getDeclaredMethod("scalaBinaryVersion");
-            var scalaPlatformMethod = data.getClass().getDeclaredMethod("scalaPlatform");
-            var jarsMethod = data.getClass().getMethod("jars");
-            return new ScalaBuildTarget(
-                    (String) scalaOrgMethod.invoke(data),
-                    (String) scalaVersionMethod.invoke(data),
-                    (String) scalaBinaryVersionMethod.invoke(data),
-                    Conversions.toBspScalaPlatform(scalaPlatformMethod.invoke(data)),
-                    Arrays.stream((URI[]) jarsMethod.invoke(data)).map(URI::toString).collect(Collectors.toList())
-            );
-        } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-            return null;
+    public static ScalaBuildTarget toBspScalaBuildTarget(BspScalaBuildTarget scalaBuildTarget) {
+        var bspScalaBuildTarget = new ScalaBuildTarget(
+                scalaBuildTarget.scalaOrganization(),
+                scalaBuildTarget.scalaVersion(),
+                scalaBuildTarget.scalaBinaryVersion(),
+                Conversions.toBspScalaPlatform(scalaBuildTarget.scalaPlatform()),
+                scalaBuildTarget.jars().stream().map(URI::toString).collect(Collectors.toList())
+        );
+
+        if (scalaBuildTarget.jvmBuildTarget() != null) {
+            bspScalaBuildTarget.setJvmBuildTarget(Conversions.toBspJvmBuildTarget(scalaBuildTarget.jvmBuildTarget()));
         }
+
+        return bspScalaBuildTarget;
+    }
+
+    public static JvmEnvironmentItem toBspJvmEnvironmentItem(URI targetUri, BspJvmEnvironment jvmEnvironment) {
+        var bspJvmEnvironment = new JvmEnvironmentItem(
+                new BuildTargetIdentifier(targetUri.toString()),
+                jvmEnvironment.classpath().stream().map(URI::toString).collect(Collectors.toList()),
+                jvmEnvironment.jvmOptions(),
+                jvmEnvironment.workingDirectory().toString(),
+                jvmEnvironment.environmentVariables()
+        );
+
+        if (!jvmEnvironment.mainClasses().isEmpty()) {
+            bspJvmEnvironment.setMainClasses(jvmEnvironment.mainClasses().stream()
+                    .map(mainClass -> new JvmMainClass(mainClass, List.of()))
+                    .collect(Collectors.toList()));
+        }
+
+        return bspJvmEnvironment;
+    }
+
+    public static JavacOptionsItem toBspJavacOptionsItem(URI targetUri, BspCompilerOptions compilerOptions) {
+        return new JavacOptionsItem(
+                new BuildTargetIdentifier(targetUri.toString()),
+                compilerOptions.options(),
+                compilerOptions.classpath().stream().map(URI::toString).collect(Collectors.toList()),
+                compilerOptions.classDirectory().toString()
+        );
+    }
+
+    public static ScalacOptionsItem toBspScalacOptionsItem(URI targetUri, BspCompilerOptions compilerOptions) {
+        return new ScalacOptionsItem(
+                new BuildTargetIdentifier(targetUri.toString()),
+                compilerOptions.options(),
+                compilerOptions.classpath().stream().map(URI::toString).collect(Collectors.toList()),
+                compilerOptions.classDirectory().toString()
+        );
+    }
+
+    public static ScalaMainClassesItem toBspScalaMainClassesItem(URI targetUri, BspJvmEnvironment jvmEnvironment) {
+        var environmentVariables = jvmEnvironment.environmentVariables().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.toList());
+
+        var mainClasses = jvmEnvironment.mainClasses().stream().map(mainClass -> {
+            var scalaMainClass = new ScalaMainClass(mainClass, List.of(), jvmEnvironment.jvmOptions());
+            scalaMainClass.setEnvironmentVariables(environmentVariables);
+            return scalaMainClass;
+        }).collect(Collectors.toList());
+
+        return new ScalaMainClassesItem(new BuildTargetIdentifier(targetUri.toString()), mainClasses);
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in microseconds.
+ * <p>
+ * Each power of two is divided into {@value #SUB_BUCKETS} buckets, so recorded values are never more than 25% away
+ * from the values reported for them. Recording a value is a handful of atomic increments, which makes the
+ * histogram cheap enough to update on every request.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong(0);
+    private final AtomicLong sum = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+
+        var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+        var shift = exponent - SUB_BUCKET_BITS;
+        var subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        var shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        var subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    public void record(long latencyMicros) {
+        var micros = Math.max(0, latencyMicros);
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    public double getMeanMicros() {
+        var recorded = count.get();
+        return recorded == 0 ? 0 : (double) sum.get() / recorded;
+    }
+
+    /**
+     * Estimate a percentile of the recorded latencies.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket containing the percentile, or 0 if no latencies were recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        var recorded = count.get();
+
+        if (recorded == 0) {
+            return 0;
+        }
+
+        var rank = Math.max(1, (long) Math.ceil(recorded * percentile / 100.0));
+        var seen = 0L;
+
+        for (var bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max.get());
+            }
+        }
+
+        return max.get();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * An output stream which passes each line written to it to a consumer, without its line terminator.
+ * <p>
+ * This is used to read the output of Gradle builds, which can only be redirected to an {@link OutputStream}.
+ */
+public class LineOutputStream extends OutputStream {
+    private final Consumer<String> lineConsumer;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    public LineOutputStream(Consumer<String> lineConsumer) {
+        this.lineConsumer = lineConsumer;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        if (b == '\n') {
+            emitLine();
+        } else {
+            line.write(b);
+        }
+    }
+
+    private void emitLine() {
+        var text = line.toString(StandardCharsets.UTF_8);
+        line.reset();
+        lineConsumer.accept(text.endsWith("\r") ? text.substring(0, text.length() - 1) : text);
+    }
+
+    /**
+     * Pass on any unterminated line that was written before the stream was closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (line.size() > 0) {
+            emitLine();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers MXBeans with an {@link MBeanServer}, and unregisters all of them again when closed.
+ * <p>
+ * Registration failures are logged rather than thrown, as the server works just the same without its MXBeans.
+ */
+public class MBeanRegistry implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MBeanRegistry.class);
+
+    private final MBeanServer mbeanServer;
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    public MBeanRegistry(MBeanServer mbeanServer) {
+        this.mbeanServer = mbeanServer;
+    }
+
+    /**
+     * Register an MXBean.
+     *
+     * @param objectName the object name to register the MXBean under
+     * @param mxbean     the MXBean to register
+     */
+    public synchronized void register(String objectName, Object mxbean) {
+        try {
+            var name = new ObjectName(objectName);
+            mbeanServer.registerMBean(mxbean, name);
+            registered.add(name);
+        } catch (JMException e) {
+            logger.warn("Unable to register {}", objectName, e);
+        }
+    }
+
+    /**
+     * Unregister every MXBean that was registered by this registry.
+     */
+    @Override
+    public synchronized void close() {
+        for (var name : registered) {
+            try {
+                mbeanServer.unregisterMBean(name);
+            } catch (JMException e) {
+                logger.debug("Unable to unregister {}", name, e);
+            }
+        }
+
+        registered.clear();
+    }
+}
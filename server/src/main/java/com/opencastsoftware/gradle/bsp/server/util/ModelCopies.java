@@ -0,0 +1,196 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import com.opencastsoftware.gradle.bsp.model.*;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Copies workspace models fetched via the Tooling API into our own model classes.
+ * <p>
+ * The Tooling API returns dynamic proxies which are relatively expensive to access and cannot be serialized,
+ * so the server works with plain copies of the model instead.
+ */
+public class ModelCopies {
+    private ModelCopies() {
+    }
+
+    private static <A, B> List<B> copyList(List<A> list, Function<A, B> copyFn) {
+        return list == null ? null : list.stream().map(copyFn).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static <A, B> Set<B> copySet(Set<A> set, Function<A, B> copyFn) {
+        return set == null ? null : set.stream().map(copyFn).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static <K, A, B> Map<K, B> copyMap(Map<K, A> map, Function<A, B> copyFn) {
+        var copy = new LinkedHashMap<K, B>();
+        map.forEach((key, value) -> copy.put(key, copyFn.apply(value)));
+        return copy;
+    }
+
+    public static BspBuildTargetId copyOf(BspBuildTargetId targetId) {
+        return new DefaultBspBuildTargetId(targetId.uri());
+    }
+
+    public static BspBuildTargetCapabilities copyOf(BspBuildTargetCapabilities capabilities) {
+        return new DefaultBspBuildTargetCapabilities(
+                capabilities.canCompile(),
+                capabilities.canTest(),
+                capabilities.canRun(),
+                capabilities.canDebug());
+    }
+
+    public static BspJvmBuildTarget copyOf(BspJvmBuildTarget jvmBuildTarget) {
+        return jvmBuildTarget == null ? null : new DefaultBspJvmBuildTarget(
+                jvmBuildTarget.javaHome(),
+                jvmBuildTarget.javaVersion());
+    }
+
+    public static BspScalaBuildTarget copyOf(BspScalaBuildTarget scalaBuildTarget) {
+        return scalaBuildTarget == null ? null : new DefaultBspScalaBuildTarget(
+                scalaBuildTarget.scalaOrganization(),
+                scalaBuildTarget.scalaVersion(),
+                scalaBuildTarget.scalaBinaryVersion(),
+                scalaBuildTarget.scalaPlatform(),
+                copyList(scalaBuildTarget.jars(), Function.identity()),
+                copyOf(scalaBuildTarget.jvmBuildTarget()));
+    }
+
+    private static boolean isPlainValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Character ||
+                value instanceof Integer || value instanceof Long || value instanceof Double ||
+                value instanceof Float || value instanceof Short || value instanceof Byte || value instanceof URI) {
+            return true;
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).stream().allMatch(ModelCopies::isPlainValue);
+        } else if (value instanceof Map) {
+            return ((Map<?, ?>) value).entrySet().stream()
+                    .allMatch(entry -> isPlainValue(entry.getKey()) && isPlainValue(entry.getValue()));
+        } else {
+            return false;
+        }
+    }
+
+    private static Object copyPlainValue(Object value) {
+        if (value instanceof List) {
+            return copyList((List<?>) value, ModelCopies::copyPlainValue);
+        } else if (value instanceof Collection) {
+            return copySet(new LinkedHashSet<>((Collection<?>) value), ModelCopies::copyPlainValue);
+        } else if (value instanceof Map) {
+            var copy = new LinkedHashMap<Object, Object>();
+            ((Map<?, ?>) value).forEach((key, entryValue) -> copy.put(copyPlainValue(key), copyPlainValue(entryValue)));
+            return copy;
+        } else {
+            return value;
+        }
+    }
+
+    private static Serializable copyData(BspBuildTarget buildTarget) {
+        var dataKind = buildTarget.dataKind();
+
+        if ("jvm".equals(dataKind)) {
+            return copyOf(buildTarget.jvmData());
+        } else if ("scala".equals(dataKind)) {
+            return copyOf(buildTarget.scalaData());
+        }
+
+        // The Tooling API can only adapt data of other kinds when it consists of plain values such as strings,
+        // lists and maps, so any other data is not retained
+        var data = buildTarget.data();
+        return isPlainValue(data) ? (Serializable) copyPlainValue(data) : null;
+    }
+
+    public static BspBuildTarget copyOf(BspBuildTarget buildTarget) {
+        return new DefaultBspBuildTarget(
+                copyOf(buildTarget.id()),
+                buildTarget.displayName(),
+                buildTarget.baseDirectory(),
+                copyList(buildTarget.tags(), Function.identity()),
+                copyList(buildTarget.languageIds(), Function.identity()),
+                copyList(buildTarget.dependencies(), ModelCopies::copyOf),
+                copyOf(buildTarget.capabilities()),
+                buildTarget.dataKind(),
+                copyData(buildTarget));
+    }
+
+    public static BspSourceItem copyOf(BspSourceItem sourceItem) {
+        return new DefaultBspSourceItem(sourceItem.uri(), sourceItem.generated());
+    }
+
+    public static BspMavenDependencyModuleArtifact copyOf(BspMavenDependencyModuleArtifact artifact) {
+        return new DefaultBspMavenDependencyModuleArtifact(artifact.uri(), artifact.classifier());
+    }
+
+    public static BspMavenDependencyModule copyOf(BspMavenDependencyModule mavenModule) {
+        return new DefaultBspMavenDependencyModule(
+                mavenModule.organization(),
+                mavenModule.name(),
+                mavenModule.version(),
+                copySet(mavenModule.artifacts(), ModelCopies::copyOf),
+                mavenModule.scope());
+    }
+
+    public static BspDependencyModule copyOf(BspDependencyModule dependencyModule) {
+        var dataKind = dependencyModule.dataKind();
+        var mavenData = "maven".equals(dataKind) ? dependencyModule.mavenData() : null;
+
+        if (mavenData != null) {
+            return new DefaultBspDependencyModule(
+                    dependencyModule.name(),
+                    dependencyModule.version(),
+                    dataKind,
+                    copyOf(mavenData));
+        } else {
+            return new DefaultBspDependencyModule(dependencyModule.name(), dependencyModule.version());
+        }
+    }
+
+    public static BspDependencySources copyOf(BspDependencySources dependencySources) {
+        return new DefaultBspDependencySources(copyMap(dependencySources.getSources(), jars -> copySet(jars, Function.identity())));
+    }
+
+    public static BspJvmEnvironment copyOf(BspJvmEnvironment jvmEnvironment) {
+        return new DefaultBspJvmEnvironment(
+                copyList(jvmEnvironment.classpath(), Function.identity()),
+                copyList(jvmEnvironment.jvmOptions(), Function.identity()),
+                jvmEnvironment.workingDirectory(),
+                copyMap(jvmEnvironment.environmentVariables(), Function.identity()),
+                copyList(jvmEnvironment.mainClasses(), Function.identity()));
+    }
+
+    public static BspJvmEnvironments copyOf(BspJvmEnvironments jvmEnvironments) {
+        return new DefaultBspJvmEnvironments(copyMap(jvmEnvironments.getEnvironments(), ModelCopies::copyOf));
+    }
+
+    public static BspCompilerOptions copyOf(BspCompilerOptions compilerOptions) {
+        return new DefaultBspCompilerOptions(
+                copyList(compilerOptions.options(), Function.identity()),
+                copyList(compilerOptions.classpath(), Function.identity()),
+                compilerOptions.classDirectory());
+    }
+
+    public static BspBuildTargetCompilerOptions copyOf(BspBuildTargetCompilerOptions compilerOptions) {
+        return new DefaultBspBuildTargetCompilerOptions(copyMap(compilerOptions.getCompilerOptions(), ModelCopies::copyOf));
+    }
+
+    public static BspWorkspace copyOf(BspWorkspace workspace) {
+        return new DefaultBspWorkspace(
+                copyList(workspace.buildTargets(), ModelCopies::copyOf),
+                new DefaultBspCompileTasks(copyMap(workspace.compileTasks().getCompileTasks(), Function.identity())),
+                new DefaultBspTestTasks(copyMap(workspace.testTasks().getTestTasks(), tasks -> copySet(tasks, Function.identity()))),
+                new DefaultBspRunTasks(copyMap(workspace.runTasks().getRunTasks(), Function.identity())),
+                new DefaultBspCleanTasks(copyMap(workspace.cleanTasks().getCleanTasks(), Function.identity())),
+                new DefaultBspBuildTargetSources(copyMap(workspace.buildTargetSources().getSources(), items -> copySet(items, ModelCopies::copyOf))),
+                new DefaultBspBuildTargetResources(copyMap(workspace.buildTargetResources().getResources(), dirs -> copySet(dirs, Function.identity()))),
+                new DefaultBspBuildTargetOutputPaths(copyMap(workspace.buildTargetOutputPaths().getOutputPaths(), dirs -> copySet(dirs, Function.identity()))),
+                new DefaultBspDependencyModules(copyMap(workspace.buildTargetDependencies().dependencyModules(), modules -> copySet(modules, ModelCopies::copyOf))));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The executor which runs client requests.
+ * <p>
+ * At most {@code maxConcurrency} requests run at once, and at most {@code queueCapacity} further requests
+ * may wait to run. Any requests beyond that are rejected with a {@link RejectedExecutionException}.
+ * <p>
+ * The load on the executor can be observed via JMX by registering it as an MXBean named {@value #OBJECT_NAME}.
+ */
+public class RequestExecutor extends AbstractExecutorService implements RequestExecutorMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(RequestExecutor.class);
+
+    public static final String OBJECT_NAME = "com.opencastsoftware.gradle.bsp:type=RequestExecutor";
+
+    private final ExecutorService delegate;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final Semaphore permits;
+
+    private final AtomicInteger queuedRequests = new AtomicInteger(0);
+    private final AtomicInteger activeRequests = new AtomicInteger(0);
+    private final AtomicLong completedRequests = new AtomicLong(0);
+    private final AtomicLong rejectedRequests = new AtomicLong(0);
+
+    RequestExecutor(ExecutorService delegate, int maxConcurrency, int queueCapacity) {
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public static RequestExecutor create(int maxConcurrency, int queueCapacity) {
+        logger.info("Running at most {} requests at once using {}", maxConcurrency, RequestThreads.describe());
+        return new RequestExecutor(RequestThreads.newExecutor(maxConcurrency, logger), maxConcurrency, queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        var queued = queuedRequests.incrementAndGet();
+
+        // Only the requests beyond those that can run right away are counted against the queue
+        if (queued + activeRequests.get() > maxConcurrency + queueCapacity) {
+            queuedRequests.decrementAndGet();
+            rejectedRequests.incrementAndGet();
+            throw new RejectedExecutionException("Request queue is full");
+        }
+
+        try {
+            delegate.execute(() -> {
+                // Threads may be cheap, but the work done by each request is not
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    queuedRequests.decrementAndGet();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                queuedRequests.decrementAndGet();
+                activeRequests.incrementAndGet();
+
+                try {
+                    task.run();
+                } finally {
+                    activeRequests.decrementAndGet();
+                    completedRequests.incrementAndGet();
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedRequests.decrementAndGet();
+            rejectedRequests.incrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the number of requests waiting to run
+     */
+    @Override
+    public int getQueuedRequests() {
+        return queuedRequests.get();
+    }
+
+    /**
+     * @return the number of requests currently running
+     */
+    @Override
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    /**
+     * @return the number of requests which have finished running
+     */
+    @Override
+    public long getCompletedRequests() {
+        return completedRequests.get();
+    }
+
+    /**
+     * @return the number of requests which were rejected because the queue was full
+     */
+    @Override
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
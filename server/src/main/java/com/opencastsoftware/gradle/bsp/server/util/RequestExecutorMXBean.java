@@ -0,0 +1,22 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+/**
+ * The load on the request executor, as exposed via JMX so that its concurrency and queue limits can be tuned.
+ */
+public interface RequestExecutorMXBean {
+    int getMaxConcurrency();
+
+    int getQueueCapacity();
+
+    int getQueuedRequests();
+
+    int getActiveRequests();
+
+    long getCompletedRequests();
+
+    long getRejectedRequests();
+}
@@ -0,0 +1,43 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the threads that run client requests.
+ * <p>
+ * This is the Java 11 implementation, which uses a fixed number of platform threads.
+ * There is a Java 21 implementation in the {@code java21} source set which uses virtual threads.
+ */
+public class RequestThreads {
+    private RequestThreads() {
+    }
+
+    /**
+     * Create an executor for client requests.
+     * <p>
+     * The returned executor runs at most {@code maxConcurrency} tasks at once. Its queue is unbounded,
+     * so it is up to the caller to limit the number of queued tasks.
+     */
+    public static ExecutorService newExecutor(int maxConcurrency, Logger logger) {
+        var executor = new ThreadPoolExecutor(
+                maxConcurrency, maxConcurrency,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                DaemonThreadFactory.create(logger, "gradle-buildserver-%d"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static String describe() {
+        return "platform threads";
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import com.opencastsoftware.gradle.bsp.model.BspSourceItem;
+import com.opencastsoftware.gradle.bsp.model.BspWorkspace;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * A trie of directory path segments mapping source and resource directories to the build targets which own them.
+ * <p>
+ * Looking up the build targets containing a document costs O(path depth), regardless of the number of build targets
+ * in the workspace. Instances are immutable once built, so they can be shared freely between request threads.
+ */
+public class SourcePathIndex {
+    private final Node root = new Node();
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final Set<URI> targets = new LinkedHashSet<>();
+    }
+
+    private SourcePathIndex() {
+    }
+
+    private static List<String> segmentsOf(Path path) {
+        var normalizedPath = path.normalize();
+        var segments = new ArrayList<String>(normalizedPath.getNameCount() + 1);
+
+        var pathRoot = normalizedPath.getRoot();
+        if (pathRoot != null) {
+            segments.add(pathRoot.toString());
+        }
+
+        for (var name : normalizedPath) {
+            segments.add(name.toString());
+        }
+
+        return segments;
+    }
+
+    private void add(Path directory, URI target) {
+        var node = root;
+        for (var segment : segmentsOf(directory)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.targets.add(target);
+    }
+
+    /**
+     * Find the build targets which have a source or resource directory containing the given path.
+     *
+     * @param path the path of a document
+     * @return the matching build target URIs, ordered from the outermost to the innermost directory
+     */
+    public Set<URI> targetsContaining(Path path) {
+        var result = new LinkedHashSet<URI>();
+
+        var node = root;
+        for (var segment : segmentsOf(path)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                break;
+            }
+            result.addAll(node.targets);
+        }
+
+        return result;
+    }
+
+    public static SourcePathIndex of(BspWorkspace workspace) {
+        var index = new SourcePathIndex();
+
+        workspace.buildTargetSources().getSources().forEach((target, sourceItems) -> {
+            for (BspSourceItem sourceItem : sourceItems) {
+                index.add(Paths.get(sourceItem.uri()), target);
+            }
+        });
+
+        workspace.buildTargetResources().getResources().forEach((target, resourceDirs) -> {
+            for (URI resourceDir : resourceDirs) {
+                index.add(Paths.get(resourceDir), target);
+            }
+        });
+
+        return index;
+    }
+}
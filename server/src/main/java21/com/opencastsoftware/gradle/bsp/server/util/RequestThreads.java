@@ -0,0 +1,38 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the threads that run client requests.
+ * <p>
+ * This is the Java 21 implementation, which starts a virtual thread for each task.
+ */
+public class RequestThreads {
+    private RequestThreads() {
+    }
+
+    /**
+     * Create an executor for client requests.
+     * <p>
+     * Requests which are waiting to run block a virtual thread rather than a platform thread,
+     * so there is no need to limit the number of threads here.
+     */
+    public static ExecutorService newExecutor(int maxConcurrency, Logger logger) {
+        var threadFactory = Thread.ofVirtual()
+                .name("gradle-buildserver-", 0)
+                .uncaughtExceptionHandler((t, ex) -> logger.error("Uncaught exception in thread {}", t.getName(), ex))
+                .factory();
+        return Executors.newThreadPerTaskExecutor(threadFactory);
+    }
+
+    public static String describe() {
+        return "virtual threads";
+    }
+}
@@ -20,3 +20,16 @@ projectsEvaluated {
         apply<com.opencastsoftware.gradle.bsp.BspPlugin>()
     }
 }
+
+// Debug sessions for tests which can't be launched directly run the Gradle test task in a single suspended JVM
+val bspDebugAgent = gradle.startParameter.projectProperties["bsp.debug.agent"]
+
+if (bspDebugAgent != null) {
+    allprojects {
+        tasks.withType<Test>().configureEach {
+            maxParallelForks = 1
+            jvmArgs(bspDebugAgent)
+            outputs.upToDateWhen { false }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.*;
+import org.gradle.tooling.Failure;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
+import org.gradle.tooling.events.task.TaskStartEvent;
+import org.gradle.tooling.events.test.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BuildClientTestListenerTest {
+    private static final URI PROJECT_A = URI.create("file:///workspace/a/?sourceSet=test");
+
+    private final List<Object> received = new CopyOnWriteArrayList<>();
+
+    private BuildClient recordingClient() {
+        return (BuildClient) Proxy.newProxyInstance(
+                BuildClient.class.getClassLoader(),
+                new Class<?>[]{BuildClient.class},
+                (proxy, method, args) -> {
+                    received.add(args[0]);
+                    return null;
+                });
+    }
+
+    // Gradle's events are interfaces, so each test event simply returns the given property values
+    @SuppressWarnings("unchecked")
+    private static <T> T eventOf(Class<T> eventClass, Map<String, Object> properties) {
+        return (T) Proxy.newProxyInstance(
+                eventClass.getClassLoader(),
+                new Class<?>[]{eventClass},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return eventClass.getSimpleName() + properties;
+                        default:
+                            return properties.get(method.getName());
+                    }
+                });
+    }
+
+    private static TaskOperationDescriptor taskOf(String taskPath) {
+        return eventOf(TaskOperationDescriptor.class, Map.of("getTaskPath", taskPath, "getDisplayName", "Task " + taskPath));
+    }
+
+    private static JvmTestOperationDescriptor testOf(OperationDescriptor parent, String className, String methodName) {
+        return eventOf(JvmTestOperationDescriptor.class, Map.of(
+                "getJvmTestKind", JvmTestKind.ATOMIC,
+                "getClassName", className,
+                "getMethodName", methodName,
+                "getDisplayName", methodName,
+                "getParent", parent));
+    }
+
+    private static JvmTestOperationDescriptor suiteOf(OperationDescriptor parent, String className) {
+        return eventOf(JvmTestOperationDescriptor.class, Map.of(
+                "getJvmTestKind", JvmTestKind.SUITE,
+                "getClassName", className,
+                "getDisplayName", className,
+                "getParent", parent));
+    }
+
+    private static TestStartEvent testStart(JvmTestOperationDescriptor test, long eventTime) {
+        return eventOf(TestStartEvent.class, Map.of("getDescriptor", test, "getEventTime", eventTime, "getDisplayName", test.getMethodName() + " started"));
+    }
+
+    private static TestFinishEvent testFinish(JvmTestOperationDescriptor test, long eventTime, TestOperationResult result) {
+        return eventOf(TestFinishEvent.class, Map.of("getDescriptor", test, "getEventTime", eventTime, "getDisplayName", test.getMethodName() + " finished", "getResult", result));
+    }
+
+    private List<TaskStartParams> receivedStarts() {
+        return received.stream()
+                .filter(TaskStartParams.class::isInstance)
+                .map(TaskStartParams.class::cast)
+                .collect(Collectors.toList());
+    }
+
+    private List<TaskFinishParams> receivedFinishes() {
+        return received.stream()
+                .filter(TaskFinishParams.class::isInstance)
+                .map(TaskFinishParams.class::cast)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void reportsTestsAsChildrenOfTheirTestTask() {
+        var testTask = taskOf(":a:test");
+        var suite = suiteOf(testTask, "com.example.FooTest");
+        var passing = testOf(suite, "com.example.FooTest", "passes");
+        var failing = testOf(suite, "com.example.FooTest", "fails");
+        var skipped = testOf(suite, "com.example.FooTest", "isSkipped");
+
+        var failure = eventOf(Failure.class, Map.of("getMessage", "expected true"));
+
+        try (var notifications = new ClientNotifications(recordingClient(), Duration.ofMillis(10))) {
+            var listener = new BuildClientTestListener(notifications, Map.of(":a:test", PROJECT_A), "origin");
+
+            listener.statusChanged(eventOf(TaskStartEvent.class, Map.of("getDescriptor", taskOf(":a:compileJava"), "getEventTime", 50L, "getDisplayName", "Task :a:compileJava started")));
+            listener.statusChanged(eventOf(TaskStartEvent.class, Map.of("getDescriptor", testTask, "getEventTime", 100L, "getDisplayName", "Task :a:test started")));
+            listener.statusChanged(eventOf(TestStartEvent.class, Map.of("getDescriptor", suite, "getEventTime", 110L, "getDisplayName", "FooTest started")));
+
+            listener.statusChanged(testStart(passing, 120L));
+            listener.statusChanged(testFinish(passing, 130L, eventOf(TestSuccessResult.class, Map.of())));
+            listener.statusChanged(testStart(failing, 140L));
+            listener.statusChanged(testFinish(failing, 150L, eventOf(TestFailureResult.class, Map.of("getFailures", List.of(failure)))));
+            listener.statusChanged(testStart(skipped, 160L));
+            listener.statusChanged(testFinish(skipped, 170L, eventOf(TestSkippedResult.class, Map.of())));
+
+            listener.statusChanged(eventOf(TaskFinishEvent.class, Map.of("getDescriptor", testTask, "getEventTime", 300L, "getDisplayName", "Task :a:test finished")));
+        }
+
+        var starts = receivedStarts();
+        var finishes = receivedFinishes();
+
+        // Only the test task and its atomic tests are reported
+        assertThat(starts, hasSize(4));
+        assertThat(finishes, hasSize(4));
+
+        var testTaskStart = starts.get(0);
+        var testTaskId = testTaskStart.getTaskId();
+        assertThat(testTaskStart.getDataKind(), is(TaskStartDataKind.TEST_TASK));
+        assertThat(testTaskStart.getOriginId(), is("origin"));
+        assertThat(testTaskId.getParents(), contains("origin"));
+        assertThat(((TestTask) testTaskStart.getData()).getTarget().getUri(), is(PROJECT_A.toString()));
+
+        for (var testStart : starts.subList(1, 4)) {
+            assertThat(testStart.getDataKind(), is(TaskStartDataKind.TEST_START));
+            assertThat(testStart.getTaskId().getParents(), contains(testTaskId.getId()));
+        }
+
+        assertThat(starts.subList(1, 4).stream().map(start -> ((TestStart) start.getData()).getDisplayName()).collect(Collectors.toList()), contains(
+                "com.example.FooTest.passes",
+                "com.example.FooTest.fails",
+                "com.example.FooTest.isSkipped"));
+
+        var testFinishes = finishes.subList(0, 3);
+        assertThat(testFinishes.stream().map(finish -> ((TestFinish) finish.getData()).getStatus()).collect(Collectors.toList()), contains(
+                TestStatus.PASSED,
+                TestStatus.FAILED,
+                TestStatus.SKIPPED));
+        assertThat(((TestFinish) testFinishes.get(1).getData()).getMessage(), is("expected true"));
+
+        for (var i = 0; i < 3; i++) {
+            assertThat(testFinishes.get(i).getTaskId().getId(), is(starts.get(i + 1).getTaskId().getId()));
+        }
+
+        var testTaskFinish = finishes.get(3);
+        assertThat(testTaskFinish.getTaskId().getId(), is(testTaskId.getId()));
+        assertThat(testTaskFinish.getDataKind(), is(TaskFinishDataKind.TEST_REPORT));
+        assertThat(testTaskFinish.getStatus(), is(StatusCode.ERROR));
+
+        var report = (TestReport) testTaskFinish.getData();
+        assertThat(report.getPassed(), is(1));
+        assertThat(report.getFailed(), is(1));
+        assertThat(report.getSkipped(), is(1));
+        assertThat(report.getTime(), is(200L));
+        assertThat(report.getOriginId(), is("origin"));
+    }
+}
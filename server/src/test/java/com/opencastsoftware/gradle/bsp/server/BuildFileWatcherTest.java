@@ -0,0 +1,71 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class BuildFileWatcherTest {
+    @Test
+    void notifiesOnceForEachBurstOfChanges(@TempDir Path projectRoot) throws IOException, InterruptedException {
+        var notifications = new AtomicInteger(0);
+
+        try (var watcher = new BuildFileWatcher(projectRoot, Duration.ofMillis(200), notifications::incrementAndGet)) {
+            watcher.watch(Set.of(projectRoot));
+            watcher.start();
+
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(projectRoot.resolve("build.gradle.kts"), "// revision " + i);
+                Files.writeString(projectRoot.resolve("gradle.properties"), "revision=" + i);
+            }
+
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (notifications.get() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+
+            Thread.sleep(1000);
+
+            assertThat(notifications.get(), is(1));
+        }
+    }
+
+    @Test
+    void ignoresChangesToOtherFiles(@TempDir Path projectRoot) throws IOException, InterruptedException {
+        var notifications = new AtomicInteger(0);
+
+        try (var watcher = new BuildFileWatcher(projectRoot, Duration.ofMillis(200), notifications::incrementAndGet)) {
+            watcher.watch(Set.of(projectRoot));
+            watcher.start();
+
+            Files.writeString(projectRoot.resolve("README.md"), "# Example");
+
+            Thread.sleep(1000);
+
+            assertThat(notifications.get(), is(0));
+        }
+    }
+
+    @Test
+    void ignoresDirectoriesWatchedAfterClose(@TempDir Path projectRoot) throws IOException {
+        var watcher = new BuildFileWatcher(projectRoot, Duration.ofMillis(200), () -> {});
+        watcher.watch(Set.of(projectRoot));
+        watcher.start();
+        watcher.close();
+
+        watcher.watch(Set.of(projectRoot, Files.createDirectories(projectRoot.resolve("gradle"))));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.server.util.MBeanRegistry;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.gradle.tooling.CancellationToken;
+import org.gradle.tooling.CancellationTokenSource;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BuildSchedulerTest {
+    private static final CancelChecker NOT_CANCELLED = () -> {};
+
+    static class TestCancellationTokenSource implements CancellationTokenSource {
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        @Override
+        public CancellationToken token() {
+            return new CancellationToken() {
+                @Override
+                public boolean isCancellationRequested() {
+                    return cancelled.get();
+                }
+            };
+        }
+    }
+
+    private BuildScheduler schedulerWith(int capacity) {
+        var daemonPool = new DaemonPool(DaemonPools.INTERACTIVE, null, List.of(), capacity);
+        return new BuildScheduler(kind -> daemonPool, Runnable::run, TestCancellationTokenSource::new);
+    }
+
+    @Test
+    void startsCompilesAheadOfQueuedTests() throws Exception {
+        var scheduler = schedulerWith(1);
+        var started = new CopyOnWriteArrayList<String>();
+        var blocker = new CompletableFuture<String>();
+
+        scheduler.submit(BuildScheduler.Kind.TEST, ":a:test", List.of("first"), NOT_CANCELLED, build -> {
+            started.add("first test");
+            return blocker;
+        });
+        var test = scheduler.submit(BuildScheduler.Kind.TEST, ":b:test", List.of("second"), NOT_CANCELLED, build -> {
+            started.add("second test");
+            return CompletableFuture.completedFuture("second test");
+        });
+        var compile = scheduler.submit(BuildScheduler.Kind.COMPILE, ":b:classes", List.of("compile"), NOT_CANCELLED, build -> {
+            started.add("compile");
+            return CompletableFuture.completedFuture("compile");
+        });
+
+        assertThat(scheduler.getQueueDepth(), is(2));
+        assertThat(scheduler.getRunningBuilds(), is(1));
+
+        blocker.complete("first test");
+
+        assertThat(compile.get(5, TimeUnit.SECONDS), is("compile"));
+        assertThat(test.get(5, TimeUnit.SECONDS), is("second test"));
+        assertThat(started, contains("first test", "compile", "second test"));
+        assertThat(scheduler.getStartedBuilds(), is(3L));
+    }
+
+    @Test
+    void joinsIdenticalQueuedBuilds() throws Exception {
+        var scheduler = schedulerWith(1);
+        var blocker = new CompletableFuture<String>();
+        var runs = new CopyOnWriteArrayList<List<String>>();
+
+        scheduler.submit(BuildScheduler.Kind.TEST, ":a:test", List.of("test"), NOT_CANCELLED, build -> blocker);
+
+        var first = scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("first"), NOT_CANCELLED, build -> {
+            runs.add(build.originIds());
+            return CompletableFuture.completedFuture("compiled");
+        });
+        var second = scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("second"), NOT_CANCELLED, build -> {
+            runs.add(build.originIds());
+            return CompletableFuture.completedFuture("compiled again");
+        });
+
+        blocker.complete("tested");
+
+        assertThat(first.get(5, TimeUnit.SECONDS), is("compiled"));
+        assertThat(second.get(5, TimeUnit.SECONDS), is("compiled"));
+        assertThat(runs, contains(List.of("first", "second")));
+        assertThat(scheduler.getJoinedRequests(), is(1L));
+    }
+
+    @Test
+    void cancelsSupersededRunningBuilds() throws Exception {
+        var scheduler = schedulerWith(2);
+        var firstBuild = new CompletableFuture<BuildScheduler.Build>();
+
+        scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("first"), NOT_CANCELLED, build -> {
+            firstBuild.complete(build);
+            return new CompletableFuture<String>();
+        });
+
+        scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("second"), NOT_CANCELLED, build -> {
+            return CompletableFuture.completedFuture("compiled");
+        });
+
+        var superseded = firstBuild.get(5, TimeUnit.SECONDS);
+        assertThat(superseded.gradleCanceller().token().isCancellationRequested(), is(true));
+        assertThat(scheduler.getSupersededBuilds(), is(1L));
+    }
+
+    @Test
+    void skipsQueuedBuildsWhenAllRequestsAreCancelled() {
+        var scheduler = schedulerWith(1);
+        var blocker = new CompletableFuture<String>();
+        var cancelled = new AtomicBoolean(false);
+        var started = new AtomicBoolean(false);
+
+        scheduler.submit(BuildScheduler.Kind.TEST, ":a:test", List.of("test"), NOT_CANCELLED, build -> blocker);
+
+        var compile = scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("compile"), () -> {
+            if (cancelled.get()) {
+                throw new CancellationException();
+            }
+        }, build -> {
+            started.set(true);
+            return CompletableFuture.completedFuture("compiled");
+        });
+
+        cancelled.set(true);
+        blocker.complete("tested");
+
+        assertThat(compile.isCompletedExceptionally(), is(true));
+        assertThat(started.get(), is(false));
+    }
+
+    @Test
+    void runsBuildsInSeparatePoolsConcurrently() {
+        var interactivePool = new DaemonPool(DaemonPools.INTERACTIVE, null, List.of(), 1);
+        var testPool = new DaemonPool(DaemonPools.TEST, null, List.of(), 1);
+        var scheduler = new BuildScheduler(
+                kind -> kind == BuildScheduler.Kind.TEST ? testPool : interactivePool,
+                Runnable::run,
+                TestCancellationTokenSource::new);
+
+        scheduler.submit(BuildScheduler.Kind.TEST, ":a:test", List.of("test"), NOT_CANCELLED, build -> new CompletableFuture<String>());
+        var compile = scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("compile"), NOT_CANCELLED, build -> {
+            return CompletableFuture.completedFuture(build.daemonPool().getName());
+        });
+
+        assertThat(compile.join(), is(DaemonPools.INTERACTIVE));
+        assertThat(testPool.getActiveBuilds(), is(1));
+        assertThat(testPool.getUtilization(), is(1.0));
+        assertThat(interactivePool.getActiveBuilds(), is(0));
+        assertThat(interactivePool.getCompletedBuilds(), is(1L));
+    }
+
+    @Test
+    void exposesQueueViaJmx() throws Exception {
+        var mbeanServer = MBeanServerFactory.newMBeanServer();
+        var scheduler = schedulerWith(1);
+        var objectName = new ObjectName(BuildScheduler.OBJECT_NAME);
+
+        try (var registry = new MBeanRegistry(mbeanServer)) {
+            registry.register(BuildScheduler.OBJECT_NAME, scheduler);
+
+            scheduler.submit(BuildScheduler.Kind.TEST, ":a:test", List.of("test"), NOT_CANCELLED, build -> new CompletableFuture<String>());
+            scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("first"), NOT_CANCELLED, build -> new CompletableFuture<String>());
+            scheduler.submit(BuildScheduler.Kind.COMPILE, ":a:classes", List.of("second"), NOT_CANCELLED, build -> new CompletableFuture<String>());
+
+            assertThat(mbeanServer.getAttribute(objectName, "QueueDepth"), is(equalTo(1)));
+            assertThat(mbeanServer.getAttribute(objectName, "RunningBuilds"), is(equalTo(1)));
+            assertThat(mbeanServer.getAttribute(objectName, "JoinedRequests"), is(equalTo(1L)));
+            assertThat(mbeanServer.getAttribute(objectName, "SupersededBuilds"), is(equalTo(0L)));
+            assertThat(mbeanServer.getAttribute(objectName, "MeanWaitMillis"), is(instanceOf(Double.class)));
+        }
+
+        assertThat(mbeanServer.isRegistered(objectName), is(false));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ClientNotificationsTest {
+    private final List<Object> received = new CopyOnWriteArrayList<>();
+
+    private BuildClient recordingClient(CountDownLatch blocker) {
+        return (BuildClient) Proxy.newProxyInstance(
+                BuildClient.class.getClassLoader(),
+                new Class<?>[]{BuildClient.class},
+                (proxy, method, args) -> {
+                    if (blocker != null) {
+                        blocker.await(5, TimeUnit.SECONDS);
+                    }
+                    received.add(args[0]);
+                    return null;
+                });
+    }
+
+    private static TaskProgressParams progressOf(String taskId, long progress) {
+        var params = new TaskProgressParams(new TaskId(taskId));
+        params.setProgress(progress);
+        params.setTotal(10L);
+        return params;
+    }
+
+    private List<Long> receivedProgress() {
+        return received.stream()
+                .filter(TaskProgressParams.class::isInstance)
+                .map(params -> ((TaskProgressParams) params).getProgress())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void coalescesProgressForEachTask() {
+        var blocker = new CountDownLatch(1);
+
+        try (var notifications = new ClientNotifications(recordingClient(blocker), Duration.ofMillis(10))) {
+            notifications.taskStart(new TaskStartParams(new TaskId("build")));
+
+            for (long i = 1; i <= 5; i++) {
+                notifications.taskProgress(progressOf("build", i));
+            }
+
+            // Let the client catch up once all of the progress has been queued
+            blocker.countDown();
+
+            assertThat(notifications.getDroppedProgress(), is(equalTo(4L)));
+        }
+
+        assertThat(received.get(0), is(instanceOf(TaskStartParams.class)));
+        assertThat(receivedProgress(), contains(5L));
+    }
+
+    @Test
+    void alwaysDeliversStartAndFinishInOrder() {
+        try (var notifications = new ClientNotifications(recordingClient(null), Duration.ofSeconds(10))) {
+            notifications.taskStart(new TaskStartParams(new TaskId("build")));
+            notifications.taskProgress(progressOf("build", 1));
+            notifications.taskProgress(progressOf("build", 2));
+            notifications.taskFinish(new TaskFinishParams(new TaskId("build"), StatusCode.OK));
+        }
+
+        assertThat(received, hasSize(greaterThanOrEqualTo(2)));
+        assertThat(received.get(0), is(instanceOf(TaskStartParams.class)));
+        assertThat(received.get(received.size() - 1), is(instanceOf(TaskFinishParams.class)));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.StatusCode;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CompileCoalescerTest {
+    private static final CancelChecker NOT_CANCELLED = () -> {};
+
+    private static boolean isCancelled(CancelChecker cancelToken) {
+        try {
+            cancelToken.checkCanceled();
+            return false;
+        } catch (CancellationException e) {
+            return true;
+        }
+    }
+
+    @Test
+    void mergesRequestsWithinWindow() throws Exception {
+        var batches = new CopyOnWriteArrayList<CompileCoalescer.Batch>();
+
+        var coalescer = new CompileCoalescer(Duration.ofMillis(200), batch -> {
+            batches.add(batch);
+            return CompletableFuture.completedFuture(StatusCode.OK);
+        });
+
+        try {
+            var first = coalescer.submit("first", List.of(":a:classes", ":b:classes"), NOT_CANCELLED);
+            var second = coalescer.submit("second", List.of(":b:classes", ":c:classes"), NOT_CANCELLED);
+            var third = coalescer.submit(null, List.of(":a:classes"), NOT_CANCELLED);
+
+            assertThat(first.get(5, TimeUnit.SECONDS), is(StatusCode.OK));
+            assertThat(second.get(5, TimeUnit.SECONDS), is(StatusCode.OK));
+            assertThat(third.get(5, TimeUnit.SECONDS), is(StatusCode.OK));
+
+            assertThat(batches, hasSize(1));
+            assertThat(batches.get(0).tasks(), contains(":a:classes", ":b:classes", ":c:classes"));
+            assertThat(batches.get(0).originIds(), contains("first", "second", null));
+        } finally {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void reportsFailedBuildToEveryRequest() throws Exception {
+        var coalescer = new CompileCoalescer(Duration.ofMillis(100), batch -> CompletableFuture.completedFuture(StatusCode.ERROR));
+
+        try {
+            var first = coalescer.submit("first", List.of(":a:classes"), NOT_CANCELLED);
+            var second = coalescer.submit("second", List.of(":b:classes"), NOT_CANCELLED);
+
+            assertThat(first.get(5, TimeUnit.SECONDS), is(StatusCode.ERROR));
+            assertThat(second.get(5, TimeUnit.SECONDS), is(StatusCode.ERROR));
+        } finally {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void cancelsPendingRequestsOnShutdown() throws Exception {
+        var batches = new CopyOnWriteArrayList<CompileCoalescer.Batch>();
+
+        var coalescer = new CompileCoalescer(Duration.ofSeconds(10), batch -> {
+            batches.add(batch);
+            return CompletableFuture.completedFuture(StatusCode.OK);
+        });
+
+        var pending = coalescer.submit("pending", List.of(":a:classes"), NOT_CANCELLED);
+
+        coalescer.shutdown();
+
+        assertThat(pending.get(5, TimeUnit.SECONDS), is(StatusCode.CANCELLED));
+
+        var late = coalescer.submit("late", List.of(":a:classes"), NOT_CANCELLED);
+
+        assertThat(late.get(5, TimeUnit.SECONDS), is(StatusCode.CANCELLED));
+        assertThat(batches, is(empty()));
+    }
+
+    @Test
+    void cancelsBatchOnlyWhenAllRequestsAreCancelled() throws Exception {
+        var firstCancelled = new AtomicBoolean(false);
+        var secondCancelled = new AtomicBoolean(false);
+        var batchResult = new CompletableFuture<StatusCode>();
+        var submittedBatch = new CompletableFuture<CompileCoalescer.Batch>();
+
+        var coalescer = new CompileCoalescer(Duration.ofMillis(100), batch -> {
+            submittedBatch.complete(batch);
+            return batchResult;
+        });
+
+        try {
+            coalescer.submit("first", List.of(":a:classes"), () -> {
+                if (firstCancelled.get()) throw new CancellationException();
+            });
+            coalescer.submit("second", List.of(":b:classes"), () -> {
+                if (secondCancelled.get()) throw new CancellationException();
+            });
+
+            var batch = submittedBatch.get(5, TimeUnit.SECONDS);
+
+            assertThat(isCancelled(batch.cancelToken()), is(false));
+            firstCancelled.set(true);
+            assertThat(isCancelled(batch.cancelToken()), is(false));
+            secondCancelled.set(true);
+            assertThat(isCancelled(batch.cancelToken()), is(true));
+        } finally {
+            batchResult.complete(StatusCode.CANCELLED);
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void handsRepeatedCompilesToSchedulerWhileEarlierBuildIsRunning() throws Exception {
+        var daemonPool = new DaemonPool(DaemonPools.INTERACTIVE, null, List.of(), 1);
+        var scheduler = new BuildScheduler(kind -> daemonPool, Runnable::run, BuildSchedulerTest.TestCancellationTokenSource::new);
+        var builds = new CopyOnWriteArrayList<BuildScheduler.Build>();
+        var results = new CopyOnWriteArrayList<CompletableFuture<StatusCode>>();
+
+        // Wired up in the same way as the compile batches of GradleBspServer
+        var coalescer = new CompileCoalescer(Duration.ofMillis(50), batch -> {
+            var tasks = batch.tasks().toArray(String[]::new);
+            return scheduler.submit(BuildScheduler.Kind.COMPILE, GradleBspServer.buildKeyOf(tasks), batch.originIds(), batch.cancelToken(), build -> {
+                var result = new CompletableFuture<StatusCode>();
+                builds.add(build);
+                results.add(result);
+                return result;
+            });
+        });
+
+        try {
+            var first = coalescer.submit("first", List.of(":a:classes"), NOT_CANCELLED);
+
+            while (builds.isEmpty()) {
+                Thread.sleep(10);
+            }
+
+            var second = coalescer.submit("second", List.of(":a:classes"), NOT_CANCELLED);
+
+            while (scheduler.getQueueDepth() == 0) {
+                Thread.sleep(10);
+            }
+
+            var third = coalescer.submit("third", List.of(":a:classes"), NOT_CANCELLED);
+
+            while (scheduler.getJoinedRequests() == 0) {
+                Thread.sleep(10);
+            }
+
+            assertThat(scheduler.getSupersededBuilds(), is(1L));
+            assertThat(builds.get(0).gradleCanceller().token().isCancellationRequested(), is(true));
+
+            results.get(0).complete(StatusCode.CANCELLED);
+            assertThat(first.get(5, TimeUnit.SECONDS), is(StatusCode.CANCELLED));
+
+            assertThat(builds, hasSize(2));
+            assertThat(builds.get(1).originIds(), contains("second", "third"));
+
+            results.get(1).complete(StatusCode.OK);
+            assertThat(second.get(5, TimeUnit.SECONDS), is(StatusCode.OK));
+            assertThat(third.get(5, TimeUnit.SECONDS), is(StatusCode.OK));
+        } finally {
+            results.forEach(result -> result.complete(StatusCode.CANCELLED));
+            coalescer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.server.util.MBeanRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DaemonPoolsTest {
+    private final DaemonPool interactivePool = new DaemonPool(DaemonPools.INTERACTIVE, null, List.of(), 1);
+    private final DaemonPool testPool = new DaemonPool(DaemonPools.TEST, null, List.of("-Xmx4g"), 2);
+
+    @Test
+    void routesTestsToTestPool() {
+        var pools = DaemonPools.of(interactivePool, testPool, Map.of());
+        assertThat(pools.poolFor(BuildScheduler.Kind.COMPILE), is(interactivePool));
+        assertThat(pools.poolFor(BuildScheduler.Kind.CLEAN), is(interactivePool));
+        assertThat(pools.poolFor(BuildScheduler.Kind.TEST), is(testPool));
+        assertThat(pools.poolFor(BuildScheduler.Kind.RUN), is(testPool));
+    }
+
+    @Test
+    void routesEverythingToInteractivePoolWithoutTestPool() {
+        var pools = DaemonPools.of(interactivePool, null, Map.of());
+        for (var kind : BuildScheduler.Kind.values()) {
+            assertThat(pools.poolFor(kind), is(interactivePool));
+        }
+    }
+
+    @Test
+    void appliesRouteOverrides() {
+        var pools = DaemonPools.of(interactivePool, testPool, Map.of(BuildScheduler.Kind.RUN, DaemonPools.INTERACTIVE));
+        assertThat(pools.poolFor(BuildScheduler.Kind.RUN), is(interactivePool));
+        assertThat(pools.poolFor(BuildScheduler.Kind.TEST), is(testPool));
+    }
+
+    @Test
+    void rejectsRoutesToUnknownPools() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            DaemonPools.of(interactivePool, null, Map.of(BuildScheduler.Kind.TEST, DaemonPools.TEST));
+        });
+    }
+
+    @Test
+    void exposesEachPoolViaJmx() throws Exception {
+        var mbeanServer = MBeanServerFactory.newMBeanServer();
+        var pools = DaemonPools.of(interactivePool, testPool, Map.of());
+
+        try (var registry = new MBeanRegistry(mbeanServer)) {
+            pools.getPools().forEach(pool -> registry.register(pool.getObjectName(), pool));
+
+            assertThat(testPool.tryAcquire(), is(true));
+
+            var testPoolName = new ObjectName(DaemonPool.OBJECT_NAME_PREFIX + ObjectName.quote(DaemonPools.TEST));
+            assertThat(mbeanServer.getAttribute(testPoolName, "ActiveBuilds"), is(equalTo(1)));
+            assertThat(mbeanServer.getAttribute(testPoolName, "Utilization"), is(equalTo(0.5)));
+
+            var interactivePoolName = new ObjectName(DaemonPool.OBJECT_NAME_PREFIX + ObjectName.quote(DaemonPools.INTERACTIVE));
+            assertThat(mbeanServer.getAttribute(interactivePoolName, "ActiveBuilds"), is(equalTo(0)));
+            assertThat(mbeanServer.getAttribute(interactivePoolName, "Capacity"), is(equalTo(1)));
+        }
+    }
+}
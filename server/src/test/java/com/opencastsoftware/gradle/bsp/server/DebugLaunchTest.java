@@ -0,0 +1,127 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.DebugSessionAddress;
+import com.opencastsoftware.gradle.bsp.server.util.LineOutputStream;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DebugLaunchTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    public static class Hello {
+        public static void main(String[] args) {
+            System.out.println("hello");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void reportsAddressOfDebugAgent(@TempDir Path workingDirectory) throws Exception {
+        var javaExecutable = Paths.get(System.getProperty("java.home"), "bin", "java");
+        var classpath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> Paths.get(entry).toAbsolutePath().toString())
+                .collect(Collectors.toList());
+
+        var launch = new JvmLaunch(javaExecutable, classpath, List.of(), Hello.class.getName(), List.of(), workingDirectory, Map.of())
+                .withJvmOption(DebugLaunch.JDWP_AGENT_OPTION);
+
+        var stdout = new CopyOnWriteArrayList<String>();
+        var cancelled = new AtomicBoolean(false);
+
+        CancelChecker cancelToken = () -> {
+            if (cancelled.get()) {
+                throw new CancellationException();
+            }
+        };
+
+        try {
+            var address = DebugLaunch.start(launch, stdout::add, line -> {}, cancelToken, executor).get(30, TimeUnit.SECONDS);
+            assertThat(address.getUri(), matchesPattern("tcp://127\\.0\\.0\\.1:\\d+"));
+            // The process is suspended until a debugger attaches
+            assertThat(stdout, is(empty()));
+        } finally {
+            cancelled.set(true);
+        }
+    }
+
+    @Test
+    void readsAddressOfDebugAgentFromGradleOutput() throws Exception {
+        var address = new CompletableFuture<DebugSessionAddress>();
+        var stdout = new CopyOnWriteArrayList<String>();
+
+        try (var output = new LineOutputStream(DebugLaunch.listenForAddress(address, stdout::add))) {
+            output.write("> Task :app:test\r\nListening for transport dt_socket at address: 5005\n".getBytes(StandardCharsets.UTF_8));
+            output.write("BUILD SUCCESSFUL".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(address.getNow(null).getUri(), is("tcp://127.0.0.1:5005"));
+        assertThat(stdout, contains("> Task :app:test", "BUILD SUCCESSFUL"));
+    }
+
+    @Test
+    void selectsTestsWithJUnitPlatform() {
+        var selectedTests = new TreeMap<String, SortedSet<String>>();
+        selectedTests.put("com.example.FooTest", new TreeSet<>());
+        selectedTests.put("com.example.BarTest", new TreeSet<>(List.of("bar", "baz")));
+
+        assertThat(DebugLaunch.TestRunner.JUNIT_PLATFORM.getArgumentsFor(selectedTests), contains(
+                "--disable-banner",
+                "--select-method=com.example.BarTest#bar",
+                "--select-method=com.example.BarTest#baz",
+                "--select-class=com.example.FooTest"));
+
+        assertThat(DebugLaunch.TestRunner.JUNIT_PLATFORM.getArgumentsFor(new TreeMap<>()), contains(
+                "--disable-banner",
+                "--scan-classpath"));
+    }
+
+    @Test
+    void selectsWholeTestClassesWithJUnit4() {
+        var selectedTests = new TreeMap<String, SortedSet<String>>();
+        selectedTests.put("com.example.FooTest", new TreeSet<>());
+        selectedTests.put("com.example.BarTest", new TreeSet<>(List.of("bar")));
+
+        assertThat(DebugLaunch.TestRunner.JUNIT_4.getArgumentsFor(selectedTests), contains(
+                "com.example.BarTest",
+                "com.example.FooTest"));
+    }
+
+    @Test
+    void findsTestRunnerOnClasspath(@TempDir Path classesDir) throws Exception {
+        assertThat(DebugLaunch.TestRunner.findOn(List.of(classesDir.toString())), is(Optional.empty()));
+
+        var runnerClass = classesDir.resolve("org/junit/runner/JUnitCore.class");
+        Files.createDirectories(runnerClass.getParent());
+        Files.createFile(runnerClass);
+
+        assertThat(DebugLaunch.TestRunner.findOn(List.of(classesDir.toString())), is(Optional.of(DebugLaunch.TestRunner.JUNIT_4)));
+    }
+}
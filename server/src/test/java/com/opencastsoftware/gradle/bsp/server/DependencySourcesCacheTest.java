@@ -0,0 +1,116 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DependencySourcesCacheTest {
+    private static final String GUAVA = "com.google.guava:guava:33.0.0-jre";
+    private static final String JSR305 = "com.google.code.findbugs:jsr305:3.0.2";
+
+    @TempDir
+    Path projectDir;
+
+    private final List<Set<String>> resolved = new CopyOnWriteArrayList<>();
+
+    private CompletableFuture<Map<String, Set<URI>>> resolveSources(Set<String> modules, Map<String, Set<URI>> available) {
+        resolved.add(modules);
+        var sources = new HashMap<String, Set<URI>>();
+        modules.forEach(module -> sources.put(module, available.getOrDefault(module, Set.of())));
+        return CompletableFuture.completedFuture(sources);
+    }
+
+    private URI sourcesJar(String name) throws IOException {
+        return Files.createFile(projectDir.resolve(name + "-sources.jar")).toUri();
+    }
+
+    @Test
+    void resolvesEachModuleOnlyOnce() throws Exception {
+        var guavaSources = sourcesJar("guava");
+        var cache = new DependencySourcesCache(projectDir, modules -> resolveSources(modules, Map.of(GUAVA, Set.of(guavaSources))));
+
+        var first = cache.sourcesFor(List.of(GUAVA, JSR305)).get();
+        var second = cache.sourcesFor(List.of(GUAVA)).get();
+
+        assertThat(first, is(equalTo(Map.of(GUAVA, Set.of(guavaSources), JSR305, Set.of()))));
+        assertThat(second, is(equalTo(Map.of(GUAVA, Set.of(guavaSources)))));
+        assertThat(resolved, contains(Set.of(GUAVA, JSR305)));
+    }
+
+    @Test
+    void sharesResolutionInProgress() throws Exception {
+        var pending = new CompletableFuture<Map<String, Set<URI>>>();
+        var cache = new DependencySourcesCache(projectDir, modules -> {
+            resolved.add(modules);
+            return pending;
+        });
+
+        var first = cache.sourcesFor(List.of(GUAVA));
+        var second = cache.sourcesFor(List.of(GUAVA));
+
+        pending.complete(Map.of(GUAVA, Set.of()));
+
+        assertThat(first.get(), is(equalTo(second.get())));
+        assertThat(resolved, hasSize(1));
+    }
+
+    @Test
+    void persistsSourcesBetweenSessions() throws Exception {
+        var guavaSources = sourcesJar("guava");
+
+        var firstSession = new DependencySourcesCache(projectDir, modules -> resolveSources(modules, Map.of(GUAVA, Set.of(guavaSources))));
+        firstSession.sourcesFor(List.of(GUAVA)).get();
+
+        assertThat(Files.exists(firstSession.getCacheFile()), is(true));
+
+        var secondSession = new DependencySourcesCache(projectDir, modules -> resolveSources(modules, Map.of()));
+        assertThat(secondSession.sourcesFor(List.of(GUAVA)).get(), is(equalTo(Map.of(GUAVA, Set.of(guavaSources)))));
+        assertThat(resolved, hasSize(1));
+    }
+
+    @Test
+    void resolvesAgainWhenSourcesJarIsDeleted() throws Exception {
+        var guavaSources = sourcesJar("guava");
+
+        var firstSession = new DependencySourcesCache(projectDir, modules -> resolveSources(modules, Map.of(GUAVA, Set.of(guavaSources))));
+        firstSession.sourcesFor(List.of(GUAVA)).get();
+
+        Files.delete(Path.of(guavaSources));
+
+        var secondSession = new DependencySourcesCache(projectDir, modules -> resolveSources(modules, Map.of()));
+        assertThat(secondSession.sourcesFor(List.of(GUAVA)).get(), is(equalTo(Map.of(GUAVA, Set.of()))));
+        assertThat(resolved, hasSize(2));
+    }
+
+    @Test
+    void retriesAfterResolutionFails() throws Exception {
+        var attempts = new CopyOnWriteArrayList<Set<String>>();
+        var cache = new DependencySourcesCache(projectDir, modules -> {
+            attempts.add(modules);
+            return attempts.size() == 1
+                    ? CompletableFuture.failedFuture(new IllegalStateException("offline"))
+                    : CompletableFuture.completedFuture(Map.of(GUAVA, Set.of()));
+        });
+
+        assertThat(cache.sourcesFor(List.of(GUAVA)).isCompletedExceptionally(), is(true));
+        assertThat(cache.sourcesFor(List.of(GUAVA)).get(), is(equalTo(Map.of(GUAVA, Set.of()))));
+        assertThat(attempts, hasSize(2));
+    }
+}
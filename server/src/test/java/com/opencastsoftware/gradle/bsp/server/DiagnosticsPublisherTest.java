@@ -0,0 +1,104 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.Diagnostic;
+import ch.epfl.scala.bsp4j.Position;
+import ch.epfl.scala.bsp4j.PublishDiagnosticsParams;
+import ch.epfl.scala.bsp4j.Range;
+import com.opencastsoftware.gradle.bsp.server.util.SourcePathIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DiagnosticsPublisherTest {
+    @TempDir
+    Path projectDir;
+
+    private URI mainTarget;
+    private Path mainDocument;
+    private Path otherDocument;
+    private SourcePathIndex sourcePathIndex;
+
+    private final List<PublishDiagnosticsParams> published = new ArrayList<>();
+    private final DiagnosticsPublisher publisher = new DiagnosticsPublisher(published::add);
+
+    @BeforeEach
+    void setUp() {
+        mainTarget = projectDir.toUri().resolve("?sourceSet=main");
+        var mainSources = projectDir.resolve("src/main/java");
+        mainDocument = mainSources.resolve("Main.java");
+        otherDocument = mainSources.resolve("Other.java");
+
+        sourcePathIndex = SourcePathIndex.of(TestWorkspaceBuilder.workspace()
+                .sources(mainTarget, mainSources.toUri())
+                .build());
+    }
+
+    private static Diagnostic diagnosticAt(int line, String message) {
+        return new Diagnostic(new Range(new Position(line, 0), new Position(line, 1)), message);
+    }
+
+    private List<String> publishedDocuments() {
+        return published.stream().map(params -> params.getTextDocument().getUri()).collect(Collectors.toList());
+    }
+
+    @Test
+    void publishesNewDiagnosticsWithReset() {
+        publisher.publish(sourcePathIndex, Set.of(mainTarget), Map.of(mainDocument, List.of(diagnosticAt(1, "oops"))), "compile-1");
+
+        assertThat(published, hasSize(1));
+        var params = published.get(0);
+        assertThat(params.getTextDocument().getUri(), is(equalTo(mainDocument.toUri().toString())));
+        assertThat(params.getBuildTarget().getUri(), is(equalTo(mainTarget.toString())));
+        assertThat(params.getOriginId(), is(equalTo("compile-1")));
+        assertThat(params.getReset(), is(true));
+    }
+
+    @Test
+    void skipsDocumentsWhoseDiagnosticsAreUnchanged() {
+        publisher.publish(sourcePathIndex, Set.of(mainTarget), Map.of(
+                mainDocument, List.of(diagnosticAt(1, "oops")),
+                otherDocument, List.of(diagnosticAt(2, "again"))), null);
+
+        published.clear();
+
+        publisher.publish(sourcePathIndex, Set.of(mainTarget), Map.of(
+                mainDocument, List.of(diagnosticAt(1, "oops")),
+                otherDocument, List.of(diagnosticAt(3, "moved"))), null);
+
+        assertThat(publishedDocuments(), contains(otherDocument.toUri().toString()));
+    }
+
+    @Test
+    void clearsDocumentsWhoseDiagnosticsWereFixed() {
+        publisher.publish(sourcePathIndex, Set.of(mainTarget), Map.of(mainDocument, List.of(diagnosticAt(1, "oops"))), null);
+
+        published.clear();
+
+        publisher.publish(sourcePathIndex, Set.of(mainTarget), Map.of(), null);
+
+        assertThat(published, hasSize(1));
+        assertThat(published.get(0).getDiagnostics(), is(empty()));
+        assertThat(published.get(0).getReset(), is(true));
+
+        published.clear();
+
+        // Once cleared, the document isn't published again
+        publisher.publish(sourcePathIndex, Set.of(mainTarget), Map.of(), null);
+        assertThat(published, is(empty()));
+    }
+}
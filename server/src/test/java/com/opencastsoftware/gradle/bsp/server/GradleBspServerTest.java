@@ -0,0 +1,237 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.*;
+import com.opencastsoftware.gradle.bsp.model.BspJvmEnvironment;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspJvmEnvironment;
+import com.opencastsoftware.gradle.bsp.server.util.BuildInputs;
+import com.opencastsoftware.gradle.bsp.server.util.RequestExecutor;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
+import org.eclipse.lsp4j.jsonrpc.messages.ResponseErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.opencastsoftware.gradle.bsp.server.TestWorkspaceBuilder.workspace;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GradleBspServerTest {
+    @TempDir
+    Path projectDir;
+
+    private URI targetUri;
+    private URI appTargetUri;
+    private TestServer server;
+
+    // Serves requests from a cached workspace model, so that no Gradle build is needed
+    private static class TestServer extends GradleBspServer {
+        private final BlockingQueue<CompileCoalescer.Batch> heldBatches = new LinkedBlockingQueue<>();
+        private volatile boolean holdCompileBatches = false;
+        private final Map<URI, BspJvmEnvironment> jvmEnvironments = new ConcurrentHashMap<>();
+
+        TestServer(DaemonPools daemonPools, RequestExecutor executor, Path projectRoot, RunMode runMode) {
+            super(daemonPools, executor, projectRoot, projectRoot.resolve("init.gradle.kts"), runMode);
+        }
+
+        @Override
+        CompletableFuture<Void> fetchWorkspace(CancelChecker cancelToken, String inputsHash) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        void watchBuildFiles() {
+        }
+
+        @Override
+        CompletableFuture<StatusCode> runCompileBatch(CompileCoalescer.Batch batch) {
+            if (holdCompileBatches) {
+                heldBatches.add(batch);
+                return new CompletableFuture<>();
+            } else {
+                return super.runCompileBatch(batch);
+            }
+        }
+
+        @Override
+        CompletableFuture<Map<URI, BspJvmEnvironment>> fetchJvmEnvironments(String kind, Set<URI> targetUris) {
+            return CompletableFuture.completedFuture(jvmEnvironments.entrySet().stream()
+                    .filter(entry -> targetUris.contains(entry.getKey()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+        }
+    }
+
+    private static boolean isCancelled(CancelChecker cancelToken) {
+        try {
+            cancelToken.checkCanceled();
+            return false;
+        } catch (CancellationException e) {
+            return true;
+        }
+    }
+
+    private static void awaitUntil(Callable<Boolean> condition) throws Exception {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.call()) {
+            assertThat(System.nanoTime() < deadline, is(true));
+            Thread.sleep(10);
+        }
+    }
+
+    private static Stream<ProcessHandle> processesRunning(Class<?> mainClass) {
+        return ProcessHandle.current().descendants().filter(process -> process.info().arguments()
+                .map(arguments -> Arrays.asList(arguments).contains(mainClass.getName()))
+                .orElse(false));
+    }
+
+    private static BuildClient silentClient() {
+        return (BuildClient) Proxy.newProxyInstance(
+                BuildClient.class.getClassLoader(),
+                new Class<?>[]{BuildClient.class},
+                (proxy, method, args) -> null);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(projectDir.resolve("build.gradle.kts"), "plugins { java }");
+
+        targetUri = projectDir.toUri();
+        // Targets without compile tasks can be run without a build
+        appTargetUri = Files.createDirectories(projectDir.resolve("app")).toUri();
+
+        var workspace = workspace()
+                .targets(targetUri, appTargetUri)
+                .compileTask(targetUri, ":compileJava")
+                .build();
+
+        new WorkspaceCache(projectDir).save(WorkspaceSnapshot.of(workspace, BuildInputs.hashOf(projectDir, workspace)));
+
+        var daemonPools = DaemonPools.of(new DaemonPool(DaemonPools.INTERACTIVE, null, List.of(), 1), null, Map.of());
+        server = new TestServer(daemonPools, RequestExecutor.create(4, 16), projectDir, GradleBspServer.RunMode.DIRECT);
+        server.onConnectWithClient(silentClient());
+
+        var capabilities = new BuildClientCapabilities(List.of("java"));
+        var initializeParams = new InitializeBuildParams("test", "1.0.0", "2.1.1", projectDir.toUri().toString(), capabilities);
+        server.buildInitialize(initializeParams).get(5, TimeUnit.SECONDS);
+        server.onBuildInitialized();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.buildShutdown().get(5, TimeUnit.SECONDS);
+        server.onBuildExit();
+    }
+
+    private CompileParams compileParams(String originId) {
+        var params = new CompileParams(List.of(new BuildTargetIdentifier(targetUri.toString())));
+        params.setOriginId(originId);
+        return params;
+    }
+
+    @Test
+    void cancellingCompileRequestCancelsItsBuild() throws Exception {
+        server.holdCompileBatches = true;
+
+        var compile = server.buildTargetCompile(compileParams("compile"));
+
+        var batch = server.heldBatches.poll(5, TimeUnit.SECONDS);
+        assertThat(batch, is(notNullValue()));
+        assertThat(isCancelled(batch.cancelToken()), is(false));
+
+        compile.cancel(true);
+
+        assertThat(isCancelled(batch.cancelToken()), is(true));
+    }
+
+    @Test
+    void cancelsMergedCompileOnlyOnceEveryRequestIsCancelled() throws Exception {
+        server.holdCompileBatches = true;
+
+        var first = server.buildTargetCompile(compileParams("first"));
+        var second = server.buildTargetCompile(compileParams("second"));
+
+        var batch = server.heldBatches.poll(5, TimeUnit.SECONDS);
+        assertThat(batch, is(notNullValue()));
+        assertThat(batch.originIds(), containsInAnyOrder("first", "second"));
+
+        first.cancel(true);
+        assertThat(isCancelled(batch.cancelToken()), is(false));
+
+        second.cancel(true);
+        assertThat(isCancelled(batch.cancelToken()), is(true));
+    }
+
+    @Test
+    void dropsQueuedCompileOnceItsRequestIsCancelled() throws Exception {
+        var scheduler = server.getBuildScheduler();
+        var interactivePool = server.getDaemonPools().interactive();
+
+        // Keep the only daemon busy so that the compile has to wait in the queue
+        assertThat(interactivePool.tryAcquire(), is(true));
+
+        var compile = server.buildTargetCompile(compileParams("compile"));
+        awaitUntil(() -> scheduler.getQueueDepth() == 1);
+
+        compile.cancel(true);
+        interactivePool.release();
+
+        var clean = scheduler.submit(BuildScheduler.Kind.CLEAN, ":clean", List.of("clean"), () -> {}, build -> {
+            return CompletableFuture.completedFuture(Boolean.TRUE);
+        });
+
+        assertThat(clean.get(5, TimeUnit.SECONDS), is(true));
+        assertThat(scheduler.getQueueDepth(), is(0));
+        assertThat(scheduler.getStartedBuilds(), is(1L));
+    }
+
+    @Test
+    void rejectsTestRequestWithUnsupportedDataKind() {
+        var params = new TestParams(List.of(new BuildTargetIdentifier(targetUri.toString())));
+        params.setDataKind("unknown");
+        params.setData(new Object());
+
+        var error = assertThrows(ExecutionException.class, () -> server.buildTargetTest(params).get(5, TimeUnit.SECONDS));
+
+        assertThat(error.getCause(), is(instanceOf(ResponseErrorException.class)));
+        var responseError = ((ResponseErrorException) error.getCause()).getResponseError();
+        assertThat(responseError.getCode(), is(ResponseErrorCode.InvalidParams.getValue()));
+    }
+
+    @Test
+    void destroysDirectlyRunProcessWhenRunIsCancelled() throws Exception {
+        // The process only needs the class that it runs, which keeps its command line short enough to be read back
+        var testClasses = JvmLaunchTest.Sleep.class.getProtectionDomain().getCodeSource().getLocation().toURI();
+
+        server.jvmEnvironments.put(appTargetUri, new DefaultBspJvmEnvironment(
+                List.of(testClasses),
+                List.of("-Xmx64m"),
+                projectDir.toUri(),
+                Map.of(),
+                List.of(JvmLaunchTest.Sleep.class.getName())));
+
+        var run = server.buildTargetRun(new RunParams(new BuildTargetIdentifier(appTargetUri.toString())));
+        awaitUntil(() -> processesRunning(JvmLaunchTest.Sleep.class).count() == 1);
+
+        run.cancel(true);
+
+        awaitUntil(() -> processesRunning(JvmLaunchTest.Sleep.class).count() == 0);
+    }
+}
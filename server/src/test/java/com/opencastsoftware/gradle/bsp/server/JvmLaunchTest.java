@@ -0,0 +1,107 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class JvmLaunchTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    public static class Echo {
+        public static void main(String[] args) {
+            System.out.println(String.join(" ", args));
+            System.out.println(Paths.get("").toAbsolutePath());
+            System.err.println(System.getenv("JVM_LAUNCH_TEST"));
+            System.exit(3);
+        }
+    }
+
+    public static class Sleep {
+        public static void main(String[] args) throws InterruptedException {
+            System.out.println("started");
+            Thread.sleep(60_000);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private JvmLaunch launchOf(Class<?> mainClass, List<String> arguments, Path workingDirectory, Map<String, String> environmentVariables) {
+        var javaExecutable = Paths.get(System.getProperty("java.home"), "bin", "java");
+        var classpath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> Paths.get(entry).toAbsolutePath().toString())
+                .collect(Collectors.toList());
+        return new JvmLaunch(javaExecutable, classpath, List.of("-Xmx64m"), mainClass.getName(), arguments, workingDirectory, environmentVariables);
+    }
+
+    @Test
+    void streamsOutputAndReturnsExitCode(@TempDir Path workingDirectory) throws Exception {
+        var stdout = new CopyOnWriteArrayList<String>();
+        var stderr = new CopyOnWriteArrayList<String>();
+
+        var launch = launchOf(Echo.class, List.of("hello", "world"), workingDirectory, Map.of("JVM_LAUNCH_TEST", "from environment"));
+        var exitCode = launch.start(stdout::add, stderr::add, () -> {}, executor).get(30, TimeUnit.SECONDS);
+
+        assertThat(exitCode, is(equalTo(3)));
+        assertThat(stdout, contains("hello world", workingDirectory.toAbsolutePath().toString()));
+        assertThat(stderr, contains("from environment"));
+    }
+
+    @Test
+    void passesOptionsBeforeMainClass(@TempDir Path workingDirectory) {
+        var launch = launchOf(Echo.class, List.of("--verbose"), workingDirectory, Map.of());
+        var command = launch.getCommand();
+
+        assertThat(command.subList(1, command.size()), contains(
+                equalTo("-Xmx64m"),
+                equalTo("-cp"),
+                any(String.class),
+                equalTo(Echo.class.getName()),
+                equalTo("--verbose")));
+    }
+
+    @Test
+    void destroysProcessWhenCancelled(@TempDir Path workingDirectory) throws Exception {
+        var stdout = new CopyOnWriteArrayList<String>();
+        var cancelled = new AtomicBoolean(false);
+
+        CancelChecker cancelToken = () -> {
+            if (cancelled.get()) {
+                throw new CancellationException();
+            }
+        };
+
+        var launch = launchOf(Sleep.class, List.of(), workingDirectory, Map.of());
+        var exitCode = launch.start(line -> {
+            stdout.add(line);
+            cancelled.set(true);
+        }, line -> {}, cancelToken, executor);
+
+        assertThat(exitCode.get(30, TimeUnit.SECONDS), is(not(equalTo(0))));
+        assertThat(stdout, contains("started"));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.eclipse.lsp4j.jsonrpc.messages.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MessageTraceTest {
+    private static RequestMessage request(String id, String method) {
+        var request = new RequestMessage();
+        request.setId(id);
+        request.setMethod(method);
+        return request;
+    }
+
+    private static ResponseMessage response(String id, boolean failed) {
+        var response = new ResponseMessage();
+        response.setId(id);
+        if (failed) {
+            response.setError(new ResponseError(ResponseErrorCode.InternalError, "failed", null));
+        } else {
+            response.setResult("ok");
+        }
+        return response;
+    }
+
+    @Test
+    void tracesNothingWhenOff() {
+        var output = new StringWriter();
+
+        try (var trace = new MessageTrace(MessageTrace.Mode.OFF, 1, 16, new PrintWriter(output), null)) {
+            var consumer = trace.wrap(message -> {});
+            consumer.consume(request("1", "workspace/buildTargets"));
+            consumer.consume(response("1", true));
+            assertThat(trace.dump(), is(equalTo(0)));
+        }
+
+        assertThat(output.toString(), is(emptyString()));
+    }
+
+    @Test
+    void tracesSampledRequestsWithTheirResponses() {
+        var output = new StringWriter();
+
+        try (var trace = new MessageTrace(MessageTrace.Mode.SAMPLED, 2, 16, new PrintWriter(output), null)) {
+            var consumer = trace.wrap(message -> {});
+            consumer.consume(request("1", "workspace/buildTargets"));
+            consumer.consume(request("2", "buildTarget/sources"));
+            consumer.consume(response("2", false));
+            consumer.consume(response("1", false));
+            consumer.consume(request("3", "buildTarget/resources"));
+            consumer.consume(request("4", "buildTarget/compile"));
+            consumer.consume(response("4", true));
+        }
+
+        var trace = output.toString();
+        assertThat(trace, containsString("Received request 'workspace/buildTargets - (1)'"));
+        assertThat(trace, containsString("Sent response '(1)'"));
+        assertThat(trace, not(containsString("buildTarget/sources")));
+        assertThat(trace, not(containsString("Sent response '(2)'")));
+        assertThat(trace, containsString("Received request 'buildTarget/resources - (3)'"));
+        assertThat(trace, not(containsString("buildTarget/compile")));
+        assertThat(trace, containsString("Sent error response '(4)'"));
+    }
+
+    @Test
+    void writesRingBufferOnErrorResponse() {
+        var output = new StringWriter();
+
+        try (var trace = new MessageTrace(MessageTrace.Mode.FULL, 1, 2, new PrintWriter(output), null)) {
+            var consumer = trace.wrap(message -> {});
+            consumer.consume(request("1", "workspace/buildTargets"));
+            consumer.consume(response("1", false));
+            consumer.consume(request("2", "buildTarget/compile"));
+            assertThat(trace.getBufferedMessages(), is(equalTo(2)));
+            consumer.consume(response("2", true));
+        }
+
+        var trace = output.toString();
+        assertThat(trace, not(containsString("workspace/buildTargets")));
+        assertThat(trace, containsString("Received request 'buildTarget/compile - (2)'"));
+        assertThat(trace, containsString("Sent error response '(2)'"));
+    }
+
+    @Test
+    void dumpsOnlyMessagesSincePreviousDump() {
+        var output = new StringWriter();
+
+        try (var trace = new MessageTrace(MessageTrace.Mode.FULL, 1, 16, new PrintWriter(output), null)) {
+            var consumer = trace.wrap(message -> {});
+            consumer.consume(request("1", "workspace/buildTargets"));
+            consumer.consume(response("1", false));
+            assertThat(trace.dump(), is(equalTo(2)));
+            assertThat(trace.dump(), is(equalTo(0)));
+
+            trace.setMode("off");
+            consumer.consume(request("2", "buildTarget/compile"));
+            assertThat(trace.dump(), is(equalTo(0)));
+        }
+
+        assertThat(output.toString(), not(containsString("buildTarget/compile")));
+    }
+}
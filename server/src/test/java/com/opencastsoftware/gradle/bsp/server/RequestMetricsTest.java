@@ -0,0 +1,95 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.eclipse.lsp4j.jsonrpc.messages.*;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RequestMetricsTest {
+    private static RequestMessage request(String id, String method) {
+        var request = new RequestMessage();
+        request.setId(id);
+        request.setMethod(method);
+        return request;
+    }
+
+    private static ResponseMessage response(String id, ResponseErrorCode errorCode) {
+        var response = new ResponseMessage();
+        response.setId(id);
+        if (errorCode != null) {
+            response.setError(new ResponseError(errorCode, "failed", null));
+        } else {
+            response.setResult("ok");
+        }
+        return response;
+    }
+
+    @Test
+    void recordsRequestsByMethod() {
+        var metrics = new RequestMetrics();
+        var consumed = new ArrayList<Message>();
+        var consumer = metrics.wrap(consumed::add);
+
+        consumer.consume(request("1", "workspace/buildTargets"));
+        consumer.consume(request("2", "buildTarget/compile"));
+        consumer.consume(request("3", "buildTarget/compile"));
+        consumer.consume(request("4", "buildTarget/compile"));
+        consumer.consume(response("1", null));
+        consumer.consume(response("2", ResponseErrorCode.InternalError));
+        consumer.consume(response("3", ResponseErrorCode.RequestCancelled));
+
+        assertThat(consumed, hasSize(7));
+
+        var snapshot = metrics.snapshot();
+        assertThat(snapshot, hasSize(2));
+
+        var compile = snapshot.get(0);
+        assertThat(compile.getMethod(), is(equalTo("buildTarget/compile")));
+        assertThat(compile.getCount(), is(equalTo(2L)));
+        assertThat(compile.getErrors(), is(equalTo(1L)));
+        assertThat(compile.getCancelled(), is(equalTo(1L)));
+        assertThat(compile.getInFlight(), is(equalTo(1)));
+
+        var buildTargets = snapshot.get(1);
+        assertThat(buildTargets.getMethod(), is(equalTo("workspace/buildTargets")));
+        assertThat(buildTargets.getCount(), is(equalTo(1L)));
+        assertThat(buildTargets.getErrors(), is(equalTo(0L)));
+        assertThat(buildTargets.getInFlight(), is(equalTo(0)));
+        assertThat(buildTargets.getMaxMillis(), is(greaterThanOrEqualTo(buildTargets.getP50Millis())));
+    }
+
+    @Test
+    void ignoresResponsesToUnknownRequests() {
+        var metrics = new RequestMetrics();
+        var consumer = metrics.wrap(message -> {});
+
+        consumer.consume(response("1", null));
+
+        assertThat(metrics.snapshot(), is(empty()));
+    }
+
+    @Test
+    void registersMethodsWithJmx() throws Exception {
+        var mbeanServer = MBeanServerFactory.newMBeanServer();
+        var metrics = new RequestMetrics(mbeanServer);
+        var consumer = metrics.wrap(message -> {});
+
+        consumer.consume(request("1", "buildTarget/inverseSources"));
+        consumer.consume(response("1", null));
+
+        var objectName = new ObjectName(RequestMetrics.OBJECT_NAME_PREFIX + ObjectName.quote("buildTarget/inverseSources"));
+        assertThat(mbeanServer.getAttribute(objectName, "Count"), is(equalTo(1L)));
+
+        metrics.close();
+        assertThat(mbeanServer.isRegistered(objectName), is(false));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TargetModelCacheTest {
+    private static final URI MAIN = URI.create("file:///workspace/a/?sourceSet=main");
+    private static final URI TEST = URI.create("file:///workspace/a/?sourceSet=test");
+    private static final URI OTHER = URI.create("file:///workspace/b/");
+
+    private final List<Set<URI>> fetched = new CopyOnWriteArrayList<>();
+
+    private CompletableFuture<Map<URI, String>> fetchModels(Set<URI> targetUris) {
+        fetched.add(targetUris);
+        // Targets outside of project a have no model
+        return CompletableFuture.completedFuture(Map.of(MAIN, "main", TEST, "test").entrySet().stream()
+                .filter(entry -> targetUris.contains(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+
+    @Test
+    void fetchesOnlyUnseenTargets() throws Exception {
+        var cache = new TargetModelCache<>(this::fetchModels);
+
+        assertThat(cache.modelsFor(List.of(MAIN)).get(), is(equalTo(Map.of(MAIN, "main"))));
+        assertThat(cache.modelsFor(List.of(MAIN, TEST)).get(), is(equalTo(Map.of(MAIN, "main", TEST, "test"))));
+
+        assertThat(fetched, contains(Set.of(MAIN), Set.of(TEST)));
+    }
+
+    @Test
+    void omitsTargetsWithoutModels() throws Exception {
+        var cache = new TargetModelCache<>(this::fetchModels);
+
+        assertThat(cache.modelsFor(List.of(MAIN, OTHER)).get(), is(equalTo(Map.of(MAIN, "main"))));
+        assertThat(cache.modelsFor(List.of(OTHER)).get(), is(anEmptyMap()));
+
+        assertThat(fetched, hasSize(1));
+    }
+
+    @Test
+    void sharesFetchInProgress() throws Exception {
+        var pending = new CompletableFuture<Map<URI, String>>();
+        var cache = new TargetModelCache<String>(targetUris -> {
+            fetched.add(targetUris);
+            return pending;
+        });
+
+        var first = cache.modelsFor(List.of(MAIN));
+        var second = cache.modelsFor(List.of(MAIN));
+
+        pending.complete(Map.of(MAIN, "main"));
+
+        assertThat(first.get(), is(equalTo(second.get())));
+        assertThat(fetched, hasSize(1));
+    }
+
+    @Test
+    void fetchesAgainAfterFailure() throws Exception {
+        var cache = new TargetModelCache<String>(targetUris -> {
+            fetched.add(targetUris);
+            return fetched.size() == 1
+                    ? CompletableFuture.failedFuture(new IllegalStateException("build failed"))
+                    : CompletableFuture.completedFuture(Map.of(MAIN, "main"));
+        });
+
+        assertThat(cache.modelsFor(List.of(MAIN)).isCompletedExceptionally(), is(true));
+        assertThat(cache.modelsFor(List.of(MAIN)).get(), is(equalTo(Map.of(MAIN, "main"))));
+        assertThat(fetched, hasSize(2));
+    }
+}
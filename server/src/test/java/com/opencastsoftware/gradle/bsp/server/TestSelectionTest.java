@@ -0,0 +1,144 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import ch.epfl.scala.bsp4j.TestParams;
+import com.google.gson.JsonParser;
+import org.gradle.tooling.TestLauncher;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestSelectionTest {
+    private static final URI PROJECT_A = URI.create("file:///workspace/a/?sourceSet=test");
+    private static final URI PROJECT_B = URI.create("file:///workspace/b/?sourceSet=test");
+
+    private static TestParams paramsWith(String dataKind, String json) {
+        var params = new TestParams(List.of(new BuildTargetIdentifier(PROJECT_A.toString())));
+        params.setDataKind(dataKind);
+        params.setData(JsonParser.parseString(json));
+        return params;
+    }
+
+    @Test
+    void selectsNothingWithoutData() {
+        var params = new TestParams(List.of(new BuildTargetIdentifier(PROJECT_A.toString())));
+        assertThat(TestSelection.from(params, List.of(PROJECT_A)).isPresent(), is(false));
+    }
+
+    @Test
+    void readsTestSuites() {
+        var params = paramsWith(TestSelection.SCALA_TEST_SUITES, "[\"com.example.FooTest\", \"com.example.BarTest\"]");
+        var selection = TestSelection.from(params, List.of(PROJECT_A)).orElseThrow();
+        assertThat(selection.targets(), contains(PROJECT_A));
+        assertThat(selection.key(), is(equalTo(PROJECT_A + "#com.example.BarTest " + PROJECT_A + "#com.example.FooTest")));
+    }
+
+    @Test
+    void readsTestSuiteSelections() {
+        var params = paramsWith(TestSelection.SCALA_TEST_SUITES_SELECTION,
+                "{\"suites\": [{\"className\": \"com.example.FooTest\", \"tests\": [\"second\", \"first\"]}], \"jvmOptions\": [], \"environmentVariables\": []}");
+        var selection = TestSelection.from(params, List.of(PROJECT_A)).orElseThrow();
+        assertThat(selection.key(), is(equalTo(PROJECT_A + "#com.example.FooTest#first,second")));
+    }
+
+    @Test
+    void readsScalaTestClassesForEachTarget() {
+        var params = paramsWith(TestSelection.SCALA_TEST,
+                "{\"testClasses\": [{\"target\": {\"uri\": \"" + PROJECT_A + "\"}, \"classes\": [\"com.example.FooTest\"]}, {\"target\": {\"uri\": \"" + PROJECT_B + "\"}, \"classes\": [\"com.example.BazTest\"]}]}");
+        var selection = TestSelection.from(params, List.of(PROJECT_A, PROJECT_B)).orElseThrow();
+        assertThat(selection.targets(), contains(PROJECT_A, PROJECT_B));
+        assertThat(selection.key(), is(equalTo(PROJECT_A + "#com.example.FooTest " + PROJECT_B + "#com.example.BazTest")));
+    }
+
+    @Test
+    void ignoresScalaTestItemsOfTargetsNotRequested() {
+        var params = paramsWith(TestSelection.SCALA_TEST,
+                "{\"testClasses\": [{\"target\": {\"uri\": \"" + PROJECT_B + "\"}, \"classes\": [\"com.example.BazTest\"]}]}");
+        assertThat(TestSelection.from(params, List.of(PROJECT_A)).isPresent(), is(false));
+    }
+
+    @Test
+    void selectsNothingWithoutTestClasses() {
+        var suites = paramsWith(TestSelection.SCALA_TEST_SUITES, "[]");
+        assertThat(TestSelection.from(suites, List.of(PROJECT_A)).isPresent(), is(false));
+
+        var suiteSelections = paramsWith(TestSelection.SCALA_TEST_SUITES_SELECTION, "{\"suites\": []}");
+        assertThat(TestSelection.from(suiteSelections, List.of(PROJECT_A)).isPresent(), is(false));
+
+        var scalaTestClasses = paramsWith(TestSelection.SCALA_TEST, "{\"testClasses\": [{\"target\": {\"uri\": \"" + PROJECT_A + "\"}}]}");
+        assertThat(TestSelection.from(scalaTestClasses, List.of(PROJECT_A)).isPresent(), is(false));
+    }
+
+    @Test
+    void runsWholeSuiteOfTargetsWithoutScalaTestClasses() {
+        var params = paramsWith(TestSelection.SCALA_TEST,
+                "{\"testClasses\": [{\"target\": {\"uri\": \"" + PROJECT_A + "\"}}, {\"target\": {\"uri\": \"" + PROJECT_B + "\"}, \"classes\": [\"com.example.BazTest\"]}]}");
+        var selection = TestSelection.from(params, List.of(PROJECT_A, PROJECT_B)).orElseThrow();
+        assertThat(selection.targets(), contains(PROJECT_A, PROJECT_B));
+        assertThat(selection.testsFor(PROJECT_A).isEmpty(), is(true));
+        assertThat(selection.key(), is(equalTo(PROJECT_A + " " + PROJECT_B + "#com.example.BazTest")));
+    }
+
+    @Test
+    void rejectsUnknownDataKinds() {
+        var params = paramsWith("unknown", "{}");
+        assertThrows(IllegalArgumentException.class, () -> TestSelection.from(params, List.of(PROJECT_A)));
+    }
+
+    @Test
+    void configuresTestLauncherForEachTestTask() {
+        var params = paramsWith(TestSelection.SCALA_TEST_SUITES_SELECTION,
+                "{\"suites\": [{\"className\": \"com.example.FooTest\", \"tests\": [\"first\"]}, {\"className\": \"com.example.BarTest\", \"tests\": []}]}");
+        var selection = TestSelection.from(params, List.of(PROJECT_A)).orElseThrow();
+
+        var calls = new ArrayList<String>();
+        var launcher = (TestLauncher) Proxy.newProxyInstance(
+                TestLauncher.class.getClassLoader(),
+                new Class<?>[]{TestLauncher.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName() + " " + List.of(args));
+                    return proxy;
+                });
+
+        selection.applyTo(launcher, Map.of(PROJECT_A, List.of(":a:test")));
+
+        assertThat(calls, containsInAnyOrder(
+                "withTaskAndTestMethods [:a:test, com.example.FooTest, [first]]",
+                "withTaskAndTestClasses [:a:test, [com.example.BarTest]]"));
+    }
+
+    @Test
+    void configuresTestLauncherToRunWholeSuiteOfTargetsWithoutTestClasses() {
+        var params = paramsWith(TestSelection.SCALA_TEST,
+                "{\"testClasses\": [{\"target\": {\"uri\": \"" + PROJECT_B + "\"}, \"classes\": [\"com.example.BazTest\"]}]}");
+        var selection = TestSelection.from(params, List.of(PROJECT_A, PROJECT_B)).orElseThrow();
+
+        var calls = new ArrayList<String>();
+        var launcher = (TestLauncher) Proxy.newProxyInstance(
+                TestLauncher.class.getClassLoader(),
+                new Class<?>[]{TestLauncher.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName() + " " + Arrays.deepToString(args));
+                    return proxy;
+                });
+
+        selection.applyTo(launcher, Map.of(PROJECT_A, List.of(":a:test"), PROJECT_B, List.of(":b:test")));
+
+        assertThat(calls, containsInAnyOrder(
+                "forTasks [[:a:test]]",
+                "withTaskAndTestClasses [:b:test, [com.example.BazTest]]"));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.model.*;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Builds workspace models for tests, leaving out any parts of the model that a test doesn't set.
+ */
+public class TestWorkspaceBuilder {
+    private final List<BspBuildTarget> buildTargets = new ArrayList<>();
+    private final Map<URI, String> compileTasks = new HashMap<>();
+    private final Map<URI, Set<String>> testTasks = new HashMap<>();
+    private final Map<URI, String> runTasks = new HashMap<>();
+    private final Map<URI, String> cleanTasks = new HashMap<>();
+    private final Map<URI, Set<BspSourceItem>> sources = new HashMap<>();
+    private final Map<URI, Set<URI>> resources = new HashMap<>();
+    private final Map<URI, Set<URI>> outputPaths = new HashMap<>();
+    private final Map<URI, Set<BspDependencyModule>> dependencyModules = new HashMap<>();
+
+    public static TestWorkspaceBuilder workspace() {
+        return new TestWorkspaceBuilder();
+    }
+
+    /**
+     * @param targetUri the URI of the build target
+     * @return a Java build target which can be compiled and tested
+     */
+    public static BspBuildTarget javaTarget(URI targetUri) {
+        return new DefaultBspBuildTarget(
+                new DefaultBspBuildTargetId(targetUri),
+                targetUri.toString(),
+                targetUri,
+                List.of(),
+                List.of("java"),
+                List.of(),
+                new DefaultBspBuildTargetCapabilities(true, true, false, false));
+    }
+
+    public TestWorkspaceBuilder target(BspBuildTarget buildTarget) {
+        buildTargets.add(buildTarget);
+        return this;
+    }
+
+    public TestWorkspaceBuilder targets(URI... targetUris) {
+        for (var targetUri : targetUris) {
+            target(javaTarget(targetUri));
+        }
+        return this;
+    }
+
+    public TestWorkspaceBuilder compileTask(URI targetUri, String taskPath) {
+        compileTasks.put(targetUri, taskPath);
+        return this;
+    }
+
+    public TestWorkspaceBuilder testTasks(URI targetUri, String... taskPaths) {
+        testTasks.put(targetUri, Set.of(taskPaths));
+        return this;
+    }
+
+    public TestWorkspaceBuilder runTask(URI targetUri, String taskPath) {
+        runTasks.put(targetUri, taskPath);
+        return this;
+    }
+
+    public TestWorkspaceBuilder cleanTask(URI targetUri, String taskPath) {
+        cleanTasks.put(targetUri, taskPath);
+        return this;
+    }
+
+    public TestWorkspaceBuilder sources(URI targetUri, URI... sourceDirs) {
+        var sourceItems = new HashSet<BspSourceItem>();
+        for (var sourceDir : sourceDirs) {
+            sourceItems.add(new DefaultBspSourceItem(sourceDir));
+        }
+        return sources(targetUri, sourceItems);
+    }
+
+    public TestWorkspaceBuilder sources(URI targetUri, Set<BspSourceItem> sourceItems) {
+        sources.put(targetUri, sourceItems);
+        return this;
+    }
+
+    public TestWorkspaceBuilder resources(URI targetUri, URI... resourceDirs) {
+        resources.put(targetUri, Set.of(resourceDirs));
+        return this;
+    }
+
+    public TestWorkspaceBuilder outputPaths(URI targetUri, URI... outputDirs) {
+        outputPaths.put(targetUri, Set.of(outputDirs));
+        return this;
+    }
+
+    public TestWorkspaceBuilder dependencyModules(URI targetUri, BspDependencyModule... modules) {
+        dependencyModules.put(targetUri, Set.of(modules));
+        return this;
+    }
+
+    public BspWorkspace build() {
+        return new DefaultBspWorkspace(
+                List.copyOf(buildTargets),
+                new DefaultBspCompileTasks(Map.copyOf(compileTasks)),
+                new DefaultBspTestTasks(Map.copyOf(testTasks)),
+                new DefaultBspRunTasks(Map.copyOf(runTasks)),
+                new DefaultBspCleanTasks(Map.copyOf(cleanTasks)),
+                new DefaultBspBuildTargetSources(Map.copyOf(sources)),
+                new DefaultBspBuildTargetResources(Map.copyOf(resources)),
+                new DefaultBspBuildTargetOutputPaths(Map.copyOf(outputPaths)),
+                new DefaultBspDependencyModules(Map.copyOf(dependencyModules)));
+    }
+}
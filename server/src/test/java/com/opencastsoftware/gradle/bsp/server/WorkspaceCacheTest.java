@@ -0,0 +1,120 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import com.opencastsoftware.gradle.bsp.model.*;
+import com.opencastsoftware.gradle.bsp.server.util.BuildInputs;
+import com.opencastsoftware.gradle.bsp.server.util.ModelCopies;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WorkspaceCacheTest {
+    private BspWorkspace workspaceFor(Path projectDir) {
+        var targetUri = projectDir.toUri();
+        var buildTarget = new DefaultBspBuildTarget(
+                new DefaultBspBuildTargetId(targetUri),
+                "example",
+                targetUri,
+                List.of("application"),
+                List.of("java"),
+                List.of(),
+                new DefaultBspBuildTargetCapabilities(true, true, true, false),
+                "jvm",
+                new DefaultBspJvmBuildTarget(projectDir.resolve("jdk").toUri(), "17"));
+        return TestWorkspaceBuilder.workspace()
+                .target(buildTarget)
+                .compileTask(targetUri, ":classes")
+                .testTasks(targetUri, ":test")
+                .runTask(targetUri, ":run")
+                .cleanTask(targetUri, ":clean")
+                .sources(targetUri, Set.of(new DefaultBspSourceItem(projectDir.resolve("src/main/java").toUri(), false)))
+                .resources(targetUri, projectDir.resolve("src/main/resources").toUri())
+                .build();
+    }
+
+    @Test
+    void loadsSavedWorkspace(@TempDir Path projectDir) throws IOException {
+        Files.writeString(projectDir.resolve("build.gradle.kts"), "plugins { java }");
+
+        var workspace = workspaceFor(projectDir);
+        var cache = new WorkspaceCache(projectDir);
+        cache.save(WorkspaceSnapshot.of(workspace, BuildInputs.hashOf(projectDir, workspace)));
+
+        var loaded = cache.load();
+
+        assertThat(loaded.map(WorkspaceSnapshot::workspace), is(Optional.of(workspace)));
+    }
+
+    @Test
+    void ignoresCacheWhenBuildInputsChange(@TempDir Path projectDir) throws IOException {
+        Files.writeString(projectDir.resolve("build.gradle.kts"), "plugins { java }");
+
+        var workspace = workspaceFor(projectDir);
+        var cache = new WorkspaceCache(projectDir);
+        cache.save(WorkspaceSnapshot.of(workspace, BuildInputs.hashOf(projectDir, workspace)));
+
+        Files.writeString(projectDir.resolve("build.gradle.kts"), "plugins { application }");
+
+        assertThat(cache.load(), is(Optional.empty()));
+    }
+
+    @Test
+    void ignoresMissingOrCorruptCache(@TempDir Path projectDir) throws IOException {
+        var cache = new WorkspaceCache(projectDir);
+
+        assertThat(cache.load(), is(Optional.empty()));
+
+        Files.createDirectories(cache.getCacheFile().getParent());
+        Files.writeString(cache.getCacheFile(), "not a cache file");
+
+        assertThat(cache.load(), is(Optional.empty()));
+    }
+
+    @Test
+    void loadsBuildTargetDataOfEveryKind(@TempDir Path projectDir) throws IOException {
+        Files.writeString(projectDir.resolve("build.gradle.kts"), "plugins { scala }");
+
+        var scalaTargetUri = projectDir.toUri().resolve("?sourceSet=scala");
+        var otherTargetUri = projectDir.toUri().resolve("?sourceSet=other");
+        var capabilities = new DefaultBspBuildTargetCapabilities(true, false, false, false);
+
+        var scalaTarget = new DefaultBspBuildTarget(
+                new DefaultBspBuildTargetId(scalaTargetUri), "scala", projectDir.toUri(),
+                List.of(), List.of("scala"), List.of(), capabilities,
+                "scala", new DefaultBspScalaBuildTarget("org.scala-lang", "2.13.10", "2.13", BspScalaPlatform.JVM,
+                List.of(projectDir.resolve("scala-library.jar").toUri()),
+                new DefaultBspJvmBuildTarget(projectDir.resolve("jdk").toUri(), "17")));
+
+        var otherTarget = new DefaultBspBuildTarget(
+                new DefaultBspBuildTargetId(otherTargetUri), "other", projectDir.toUri(),
+                List.of(), List.of("other"), List.of(), capabilities,
+                "other", new HashMap<>(Map.of("version", "1.0", "flags", List.of("-x", "-y"))));
+
+        // Workspaces are copied from the Tooling API models before they are cached
+        var workspace = ModelCopies.copyOf(TestWorkspaceBuilder.workspace()
+                .target(scalaTarget)
+                .target(otherTarget)
+                .build());
+
+        var cache = new WorkspaceCache(projectDir);
+        cache.save(WorkspaceSnapshot.of(workspace, BuildInputs.hashOf(projectDir, workspace)));
+
+        var loadedTargets = cache.load().orElseThrow().workspace().buildTargets();
+
+        assertThat(loadedTargets, contains(scalaTarget, otherTarget));
+    }
+}
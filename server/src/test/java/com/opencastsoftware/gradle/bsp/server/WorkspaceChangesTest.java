@@ -0,0 +1,93 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.BuildTargetEvent;
+import ch.epfl.scala.bsp4j.BuildTargetEventKind;
+import ch.epfl.scala.bsp4j.BuildTargetIdentifier;
+import com.opencastsoftware.gradle.bsp.model.BspDependencyModule;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspDependencyModule;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspMavenDependencyModule;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspMavenDependencyModuleArtifact;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Set;
+
+import static com.opencastsoftware.gradle.bsp.server.TestWorkspaceBuilder.workspace;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WorkspaceChangesTest {
+    private static final URI PROJECT_A = URI.create("file:///workspace/a/");
+    private static final URI PROJECT_B = URI.create("file:///workspace/b/");
+
+    private BspDependencyModule mavenModule(String scope, String classifier) {
+        var artifact = new DefaultBspMavenDependencyModuleArtifact(URI.create("file:///cache/guava.jar"), classifier);
+        var mavenModule = new DefaultBspMavenDependencyModule("com.google.guava", "guava", "33.0.0-jre", Set.of(artifact), scope);
+        return new DefaultBspDependencyModule("guava", "33.0.0-jre", "maven", mavenModule);
+    }
+
+    private BuildTargetEvent eventWith(URI targetUri, BuildTargetEventKind kind) {
+        var event = new BuildTargetEvent(new BuildTargetIdentifier(targetUri.toString()));
+        event.setKind(kind);
+        return event;
+    }
+
+    @Test
+    void reportsNoChangesForIdenticalWorkspaces() {
+        var previous = workspace().targets(PROJECT_A, PROJECT_B).build();
+        var current = workspace().targets(PROJECT_A, PROJECT_B).build();
+        assertThat(WorkspaceChanges.between(previous, current), is(empty()));
+    }
+
+    @Test
+    void reportsCreatedAndDeletedTargets() {
+        var previous = workspace().targets(PROJECT_A).build();
+        var current = workspace().targets(PROJECT_B).build();
+        assertThat(WorkspaceChanges.between(previous, current), contains(
+                eventWith(PROJECT_A, BuildTargetEventKind.DELETED),
+                eventWith(PROJECT_B, BuildTargetEventKind.CREATED)));
+    }
+
+    @Test
+    void reportsTargetsWithChangedSources() {
+        var previous = workspace().targets(PROJECT_A, PROJECT_B).sources(PROJECT_A, PROJECT_A.resolve("src/main/java/")).build();
+        var current = workspace().targets(PROJECT_A, PROJECT_B).sources(PROJECT_A, PROJECT_A.resolve("src/main/kotlin/")).build();
+        assertThat(WorkspaceChanges.between(previous, current), contains(
+                eventWith(PROJECT_A, BuildTargetEventKind.CHANGED)));
+    }
+
+    @Test
+    void reportsTargetsWithChangedTasks() {
+        var previous = workspace().targets(PROJECT_A, PROJECT_B).compileTask(PROJECT_B, ":b:classes").build();
+        var current = workspace().targets(PROJECT_A, PROJECT_B).compileTask(PROJECT_B, ":b:compileJava").build();
+        assertThat(WorkspaceChanges.between(previous, current), contains(
+                eventWith(PROJECT_B, BuildTargetEventKind.CHANGED)));
+    }
+
+    @Test
+    void reportsTargetsWithChangedOutputPaths() {
+        var previous = workspace().targets(PROJECT_A, PROJECT_B).outputPaths(PROJECT_A, PROJECT_A.resolve("build/")).build();
+        var current = workspace().targets(PROJECT_A, PROJECT_B).outputPaths(PROJECT_A, PROJECT_A.resolve("out/")).build();
+        assertThat(WorkspaceChanges.between(previous, current), contains(
+                eventWith(PROJECT_A, BuildTargetEventKind.CHANGED)));
+    }
+
+    @Test
+    void reportsTargetsWithChangedMavenDependencies() {
+        var previous = workspace().targets(PROJECT_A, PROJECT_B)
+                .dependencyModules(PROJECT_A, mavenModule("compile", null))
+                .dependencyModules(PROJECT_B, mavenModule("compile", null))
+                .build();
+        var current = workspace().targets(PROJECT_A, PROJECT_B)
+                .dependencyModules(PROJECT_A, mavenModule("runtime", null))
+                .dependencyModules(PROJECT_B, mavenModule("compile", "sources"))
+                .build();
+        assertThat(WorkspaceChanges.between(previous, current), contains(
+                eventWith(PROJECT_A, BuildTargetEventKind.CHANGED),
+                eventWith(PROJECT_B, BuildTargetEventKind.CHANGED)));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server;
+
+import ch.epfl.scala.bsp4j.DependencyModuleDataKind;
+import ch.epfl.scala.bsp4j.MavenDependencyModule;
+import com.opencastsoftware.gradle.bsp.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Set;
+
+import static com.opencastsoftware.gradle.bsp.server.TestWorkspaceBuilder.workspace;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WorkspaceSnapshotTest {
+    private static final URI PROJECT_A = URI.create("file:///workspace/a/");
+    private static final URI PROJECT_B = URI.create("file:///workspace/b/");
+
+    private static BspDependencyModule mavenModule(String name) {
+        var artifact = new DefaultBspMavenDependencyModuleArtifact(URI.create("file:///cache/" + name + ".jar"), null);
+        var mavenModule = new DefaultBspMavenDependencyModule("com.example", name, "1.0.0", Set.of(artifact), "compile");
+        return new DefaultBspDependencyModule(name, "1.0.0", "maven", mavenModule);
+    }
+
+    private static WorkspaceSnapshot snapshotOf(TestWorkspaceBuilder workspace) {
+        return WorkspaceSnapshot.of(workspace.build(), "hash");
+    }
+
+    @Test
+    void convertsMavenDependencyModules() {
+        var snapshot = snapshotOf(workspace().dependencyModules(PROJECT_A, mavenModule("guava")));
+
+        var item = snapshot.dependencyModulesFor(PROJECT_A);
+        assertThat(item.getTarget().getUri(), is(equalTo(PROJECT_A.toString())));
+        assertThat(item.getModules(), hasSize(1));
+
+        var module = item.getModules().get(0);
+        assertThat(module.getName(), is(equalTo("guava")));
+        assertThat(module.getDataKind(), is(equalTo(DependencyModuleDataKind.MAVEN)));
+
+        var mavenData = (MavenDependencyModule) module.getData();
+        assertThat(mavenData.getOrganization(), is(equalTo("com.example")));
+        assertThat(mavenData.getScope(), is(equalTo("compile")));
+        assertThat(mavenData.getArtifacts().get(0).getUri(), is(equalTo("file:///cache/guava.jar")));
+    }
+
+    @Test
+    void sharesConvertedModulesBetweenTargets() {
+        var snapshot = snapshotOf(workspace()
+                .dependencyModules(PROJECT_A, mavenModule("guava"))
+                .dependencyModules(PROJECT_B, mavenModule("guava")));
+
+        var moduleOfA = snapshot.dependencyModulesFor(PROJECT_A).getModules().get(0);
+        var moduleOfB = snapshot.dependencyModulesFor(PROJECT_B).getModules().get(0);
+
+        assertThat(moduleOfA, is(sameInstance(moduleOfB)));
+    }
+
+    @Test
+    void returnsNoModulesForUnknownTargets() {
+        var snapshot = snapshotOf(workspace());
+        assertThat(snapshot.dependencyModulesFor(PROJECT_A).getModules(), is(empty()));
+    }
+}
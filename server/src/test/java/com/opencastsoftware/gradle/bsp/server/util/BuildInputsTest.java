@@ -0,0 +1,73 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import com.opencastsoftware.gradle.bsp.model.DefaultBspBuildTarget;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspBuildTargetCapabilities;
+import com.opencastsoftware.gradle.bsp.model.DefaultBspBuildTargetId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.opencastsoftware.gradle.bsp.server.TestWorkspaceBuilder.workspace;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BuildInputsTest {
+    @Test
+    void recognisesBuildScripts(@TempDir Path projectRoot) {
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("settings.gradle.kts")), is(true));
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("gradle.properties")), is(true));
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("app/build.gradle")), is(true));
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("gradle/libs.versions.toml")), is(true));
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("buildSrc/src/main/kotlin/Conventions.kt")), is(true));
+    }
+
+    @Test
+    void ignoresOtherFiles(@TempDir Path projectRoot) {
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("app/src/main/java/Main.java")), is(false));
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("app/gradle/other.toml")), is(false));
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("buildSrc/build/classes/Conventions.class")), is(false));
+        assertThat(BuildInputs.isBuildInput(projectRoot, projectRoot.resolve("buildSrc/.gradle/file-system.probe")), is(false));
+    }
+
+    @Test
+    void findsDirectoriesToWatch(@TempDir Path projectRoot) throws IOException {
+        var appDir = Files.createDirectories(projectRoot.resolve("app"));
+        var catalogDir = Files.createDirectories(projectRoot.resolve("gradle"));
+        var buildSrcSources = Files.createDirectories(projectRoot.resolve("buildSrc/src/main/kotlin"));
+        Files.createDirectories(projectRoot.resolve("buildSrc/build/classes"));
+
+        var directories = BuildInputs.directoriesOf(projectRoot, workspace().targets(projectRoot.toUri(), appDir.toUri()).build());
+
+        assertThat(directories, hasItems(projectRoot, appDir, catalogDir, projectRoot.resolve("buildSrc"), buildSrcSources));
+        assertThat(directories, not(hasItem(projectRoot.resolve("buildSrc/build"))));
+        assertThat(directories, not(hasItem(projectRoot.resolve("buildSrc/build/classes"))));
+    }
+
+    @Test
+    void ignoresTargetsWithoutBaseDirectory(@TempDir Path projectRoot) throws IOException {
+        var appDir = Files.createDirectories(projectRoot.resolve("app"));
+        var targetUri = projectRoot.toUri().resolve("?sourceSet=main");
+
+        var directories = BuildInputs.directoriesOf(projectRoot, workspace()
+                .targets(appDir.toUri())
+                .target(new DefaultBspBuildTarget(
+                        new DefaultBspBuildTargetId(targetUri),
+                        "main",
+                        null,
+                        List.of(),
+                        List.of("java"),
+                        List.of(),
+                        new DefaultBspBuildTargetCapabilities(true, false, false, false)))
+                .build());
+
+        assertThat(directories, hasItems(projectRoot, appDir));
+    }
+}
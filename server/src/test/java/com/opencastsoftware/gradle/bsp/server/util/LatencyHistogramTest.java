@@ -0,0 +1,46 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest {
+    @Test
+    void bucketsContainTheirValues() {
+        for (var micros : new long[]{0, 1, 3, 4, 7, 8, 9, 1_000, 123_456, 60_000_000, Long.MAX_VALUE / 2}) {
+            var bucket = LatencyHistogram.bucketOf(micros);
+            assertThat(LatencyHistogram.upperBoundOf(bucket), is(greaterThanOrEqualTo(micros)));
+            assertThat(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < micros, is(true));
+        }
+    }
+
+    @Test
+    void estimatesPercentiles() {
+        var histogram = new LatencyHistogram();
+
+        for (var micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros);
+        }
+
+        assertThat(histogram.getCount(), is(equalTo(1000L)));
+        assertThat(histogram.getMaxMicros(), is(equalTo(1000L)));
+        assertThat(histogram.getMeanMicros(), is(closeTo(500.5, 0.001)));
+        assertThat((double) histogram.getPercentileMicros(50), is(closeTo(500, 125)));
+        assertThat((double) histogram.getPercentileMicros(99), is(closeTo(990, 250)));
+        assertThat(histogram.getPercentileMicros(100), is(equalTo(1000L)));
+    }
+
+    @Test
+    void reportsNothingWhenEmpty() {
+        var histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount(), is(equalTo(0L)));
+        assertThat(histogram.getMeanMicros(), is(equalTo(0.0)));
+        assertThat(histogram.getPercentileMicros(99), is(equalTo(0L)));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RequestExecutorTest {
+    private final ExecutorService delegate = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        delegate.shutdownNow();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void limitsConcurrentRequests() throws Exception {
+        var executor = new RequestExecutor(delegate, 2, 8);
+        var release = new CountDownLatch(1);
+        var running = new AtomicInteger(0);
+        var maxRunning = new AtomicInteger(0);
+
+        for (int i = 0; i < 6; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        }
+
+        awaitCondition(() -> executor.getActiveRequests() == 2 && executor.getQueuedRequests() == 4);
+        assertThat(executor.getActiveRequests(), is(equalTo(2)));
+        assertThat(executor.getQueuedRequests(), is(equalTo(4)));
+
+        release.countDown();
+
+        awaitCondition(() -> executor.getCompletedRequests() == 6);
+        assertThat(executor.getCompletedRequests(), is(equalTo(6L)));
+        assertThat(maxRunning.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void rejectsRequestsWhenQueueIsFull() throws Exception {
+        var executor = new RequestExecutor(delegate, 1, 1);
+        var release = new CountDownLatch(1);
+
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        executor.execute(blocked);
+        executor.execute(blocked);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(blocked));
+        assertThat(executor.getRejectedRequests(), is(equalTo(1L)));
+
+        release.countDown();
+
+        awaitCondition(() -> executor.getCompletedRequests() == 2);
+        assertThat(executor.getCompletedRequests(), is(equalTo(2L)));
+
+        // Once the queue drains, requests are accepted again
+        var accepted = new CountDownLatch(1);
+        executor.execute(accepted::countDown);
+        assertThat(accepted.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    void exposesLoadViaJmx() throws Exception {
+        var mbeanServer = MBeanServerFactory.newMBeanServer();
+        var executor = new RequestExecutor(delegate, 1, 1);
+        var release = new CountDownLatch(1);
+        var objectName = new ObjectName(RequestExecutor.OBJECT_NAME);
+
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (var registry = new MBeanRegistry(mbeanServer)) {
+            registry.register(RequestExecutor.OBJECT_NAME, executor);
+
+            executor.execute(blocked);
+            executor.execute(blocked);
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(blocked));
+
+            awaitCondition(() -> executor.getActiveRequests() == 1 && executor.getQueuedRequests() == 1);
+            assertThat(mbeanServer.getAttribute(objectName, "ActiveRequests"), is(equalTo(1)));
+            assertThat(mbeanServer.getAttribute(objectName, "QueuedRequests"), is(equalTo(1)));
+            assertThat(mbeanServer.getAttribute(objectName, "RejectedRequests"), is(equalTo(1L)));
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(mbeanServer.isRegistered(objectName), is(false));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * SPDX-FileCopyrightText:  © 2024 Opencast Software Europe Ltd <https://opencastsoftware.com>
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.opencastsoftware.gradle.bsp.server.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static com.opencastsoftware.gradle.bsp.server.TestWorkspaceBuilder.workspace;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SourcePathIndexTest {
+    @Test
+    void findsTargetsOwningSourceDirectories(@TempDir Path projectDir) {
+        var projectTarget = projectDir.toUri();
+        var mainTarget = projectTarget.resolve("?sourceSet=main");
+        var testTarget = projectTarget.resolve("?sourceSet=test");
+
+        var mainSources = projectDir.resolve("src/main/java");
+        var testSources = projectDir.resolve("src/test/java");
+
+        var index = SourcePathIndex.of(workspace()
+                .sources(mainTarget, mainSources.toUri())
+                .sources(testTarget, testSources.toUri())
+                .sources(projectTarget, mainSources.toUri(), testSources.toUri())
+                .build());
+
+        var mainDocument = mainSources.resolve("com/example/Main.java");
+        assertThat(index.targetsContaining(mainDocument), containsInAnyOrder(mainTarget, projectTarget));
+
+        var testDocument = testSources.resolve("com/example/MainTest.java");
+        assertThat(index.targetsContaining(testDocument), containsInAnyOrder(testTarget, projectTarget));
+    }
+
+    @Test
+    void findsTargetsOwningResourceDirectories(@TempDir Path projectDir) {
+        var mainTarget = projectDir.toUri().resolve("?sourceSet=main");
+        var mainResources = projectDir.resolve("src/main/resources");
+
+        var index = SourcePathIndex.of(workspace()
+                .resources(mainTarget, mainResources.toUri())
+                .build());
+
+        assertThat(index.targetsContaining(mainResources.resolve("logback.xml")), contains(mainTarget));
+    }
+
+    @Test
+    void normalizesDocumentPaths(@TempDir Path projectDir) {
+        var mainTarget = projectDir.toUri().resolve("?sourceSet=main");
+        var mainSources = projectDir.resolve("src/main/java");
+
+        var index = SourcePathIndex.of(workspace()
+                .sources(mainTarget, mainSources.toUri())
+                .build());
+
+        var document = projectDir.resolve("src/test/../main/java/Main.java");
+        assertThat(index.targetsContaining(document), contains(mainTarget));
+    }
+
+    @Test
+    void ignoresSiblingDirectoriesWithCommonPrefix(@TempDir Path projectDir) {
+        var mainTarget = projectDir.toUri().resolve("?sourceSet=main");
+        var mainSources = projectDir.resolve("src/main/java");
+
+        var index = SourcePathIndex.of(workspace()
+                .sources(mainTarget, mainSources.toUri())
+                .build());
+
+        assertThat(index.targetsContaining(projectDir.resolve("src/main/javascript/index.js")), is(empty()));
+        assertThat(index.targetsContaining(projectDir.resolve("src/main")), is(empty()));
+    }
+}